@@ -0,0 +1,71 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PlaylistService#addTracks(String, List, int)} against an in-memory repository. Sizes stay
+ * below the 500 tracks limit so every batch is accepted.
+ *
+ * <p>Every call puts the playlist back with one snapshot swap, {@link #reset()} measures that swap
+ * alone; subtract it from the other scores.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AddTracksBenchmark {
+
+    private static final String UUID = "benchmark-add";
+
+    @Param({"10", "100", "250", "450"})
+    private int playlistSize;
+
+    @Param({"1", "10", "50"})
+    private int batchSize;
+
+    @Param({"HEAD", "MIDDLE", "TAIL", "END"})
+    private Position position;
+
+    private PlaylistService playlistService;
+    private Playlist playlist;
+    private PlaylistSnapshot initial;
+    private List<Track> tracksToAdd;
+    private int insertionIndex;
+
+    @Setup
+    public void setUp() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        playlist = PlaylistFixtures.playlist(UUID, playlistSize);
+        repository.save(playlist);
+
+        playlistService = new PlaylistServiceImpl(repository);
+        initial = playlist.getSnapshot();
+        tracksToAdd = PlaylistFixtures.tracks(playlistSize, batchSize);
+        insertionIndex = position.insertionIndex(playlistSize);
+    }
+
+    @Benchmark
+    public List<PlaylistTrack> addTracks() {
+        List<PlaylistTrack> added = playlistService.addTracks(UUID, tracksToAdd, insertionIndex);
+        reset();
+        return added;
+    }
+
+    /* Republishing the immutable initial snapshot is O(1), it keeps every call at playlistSize */
+    @Benchmark
+    public boolean reset() {
+        return playlist.compareAndSetSnapshot(playlist.getSnapshot(), initial);
+    }
+}
@@ -0,0 +1,127 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.AsyncPlaylistServiceImpl;
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.concurrent.PlaylistExecutors;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.AsyncPlaylistService;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waves of {@code concurrency} simultaneous edits, each an add followed by a remove on its own
+ * playlist, against a repository with {@code latencyMillis} per lookup. The sampled time is the
+ * completion of the slowest edit of a wave; its p99 shows how each model copes with more
+ * concurrent requests than {@code poolSize} platform threads.
+ *
+ * <ul>
+ *   <li>BLOCKING: the blocking service called from a fixed pool, a platform thread per request.
+ *   <li>ASYNC_PLATFORM_POOL: the async service on the bounded platform pool fallback.
+ *   <li>ASYNC_VIRTUAL: the async service on a virtual thread per task. Needs JDK 21, so it is
+ *       not run by default; add it with {@code -p model=BLOCKING,ASYNC_PLATFORM_POOL,ASYNC_VIRTUAL}
+ * </ul>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncVsBlockingBenchmark {
+
+    public enum Model {
+        BLOCKING,
+        ASYNC_PLATFORM_POOL,
+        ASYNC_VIRTUAL
+    }
+
+    private static final int PLAYLIST_SIZE = 100;
+
+    @Param({"BLOCKING", "ASYNC_PLATFORM_POOL"})
+    private Model model;
+
+    @Param({"64", "512", "2048"})
+    private int concurrency;
+
+    @Param({"200"})
+    private int poolSize;
+
+    @Param({"5"})
+    private int latencyMillis;
+
+    private PlaylistService playlistService;
+    private AsyncPlaylistService asyncPlaylistService;
+    private ExecutorService executor;
+    private List<String> uuids;
+    private List<Track> tracksToAdd;
+    private List<Integer> indexesToRemove;
+
+    @Setup
+    public void setUp() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        uuids = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String uuid = "benchmark-async-" + i;
+            repository.save(PlaylistFixtures.playlist(uuid, PLAYLIST_SIZE));
+            uuids.add(uuid);
+        }
+        playlistService =
+                new PlaylistServiceImpl(
+                        new LatencyInjectingPlaylistRepository(
+                                repository, TimeUnit.MILLISECONDS.toNanos(latencyMillis)));
+        tracksToAdd = PlaylistFixtures.tracks(PLAYLIST_SIZE, 1);
+        indexesToRemove = Collections.singletonList(PLAYLIST_SIZE);
+
+        switch (model) {
+            case BLOCKING:
+                executor = Executors.newFixedThreadPool(poolSize);
+                break;
+            case ASYNC_PLATFORM_POOL:
+                executor = PlaylistExecutors.boundedPlatformPool(poolSize, 2 * concurrency);
+                break;
+            default:
+                executor =
+                        PlaylistExecutors.virtualThreadPerTask()
+                                .orElseThrow(() -> new IllegalStateException("Needs JDK 21"));
+        }
+        asyncPlaylistService = new AsyncPlaylistServiceImpl(playlistService, executor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void wave() {
+        List<CompletableFuture<?>> edits = new ArrayList<>(concurrency);
+        for (String uuid : uuids) {
+            edits.add(model == Model.BLOCKING ? blockingEdit(uuid) : asyncEdit(uuid));
+        }
+        CompletableFuture.allOf(edits.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private CompletableFuture<?> blockingEdit(String uuid) {
+        return CompletableFuture.runAsync(
+                () -> {
+                    playlistService.addTracks(uuid, tracksToAdd, -1);
+                    playlistService.removeTracks(uuid, indexesToRemove);
+                },
+                executor);
+    }
+
+    private CompletableFuture<?> asyncEdit(String uuid) {
+        return asyncPlaylistService
+                .addTracks(uuid, tracksToAdd, -1)
+                .thenCompose(added -> asyncPlaylistService.removeTracks(uuid, indexesToRemove));
+    }
+}
@@ -0,0 +1,58 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.StripedLockingPlaylistService;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Add/remove pairs through {@link StripedLockingPlaylistService}, every benchmark thread editing
+ * its own playlist. Run with increasing {@code -t} to check throughput scales with threads, e.g.
+ * {@code java -jar target/benchmarks.jar ConcurrentEdit -t 1} then {@code -t 4}, {@code -t 8}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentEditBenchmark {
+
+    private static final int PLAYLIST_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        final InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        final PlaylistService playlistService =
+                new StripedLockingPlaylistService(new PlaylistServiceImpl(repository));
+        final AtomicInteger nextPlaylist = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class OwnPlaylist {
+        String uuid;
+        List<Track> tracksToAdd;
+        List<Integer> indexesToRemove;
+
+        @Setup
+        public void setUp(Service service) {
+            uuid = "benchmark-concurrent-" + service.nextPlaylist.getAndIncrement();
+            service.repository.save(PlaylistFixtures.playlist(uuid, PLAYLIST_SIZE));
+            tracksToAdd = PlaylistFixtures.tracks(PLAYLIST_SIZE, 1);
+            indexesToRemove = Collections.singletonList(PLAYLIST_SIZE / 2);
+        }
+    }
+
+    @Benchmark
+    public List<PlaylistTrack> addThenRemove(Service service, OwnPlaylist playlist) {
+        service.playlistService.addTracks(playlist.uuid, playlist.tracksToAdd, PLAYLIST_SIZE / 2);
+        return service.playlistService.removeTracks(playlist.uuid, playlist.indexesToRemove);
+    }
+}
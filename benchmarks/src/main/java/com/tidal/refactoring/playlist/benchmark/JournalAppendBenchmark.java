@@ -0,0 +1,65 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.journal.FsyncPolicy;
+import com.tidal.refactoring.playlist.journal.JournalRecord;
+import com.tidal.refactoring.playlist.journal.PlaylistJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appends of a 10 track add record to a {@link PlaylistJournal} by 8 threads, per {@link
+ * FsyncPolicy}. The journal lives in {@code java.io.tmpdir}, point it at the disk under test with
+ * {@code -jvmArgs -Djava.io.tmpdir=...}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalAppendBenchmark {
+
+    @Param({"NEVER", "GROUP_COMMIT", "EVERY_RECORD"})
+    private FsyncPolicy fsyncPolicy;
+
+    private Path directory;
+    private PlaylistJournal journal;
+    private JournalRecord record;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("playlist-journal");
+        journal = PlaylistJournal.builder().directory(directory).fsyncPolicy(fsyncPolicy).build();
+
+        int[] trackIds = new int[10];
+        for (int i = 0; i < trackIds.length; i++) trackIds[i] = 1_000 + i;
+        record =
+                JournalRecord.add(
+                        "ea23cd43-ekdo-30cm-54jx-vf9300000000",
+                        1,
+                        0,
+                        trackIds,
+                        LocalDate.of(2020, 1, 1));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        journal.append(record);
+    }
+}
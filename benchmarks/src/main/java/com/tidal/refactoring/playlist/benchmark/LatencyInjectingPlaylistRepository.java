@@ -0,0 +1,42 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+/** Stand-in for a remote repository, delaying every lookup by a fixed latency */
+public class LatencyInjectingPlaylistRepository implements PlaylistRepository {
+
+    private final PlaylistRepository delegate;
+    private final long latencyNanos;
+
+    public LatencyInjectingPlaylistRepository(PlaylistRepository delegate, long latencyNanos) {
+        this.delegate = delegate;
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        pause();
+        return delegate.getPlaylistByUUID(uuid);
+    }
+
+    /** One round trip for the whole bulk lookup */
+    @Override
+    public Map<String, Playlist> getPlaylistsByUUIDs(Collection<String> uuids) {
+        pause();
+        return delegate.getPlaylistsByUUIDs(uuids);
+    }
+
+    /* Parking unmounts virtual threads, like waiting on a socket would */
+    private void pause() {
+        long deadline = System.nanoTime() + latencyNanos;
+        for (long left = latencyNanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.exception.ValidationException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.metrics.Histogram;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load against a {@link PlaylistServiceImpl} over an in-memory repository with injected
+ * lookup latency, for soak runs of minutes to hours. Playlists are picked with Zipfian popularity,
+ * operations from an add / remove / read mix.
+ *
+ * <p>Every worker issues its share of {@code load.rate} on a fixed schedule and measures each
+ * operation from when it was due, not from when it started. A stall then counts against every
+ * operation it held back, so the percentiles are corrected for coordinated omission. A line per
+ * interval reports throughput, latency percentiles, heap used after the last GC and GC time, so
+ * decay and heap growth over a long run show up as a trend.
+ *
+ * <pre>
+ * java -Dload.seconds=3600 -cp target/benchmarks.jar \
+ *     com.tidal.refactoring.playlist.benchmark.LoadHarness
+ * </pre>
+ *
+ * <p>Settings, as system properties with their defaults: {@code load.seconds} (60), {@code
+ * load.interval} seconds per report line (10), {@code load.rate} operations per second (20000),
+ * {@code load.threads} (8), {@code load.playlists} (10000), {@code load.playlistSize} initial
+ * tracks (100), {@code load.zipf} exponent (1.0), {@code load.add} and {@code load.remove}
+ * percentages of the mix, the rest reads (20, 20), {@code load.batch} tracks per add or remove
+ * (5) and {@code load.latencyMicros} per repository lookup (0).
+ */
+public final class LoadHarness {
+
+    private enum Operation {
+        ADD,
+        REMOVE,
+        READ
+    }
+
+    private static final int READ_PAGE = 50;
+
+    private final PlaylistService playlistService;
+    private final ZipfSampler playlists;
+    private final List<Track> tracksToAdd;
+    private final List<Integer> indexesToRemove;
+    private final int addPercent;
+    private final int removePercent;
+    private final int playlistSize;
+
+    private final Histogram[] latencies = new Histogram[Operation.values().length];
+    private final IntervalRecorder interval = new IntervalRecorder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private LoadHarness(
+            PlaylistService playlistService,
+            ZipfSampler playlists,
+            int batchSize,
+            int addPercent,
+            int removePercent,
+            int playlistSize) {
+        this.playlistService = playlistService;
+        this.playlists = playlists;
+        this.tracksToAdd = PlaylistFixtures.tracks(playlistSize, batchSize);
+        this.indexesToRemove = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) indexesToRemove.add(i);
+        this.addPercent = addPercent;
+        this.removePercent = removePercent;
+        this.playlistSize = playlistSize;
+        Arrays.setAll(latencies, i -> new Histogram());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long seconds = Long.getLong("load.seconds", 60);
+        long intervalSeconds = Long.getLong("load.interval", 10);
+        int rate = Integer.getInteger("load.rate", 20_000);
+        int threads = Integer.getInteger("load.threads", 8);
+        int playlistCount = Integer.getInteger("load.playlists", 10_000);
+        int playlistSize = Integer.getInteger("load.playlistSize", 100);
+        double zipf = Double.parseDouble(System.getProperty("load.zipf", "1.0"));
+        int addPercent = Integer.getInteger("load.add", 20);
+        int removePercent = Integer.getInteger("load.remove", 20);
+        int batchSize = Integer.getInteger("load.batch", 5);
+        long latencyMicros = Long.getLong("load.latencyMicros", 0);
+        if (addPercent + removePercent > 100) {
+            throw new IllegalArgumentException("load.add + load.remove above 100");
+        }
+
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        String[] uuids = new String[playlistCount];
+        for (int i = 0; i < playlistCount; i++) {
+            uuids[i] = "load-" + i;
+            repository.save(PlaylistFixtures.playlist(uuids[i], playlistSize));
+        }
+        PlaylistService playlistService =
+                new PlaylistServiceImpl(
+                        new LatencyInjectingPlaylistRepository(
+                                repository, TimeUnit.MICROSECONDS.toNanos(latencyMicros)));
+        LoadHarness harness =
+                new LoadHarness(
+                        playlistService,
+                        new ZipfSampler(uuids, zipf),
+                        batchSize,
+                        addPercent,
+                        removePercent,
+                        playlistSize);
+
+        System.out.printf(
+                "%d ops/s on %d threads, %d playlists of %d, zipf %.2f,"
+                        + " mix %d/%d/%d add/remove/read, batch %d, %d us per lookup%n",
+                rate,
+                threads,
+                playlistCount,
+                playlistSize,
+                zipf,
+                addPercent,
+                removePercent,
+                100 - addPercent - removePercent,
+                batchSize,
+                latencyMicros);
+        harness.run(threads, rate, TimeUnit.SECONDS.toNanos(seconds), intervalSeconds);
+    }
+
+    private void run(int threads, int rate, long durationNanos, long intervalSeconds)
+            throws InterruptedException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(threads) / rate;
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            /* Staggered so the workers together issue at an even pace */
+            long first = start + periodNanos * i / threads;
+            Thread worker = new Thread(() -> work(first, periodNanos), "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        System.out.printf(
+                "%8s %10s %10s %10s %10s %10s %12s %8s %10s%n",
+                "secs",
+                "ops/s",
+                "p50 us",
+                "p99 us",
+                "p999 us",
+                "max us",
+                "heap MB",
+                "gcs",
+                "gc ms");
+        GcTotals gcBefore = GcTotals.now();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        long end = start + durationNanos;
+        for (long next = start + intervalNanos; ; next += intervalNanos) {
+            long now = Math.min(next, end);
+            sleepUntil(now);
+            Histogram done = interval.intervalHistogram();
+            GcTotals gc = GcTotals.now();
+            print(
+                    String.format("%8d", TimeUnit.NANOSECONDS.toSeconds(now - start)),
+                    done,
+                    now - (next - intervalNanos),
+                    gc.minus(gcBefore));
+            gcBefore = gc;
+            if (now == end) break;
+        }
+
+        running = false;
+        for (Thread worker : workers) worker.join();
+
+        System.out.println();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies[operation.ordinal()];
+            print(String.format("%8s", operation), histogram, durationNanos, null);
+        }
+        System.out.printf("rejected %d (size limit or too few tracks to remove)%n", rejected.sum());
+    }
+
+    private void work(long first, long periodNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long due = first; running; due += periodNanos) {
+            sleepUntil(due);
+            String uuid = playlists.next(random);
+            int roll = random.nextInt(100);
+            Operation operation =
+                    roll < addPercent
+                            ? Operation.ADD
+                            : roll < addPercent + removePercent ? Operation.REMOVE : Operation.READ;
+            try {
+                switch (operation) {
+                    case ADD:
+                        /* Past the end appends */
+                        playlistService.addTracks(
+                                uuid, tracksToAdd, random.nextInt(playlistSize + 1));
+                        break;
+                    case REMOVE:
+                        playlistService.removeTracks(uuid, indexesToRemove, track -> {});
+                        break;
+                    default:
+                        playlistService.getTracks(uuid, 0, READ_PAGE);
+                }
+            } catch (PlaylistException | ValidationException e) {
+                rejected.increment();
+            }
+            /* From when it was due, so time spent behind schedule is counted */
+            long latency = System.nanoTime() - due;
+            latencies[operation.ordinal()].record(latency);
+            interval.record(latency);
+        }
+    }
+
+    private static void print(String label, Histogram histogram, long nanos, GcTotals gc) {
+        long nanosPerMicro = TimeUnit.MICROSECONDS.toNanos(1);
+        String memory =
+                gc == null
+                        ? ""
+                        : String.format(
+                                " %12.1f %8d %10d", heapAfterGcMegabytes(), gc.count, gc.millis);
+        System.out.printf(
+                "%s %10.0f %10d %10d %10d %10d%s%n",
+                label,
+                histogram.getCount() * 1e9 / nanos,
+                histogram.getValueAtPercentile(50) / nanosPerMicro,
+                histogram.getValueAtPercentile(99) / nanosPerMicro,
+                histogram.getValueAtPercentile(99.9) / nanosPerMicro,
+                histogram.getMax() / nanosPerMicro,
+                memory);
+    }
+
+    /* Heap in use right after the last collection of each pool, the live set rather than garbage */
+    private static double heapAfterGcMegabytes() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) used += afterGc.getUsed();
+        }
+        return used / (1024.0 * 1024.0);
+    }
+
+    private static void sleepUntil(long deadline) {
+        for (long left = deadline - System.nanoTime();
+                left > 0;
+                left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    /** Collections and collection time of all collectors since the JVM started */
+    /*
+     * Double-buffered interval histogram, after HdrHistogram's Recorder. Writers count themselves
+     * in and out of the current phase; the reader swaps the histogram, flips the phase and waits
+     * for the writers still in the old one, so no recording is lost or lands in a histogram being
+     * printed.
+     */
+    private static final class IntervalRecorder {
+        private final AtomicLong startEpoch = new AtomicLong();
+        private final AtomicLong evenEndEpoch = new AtomicLong();
+        private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+        private volatile Histogram active = new Histogram();
+
+        void record(long value) {
+            /* Negative while the phase is odd */
+            long epoch = startEpoch.getAndIncrement();
+            try {
+                active.record(value);
+            } finally {
+                (epoch < 0 ? oddEndEpoch : evenEndEpoch).incrementAndGet();
+            }
+        }
+
+        /* Called by the reporting thread only */
+        Histogram intervalHistogram() {
+            Histogram done = active;
+            active = new Histogram();
+
+            boolean nextPhaseIsEven = startEpoch.get() < 0;
+            long initialStart = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+            (nextPhaseIsEven ? evenEndEpoch : oddEndEpoch).set(initialStart);
+            long startAtFlip = startEpoch.getAndSet(initialStart);
+            AtomicLong previousEnd = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+            while (previousEnd.get() != startAtFlip) Thread.yield();
+            return done;
+        }
+    }
+
+    private static final class GcTotals {
+        private final long count;
+        private final long millis;
+
+        private GcTotals(long count, long millis) {
+            this.count = count;
+            this.millis = millis;
+        }
+
+        private static GcTotals now() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector :
+                    ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(collector.getCollectionCount(), 0);
+                millis += Math.max(collector.getCollectionTime(), 0);
+            }
+            return new GcTotals(count, millis);
+        }
+
+        private GcTotals minus(GcTotals before) {
+            return new GcTotals(count - before.count, millis - before.millis);
+        }
+    }
+
+    /** Picks the i-th most popular of n items with probability proportional to 1 / i^exponent */
+    private static final class ZipfSampler {
+        private final String[] items;
+        private final double[] cumulative;
+
+        private ZipfSampler(String[] items, double exponent) {
+            this.items = items;
+            this.cumulative = new double[items.length];
+            double sum = 0;
+            for (int i = 0; i < items.length; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < items.length; i++) cumulative[i] /= sum;
+        }
+
+        private String next(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            /* A miss returns -(insertion point) - 1, the first bucket above the draw */
+            return items[Math.min(index < 0 ? -index - 1 : index, items.length - 1)];
+        }
+    }
+}
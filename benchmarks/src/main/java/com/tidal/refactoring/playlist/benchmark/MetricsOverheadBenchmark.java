@@ -0,0 +1,80 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+import com.tidal.refactoring.playlist.metrics.InMemoryPlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.JfrPlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link PlaylistMetrics} on {@code addTracks} of 10 tracks into a 100 track playlist.
+ * Run with {@code -prof gc} to check that recording adds no allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    private static final String UUID = "benchmark-metrics";
+    private static final int PLAYLIST_SIZE = 100;
+
+    public enum Metrics {
+        NOOP,
+        IN_MEMORY,
+        /* JFR events stay disabled unless a recording is started */
+        JFR
+    }
+
+    @Param({"NOOP", "IN_MEMORY", "JFR"})
+    private Metrics metrics;
+
+    private PlaylistServiceImpl playlistService;
+    private Playlist playlist;
+    private TrackSequence initialTracks;
+    private long initialDurationMillis;
+    private List<Track> tracksToAdd;
+
+    @Setup
+    public void setUp() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        playlist = PlaylistFixtures.playlist(UUID, PLAYLIST_SIZE);
+        repository.save(playlist);
+
+        PlaylistMetrics playlistMetrics =
+                metrics == Metrics.NOOP
+                        ? PlaylistMetrics.NOOP
+                        : metrics == Metrics.IN_MEMORY
+                                ? new InMemoryPlaylistMetrics()
+                                : new JfrPlaylistMetrics(new InMemoryPlaylistMetrics());
+        playlistService =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(repository)
+                        .metrics(playlistMetrics)
+                        .build();
+        initialTracks = playlist.getTracks();
+        initialDurationMillis = playlist.getDurationMillis();
+        tracksToAdd = PlaylistFixtures.tracks(PLAYLIST_SIZE, 10);
+    }
+
+    @Benchmark
+    public List<PlaylistTrack> addTracks() {
+        try {
+            return playlistService.addTracks(UUID, tracksToAdd, PLAYLIST_SIZE / 2);
+        } finally {
+            playlist.setTracks(initialTracks);
+            playlist.setNrOfTracks(PLAYLIST_SIZE);
+            playlist.setDurationMillis(initialDurationMillis);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Builds playlists and tracks for the benchmarks */
+public final class PlaylistFixtures {
+
+    private static final LocalDate DATE_ADDED = LocalDate.of(2020, 1, 1);
+
+    private PlaylistFixtures() {}
+
+    public static List<Track> tracks(int firstId, int count) {
+        List<Track> tracks = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            tracks.add(
+                    Track.builder()
+                            .id(id)
+                            .title("Track " + id)
+                            .duration(180.0f)
+                            .artistId(id % 1000)
+                            .build());
+        }
+        return tracks;
+    }
+
+    public static Playlist playlist(String uuid, int size) {
+        Playlist playlist =
+                Playlist.builder()
+                        .id(uuid.hashCode())
+                        .uuid(uuid)
+                        .playListName("Playlist " + uuid)
+                        .registeredDate(DATE_ADDED)
+                        .lastUpdated(DATE_ADDED)
+                        .nrOfTracks(size)
+                        .duration(size * 180.0f)
+                        .build();
+
+        Set<PlaylistTrack> playlistTracks = new HashSet<>();
+        int index = 0;
+        for (Track track : tracks(0, size)) {
+            playlistTracks.add(
+                    PlaylistTrack.builder()
+                            .id(index)
+                            .index(index++)
+                            .playlist(playlist)
+                            .dateAdded(DATE_ADDED)
+                            .trackId(track.getId())
+                            .track(track)
+                            .build());
+        }
+        playlist.setPlaylistTracks(playlistTracks);
+        return playlist;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+/** Where in the playlist a benchmarked batch of tracks is inserted or removed */
+public enum Position {
+    HEAD,
+    MIDDLE,
+    TAIL,
+    /** Insertion index -1, appending to the end of the playlist */
+    END;
+
+    /** @return the insertion index for a playlist of {@code size} tracks */
+    public int insertionIndex(int size) {
+        switch (this) {
+            case HEAD:
+                return 0;
+            case MIDDLE:
+                return size / 2;
+            case TAIL:
+                return size;
+            default:
+                return -1;
+        }
+    }
+
+    /** @return the first index of a contiguous removal of {@code count} tracks */
+    public int removalIndex(int size, int count) {
+        switch (this) {
+            case HEAD:
+                return 0;
+            case MIDDLE:
+                return (size - count) / 2;
+            default:
+                return size - count;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PlaylistService#removeTracks(String, List)} and {@link PlaylistService#removeRange(String,
+ * int, int)} against an in-memory repository. The batch is a contiguous run of indexes at the
+ * given position, capped at the playlist size.
+ *
+ * <p>Every call puts the playlist back with one snapshot swap, {@link #reset()} measures that swap
+ * alone; subtract it from the other scores.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RemoveTracksBenchmark {
+
+    private static final String UUID = "benchmark-remove";
+
+    @Param({"10", "100", "500", "1000", "5000"})
+    private int playlistSize;
+
+    /* 490: "clear all but the last 10" on a 500 track playlist */
+    @Param({"1", "10", "50", "490"})
+    private int batchSize;
+
+    @Param({"HEAD", "MIDDLE", "TAIL"})
+    private Position position;
+
+    private PlaylistService playlistService;
+    private Playlist playlist;
+    private PlaylistSnapshot initial;
+    private List<Integer> indexesToRemove;
+    private int first;
+
+    @Setup
+    public void setUp() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        playlist = PlaylistFixtures.playlist(UUID, playlistSize);
+        repository.save(playlist);
+
+        playlistService = new PlaylistServiceImpl(repository);
+        initial = playlist.getSnapshot();
+
+        int count = Math.min(batchSize, playlistSize);
+        first = position.removalIndex(playlistSize, count);
+        indexesToRemove = new ArrayList<>(count);
+        for (int index = first; index < first + count; index++) indexesToRemove.add(index);
+    }
+
+    @Benchmark
+    public List<PlaylistTrack> removeTracks() {
+        List<PlaylistTrack> remaining = playlistService.removeTracks(UUID, indexesToRemove);
+        reset();
+        return remaining;
+    }
+
+    @Benchmark
+    public List<PlaylistTrack> removeRange() {
+        List<PlaylistTrack> remaining =
+                playlistService.removeRange(UUID, first, first + indexesToRemove.size());
+        reset();
+        return remaining;
+    }
+
+    /* Republishing the immutable initial snapshot is O(1), it keeps every call at playlistSize */
+    @Benchmark
+    public boolean reset() {
+        return playlist.compareAndSetSnapshot(playlist.getSnapshot(), initial);
+    }
+}
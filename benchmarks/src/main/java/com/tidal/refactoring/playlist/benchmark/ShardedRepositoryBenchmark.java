@@ -0,0 +1,75 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.repository.ShardedPlaylistRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShardedPlaylistRepository} with 1 to 16 shards under a 90% lookup / 10% save mix, and
+ * bulk lookups of 256 uuids fanned out over the shards. Run with increasing {@code -t} to see how
+ * throughput scales with cores for each shard count, e.g. {@code java -jar target/benchmarks.jar
+ * ShardedRepository -t 1} then {@code -t 2}, {@code -t 4}, {@code -t 8}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedRepositoryBenchmark {
+
+    private static final int PLAYLISTS = 20_000;
+    private static final int PLAYLIST_SIZE = 10;
+    private static final int BULK_SIZE = 256;
+
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    private ShardedPlaylistRepository repository;
+    private String[] uuids;
+    private Playlist[] playlists;
+
+    @Setup
+    public void setUp() {
+        repository = ShardedPlaylistRepository.builder().shards(shards).build();
+        uuids = new String[PLAYLISTS];
+        playlists = new Playlist[PLAYLISTS];
+        List<Playlist> all = new ArrayList<>(PLAYLISTS);
+        for (int i = 0; i < PLAYLISTS; i++) {
+            uuids[i] = "benchmark-sharded-" + i;
+            playlists[i] = PlaylistFixtures.playlist(uuids[i], PLAYLIST_SIZE);
+            all.add(playlists[i]);
+        }
+        repository.saveAll(all);
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Benchmark
+    public Object lookupOrSave() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(PLAYLISTS);
+        if (random.nextInt(10) == 0) {
+            repository.save(playlists[i]);
+            return playlists[i];
+        }
+        return repository.getPlaylistByUUID(uuids[i]);
+    }
+
+    @Benchmark
+    public Map<String, Playlist> bulkLookup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> batch = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) batch.add(uuids[random.nextInt(PLAYLISTS)]);
+        return repository.getPlaylistsByUUIDs(batch);
+    }
+}
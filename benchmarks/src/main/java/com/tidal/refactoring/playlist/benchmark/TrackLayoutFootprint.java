@@ -0,0 +1,84 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackLayout;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap of 1M playlist tracks per {@link TrackLayout}, measured by walking the object
+ * graph. The {@link Track}s are shared by both layouts and left out of the numbers. A second run
+ * compares one {@link Track} copy per playlist track with copies interned by a {@link
+ * TrackCatalog}.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.tidal.refactoring.playlist.benchmark.TrackLayoutFootprint
+ * </pre>
+ */
+public final class TrackLayoutFootprint {
+
+    private static final int TRACKS = 1_000_000;
+    private static final int PLAYLIST_SIZE = 500;
+    private static final int DISTINCT_TRACKS = 50_000;
+
+    private TrackLayoutFootprint() {}
+
+    public static void main(String[] args) {
+        List<Track> catalog = PlaylistFixtures.tracks(0, DISTINCT_TRACKS);
+        GraphLayout catalogLayout = GraphLayout.parseInstance(catalog.toArray());
+
+        System.out.printf("%-8s %14s %16s%n", "layout", "bytes", "bytes per track");
+        for (TrackLayout layout : TrackLayout.values()) {
+            TrackSequence[] playlists = playlists(layout, catalog);
+            long bytes =
+                    GraphLayout.parseInstance((Object[]) playlists)
+                            .subtract(catalogLayout)
+                            .totalSize();
+            System.out.printf("%-8s %14d %16.1f%n", layout, bytes, (double) bytes / TRACKS);
+        }
+
+        System.out.printf("%n%-8s %14s %16s%n", "tracks", "bytes", "bytes per track");
+        TrackCatalog trackCatalog = new TrackCatalog();
+        for (boolean interned : new boolean[] {false, true}) {
+            List<Track> copies = new ArrayList<>(TRACKS);
+            for (int i = 0; i < TRACKS; i++) {
+                Track copy = PlaylistFixtures.tracks(i % DISTINCT_TRACKS, 1).get(0);
+                copies.add(interned ? trackCatalog.intern(copy) : copy);
+            }
+            long bytes = GraphLayout.parseInstance(copies.toArray()).totalSize();
+            System.out.printf(
+                    "%-8s %14d %16.1f%n",
+                    interned ? "interned" : "copies",
+                    bytes,
+                    (double) bytes / TRACKS);
+        }
+    }
+
+    private static TrackSequence[] playlists(TrackLayout layout, List<Track> catalog) {
+        TrackSequence[] playlists = new TrackSequence[TRACKS / PLAYLIST_SIZE];
+        LocalDate dateAdded = LocalDate.of(2020, 1, 1);
+        int next = 0;
+        for (int p = 0; p < playlists.length; p++) {
+            List<PlaylistTrack> tracks = new ArrayList<>(PLAYLIST_SIZE);
+            for (int i = 0; i < PLAYLIST_SIZE; i++, next++) {
+                Track track = catalog.get(next % catalog.size());
+                tracks.add(
+                        PlaylistTrack.builder()
+                                .id(next)
+                                .index(i)
+                                .dateAdded(dateAdded.plusDays(next % 1000))
+                                .trackId(track.getId())
+                                .track(track)
+                                .build());
+            }
+            playlists[p] = layout.of(tracks);
+        }
+        return playlists;
+    }
+}
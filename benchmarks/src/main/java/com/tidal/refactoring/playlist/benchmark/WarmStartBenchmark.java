@@ -0,0 +1,65 @@
+package com.tidal.refactoring.playlist.benchmark;
+
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import com.tidal.refactoring.playlist.snapshot.LoadStats;
+import com.tidal.refactoring.playlist.snapshot.SnapshotLoader;
+import com.tidal.refactoring.playlist.snapshot.SnapshotWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a snapshot of 20,000 playlists of 50 tracks into an empty {@link
+ * InMemoryPlaylistRepository}, per number of loader threads. The snapshot is read from the page
+ * cache, so this is the decoding and store cost, not the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WarmStartBenchmark {
+
+    private static final int PLAYLISTS = 20_000;
+    private static final int PLAYLIST_SIZE = 50;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Path file;
+    private SnapshotLoader loader;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("playlists", ".snapshot");
+        try (SnapshotWriter writer = SnapshotWriter.builder().file(file).build()) {
+            for (int i = 0; i < PLAYLISTS; i++) {
+                writer.write(PlaylistFixtures.playlist("benchmark-warm-start-" + i, PLAYLIST_SIZE));
+            }
+        }
+        loader =
+                SnapshotLoader.builder()
+                        .file(file)
+                        .parallelism(parallelism)
+                        .trackCatalog(new TrackCatalog())
+                        .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public InMemoryPlaylistRepository load() throws IOException {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        LoadStats stats = loader.load(repository::save);
+        if (stats.getPlaylistCount() != PLAYLISTS) throw new IllegalStateException("Short load");
+        return repository;
+    }
+}
@@ -0,0 +1,50 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.AsyncPlaylistService;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncPlaylistService} running a blocking {@link PlaylistService} on the given executor,
+ * see {@code PlaylistExecutors} for virtual thread and bounded pool executors. A saturated
+ * executor fails the returned future with a {@link RejectedExecutionException}.
+ */
+public class AsyncPlaylistServiceImpl implements AsyncPlaylistService {
+
+    private final PlaylistService playlistService;
+
+    private final Executor executor;
+
+    public AsyncPlaylistServiceImpl(PlaylistService playlistService, Executor executor) {
+        this.playlistService = playlistService;
+        this.executor = executor;
+    }
+
+    /** @see AsyncPlaylistService#addTracks(String, List, int) */
+    public CompletableFuture<List<PlaylistTrack>> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex) {
+        return submit(() -> playlistService.addTracks(uuid, tracksToAdd, insertionIndex));
+    }
+
+    /** @see AsyncPlaylistService#removeTracks(String, List) */
+    public CompletableFuture<List<PlaylistTrack>> removeTracks(String uuid, List<Integer> indexes) {
+        return submit(() -> playlistService.removeTracks(uuid, indexes));
+    }
+
+    private CompletableFuture<List<PlaylistTrack>> submit(Supplier<List<PlaylistTrack>> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<List<PlaylistTrack>> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistOperation;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.history.PlaylistHistory;
+import com.tidal.refactoring.playlist.interfaces.AsyncPlaylistService;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import com.tidal.refactoring.playlist.journal.PlaylistJournal;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Failure;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Operation;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * {@link AsyncPlaylistService} funnelling the edits of one playlist through a single-writer
+ * mailbox. Whatever queued up while the writer was busy is applied in one go: one lookup, the
+ * edits chained on one snapshot, one publish and one write-back, after which every caller's future
+ * completes with its own result or failure.
+ *
+ * <p>Under bursts of small edits to a hot playlist this turns N publishes and write-backs into one
+ * and takes the writers off the snapshot compare-and-set. Edits of one playlist are applied in the
+ * order they were queued, different playlists drain in parallel on the executor.
+ */
+public class CoalescingPlaylistService implements AsyncPlaylistService {
+    private static final int MAX_COALESCED_EDITS = 64;
+
+    private final PlaylistRepository playlistRepository;
+
+    private final PlaylistServiceImpl playlistService;
+
+    private final Executor executor;
+
+    private final Consumer<Playlist> writeBack;
+
+    private final PlaylistMetrics metrics;
+
+    private final PlaylistChangeListener listener;
+
+    private final PlaylistHistory history;
+
+    /* One per playlist with edits queued or draining, retired once drained */
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public CoalescingPlaylistService(PlaylistRepository playlistRepository, Executor executor) {
+        this(playlistRepository, executor, null, null, null, null, null, null);
+    }
+
+    /**
+     * The catalog, metrics, listener, history and journal are handed to the {@link
+     * PlaylistServiceImpl} applying the edits, see {@link PlaylistServiceImpl#builder()}. The
+     * listener is told once the batch of an edit is written back, the history records every
+     * published batch as one undo step; share it with the {@link PlaylistServiceImpl} serving undo
+     * and redo. The journal gets one record per edit of a published batch, with the version the
+     * edit has within the batch, before the write-back; a failing append fails the batch like a
+     * failing write-back.
+     *
+     * @param executor runs the drains of the mailboxes
+     * @param writeBack called once per coalesced batch with the published playlist, e.g. to save
+     *     it, nothing if not set. A failing write-back fails the futures of the batch, its edits
+     *     stay applied in memory
+     * @param metrics also receives coalesced batch sizes and queue depths
+     */
+    @Builder
+    public CoalescingPlaylistService(
+            PlaylistRepository playlistRepository,
+            Executor executor,
+            Consumer<Playlist> writeBack,
+            TrackCatalog trackCatalog,
+            PlaylistMetrics metrics,
+            PlaylistChangeListener listener,
+            PlaylistHistory history,
+            PlaylistJournal journal) {
+        this.playlistRepository = playlistRepository;
+        this.metrics = metrics != null ? metrics : PlaylistMetrics.NOOP;
+        this.listener = listener != null ? listener : PlaylistChangeListener.NONE;
+        this.history = history != null ? history : PlaylistHistory.NONE;
+        this.playlistService =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .trackCatalog(trackCatalog)
+                        .metrics(this.metrics)
+                        .listener(this.listener)
+                        .history(this.history)
+                        .journal(journal)
+                        .build();
+        this.executor = executor;
+        this.writeBack = writeBack != null ? writeBack : playlist -> {};
+    }
+
+    /** @see AsyncPlaylistService#addTracks(String, List, int) */
+    public CompletableFuture<List<PlaylistTrack>> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex) {
+        try {
+            playlistService.validateAddTracks(uuid, tracksToAdd);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return enqueue(new Edit(PlaylistOperation.addTracks(uuid, tracksToAdd, insertionIndex)));
+    }
+
+    /** @see AsyncPlaylistService#removeTracks(String, List) */
+    public CompletableFuture<List<PlaylistTrack>> removeTracks(String uuid, List<Integer> indexes) {
+        try {
+            playlistService.validateRemoveTracks(uuid, indexes);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return enqueue(new Edit(PlaylistOperation.removeTracks(uuid, indexes)));
+    }
+
+    private CompletableFuture<List<PlaylistTrack>> enqueue(Edit edit) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(edit.operation.getUuid(), Mailbox::new);
+            /* A retired mailbox is never drained again, queue to its successor instead */
+            synchronized (mailbox) {
+                if (mailbox.retired) continue;
+                mailbox.queue.add(edit);
+            }
+            metrics.recordQueueDepth(mailbox.depth.incrementAndGet());
+            schedule(mailbox);
+            return edit.future;
+        }
+    }
+
+    /* At most one drain per mailbox is scheduled or running, that one is its single writer */
+    private void schedule(Mailbox mailbox) {
+        if (!mailbox.scheduled.compareAndSet(false, true)) return;
+
+        try {
+            executor.execute(() -> drain(mailbox));
+        } catch (RejectedExecutionException e) {
+            /* Nothing will drain what is queued, fail it rather than leave the futures hanging */
+            for (Edit edit; (edit = mailbox.poll()) != null; ) edit.future.completeExceptionally(e);
+            mailbox.scheduled.set(false);
+            retire(mailbox);
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        List<Edit> batch = new ArrayList<>();
+        for (Edit edit; batch.size() < MAX_COALESCED_EDITS && (edit = mailbox.poll()) != null; ) {
+            batch.add(edit);
+        }
+        try {
+            if (!batch.isEmpty()) apply(mailbox.uuid, batch);
+        } catch (RuntimeException | Error e) {
+            /* E.g. a failing listener or history, no caller is left waiting. Completed futures
+             * keep their outcome */
+            for (Edit edit : batch) edit.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            /* Edits queued after the last poll saw the drain still scheduled, so re-check after
+             * clearing the flag. A hot playlist is re-submitted instead of looped on, so others
+             * get their turn on the executor */
+            mailbox.scheduled.set(false);
+            if (!mailbox.queue.isEmpty()) schedule(mailbox);
+            else retire(mailbox);
+        }
+    }
+
+    /*
+     * Drops a drained mailbox, unless an edit was queued or a drain scheduled meanwhile. Holding
+     * the scheduled flag keeps it from ever draining again, producers queue to a new one
+     */
+    private void retire(Mailbox mailbox) {
+        synchronized (mailbox) {
+            if (!mailbox.queue.isEmpty() || !mailbox.scheduled.compareAndSet(false, true)) return;
+            mailbox.retired = true;
+            mailboxes.remove(mailbox.uuid, mailbox);
+        }
+    }
+
+    /** @return number of playlists with edits queued or draining */
+    int mailboxCount() {
+        return mailboxes.size();
+    }
+
+    private void apply(String uuid, List<Edit> batch) {
+        Playlist playList;
+        try {
+            playList = playlistRepository.getPlaylistByUUID(uuid).orElse(null);
+        } catch (RuntimeException e) {
+            for (Edit edit : batch) edit.future.completeExceptionally(e);
+            return;
+        }
+        metrics.recordLookup(playList != null);
+        if (playList == null) {
+            for (Edit edit : batch) {
+                metrics.recordFailure(edit.metricsOperation(), Failure.PLAYLIST_NOT_FOUND);
+                edit.future.completeExceptionally(new PlaylistException("Playlist not found"));
+            }
+            return;
+        }
+
+        /* Edits from outside the mailbox still publish with compare-and-set, losing to one of
+         * them rebuilds the whole batch on top of it */
+        PlaylistSnapshot current;
+        PlaylistSnapshot next;
+        do {
+            current = playList.getSnapshot();
+            next = current;
+            for (Edit edit : batch) next = edit.apply(playList, next);
+        } while (next != current && !playList.compareAndSetSnapshot(current, next));
+        if (next != current) history.recordEdit(uuid, current, next);
+        metrics.recordCoalescedBatch(batch.size());
+
+        if (next != current) {
+            try {
+                for (Edit edit : batch) {
+                    if (edit.failure == null) edit.journal(uuid);
+                }
+                writeBack.accept(playList);
+            } catch (RuntimeException e) {
+                for (Edit edit : batch) edit.future.completeExceptionally(e);
+                return;
+            }
+        }
+
+        for (Edit edit : batch) {
+            if (edit.failure == null) edit.report(playList);
+            edit.complete();
+            if (edit.failure == null) {
+                metrics.recordBatchSize(edit.metricsOperation(), edit.size());
+                metrics.recordPlaylistSize(edit.metricsOperation(), next.getNrOfTracks());
+            }
+        }
+    }
+
+    private static CompletableFuture<List<PlaylistTrack>> failed(Throwable e) {
+        CompletableFuture<List<PlaylistTrack>> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /** Queued edits of one playlist */
+    private static class Mailbox {
+        private final String uuid;
+        private final Queue<Edit> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /* Guarded by the mailbox */
+        private boolean retired;
+
+        private Mailbox(String uuid) {
+            this.uuid = uuid;
+        }
+
+        private Edit poll() {
+            Edit edit = queue.poll();
+            if (edit != null) depth.decrementAndGet();
+            return edit;
+        }
+    }
+
+    /** One queued edit, its outcome is kept until the batch is published */
+    private class Edit {
+        private final PlaylistOperation operation;
+        private final CompletableFuture<List<PlaylistTrack>> future = new CompletableFuture<>();
+
+        private List<PlaylistTrack> added;
+        private PlaylistSnapshot result;
+        private PlaylistSnapshot beforeRemoval;
+        private BitSet removedPositions;
+        private PlaylistSnapshot afterRemoval;
+        private RuntimeException failure;
+
+        private Edit(PlaylistOperation operation) {
+            this.operation = operation;
+        }
+
+        /* Chains this edit on {@code current}, a failing edit leaves it unchanged */
+        private PlaylistSnapshot apply(Playlist playList, PlaylistSnapshot current) {
+            added = null;
+            result = current;
+            beforeRemoval = current;
+            removedPositions = new BitSet();
+            afterRemoval = null;
+            failure = null;
+            try {
+                if (operation.getType() == PlaylistOperation.Type.ADD) {
+                    added = new ArrayList<>(operation.getTracks().size());
+                    result =
+                            playlistService.addTracks(
+                                    playList,
+                                    current,
+                                    operation.getTracks(),
+                                    operation.getInsertionIndex(),
+                                    false,
+                                    added);
+                    return result;
+                }
+                afterRemoval =
+                        playlistService.removeTracks(
+                                current, operation.getIndexes(), removedPositions);
+                result = afterRemoval;
+                return result;
+            } catch (RuntimeException e) {
+                failure = e;
+                return current;
+            }
+        }
+
+        /* Versions of the edits of a batch follow each other, only the last one is published */
+        private void report(Playlist playList) {
+            if (added != null) {
+                playlistService.reportAdded(playList, result.getVersion(), added);
+            } else if (listener != PlaylistChangeListener.NONE) {
+                playlistService.reportRemoved(
+                        playList,
+                        result.getVersion(),
+                        playlistService.tracksAt(beforeRemoval, removedPositions));
+            }
+        }
+
+        /* Every edit that did not fail published a version of its own within the batch */
+        private void journal(String uuid) {
+            if (added != null) playlistService.journalAdded(uuid, result.getVersion(), added);
+            else playlistService.journalRemoved(uuid, result.getVersion(), removedPositions);
+        }
+
+        private void complete() {
+            if (failure != null) future.completeExceptionally(failure);
+            else if (added != null) future.complete(added);
+            /* Same as removeTracks, the tracks left right after this edit */
+            else future.complete(afterRemoval.getTracks().toList());
+        }
+
+        private Operation metricsOperation() {
+            return operation.getType() == PlaylistOperation.Type.ADD
+                    ? Operation.ADD_TRACKS
+                    : Operation.REMOVE_TRACKS;
+        }
+
+        private int size() {
+            return operation.getType() == PlaylistOperation.Type.ADD
+                    ? operation.getTracks().size()
+                    : operation.getIndexes().size();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistOperation;
+import com.tidal.refactoring.playlist.data.PlaylistOperationResult;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.history.PlaylistHistory;
+import com.tidal.refactoring.playlist.interfaces.PlaylistBatchService;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import com.tidal.refactoring.playlist.journal.PlaylistJournal;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import lombok.Builder;
+
+import java.util.*;
+
+public class PlaylistBatchServiceImpl implements PlaylistBatchService {
+    private static final int DEFAULT_LOOKUP_BATCH_SIZE = 100;
+
+    private final PlaylistRepository playlistRepository;
+
+    private final PlaylistServiceImpl playlistService;
+
+    private final int lookupBatchSize;
+
+    public PlaylistBatchServiceImpl(PlaylistRepository playlistRepository) {
+        this(playlistRepository, 0, null, null, null, null, null);
+    }
+
+    /**
+     * The catalog, metrics, listener, history and journal are handed to the {@link
+     * PlaylistServiceImpl} applying the operations, see {@link PlaylistServiceImpl#builder()}.
+     *
+     * @param lookupBatchSize most uuids passed to one bulk repository lookup, 100 if not set
+     */
+    @Builder
+    public PlaylistBatchServiceImpl(
+            PlaylistRepository playlistRepository,
+            int lookupBatchSize,
+            TrackCatalog trackCatalog,
+            PlaylistMetrics metrics,
+            PlaylistChangeListener listener,
+            PlaylistHistory history,
+            PlaylistJournal journal) {
+        if (lookupBatchSize < 0) throw new IllegalArgumentException("lookupBatchSize < 0");
+
+        this.playlistRepository = playlistRepository;
+        this.playlistService =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .trackCatalog(trackCatalog)
+                        .metrics(metrics)
+                        .listener(listener)
+                        .history(history)
+                        .journal(journal)
+                        .build();
+        this.lookupBatchSize = lookupBatchSize > 0 ? lookupBatchSize : DEFAULT_LOOKUP_BATCH_SIZE;
+    }
+
+    /** @see PlaylistBatchService#apply(List) */
+    public List<PlaylistOperationResult> apply(List<PlaylistOperation> operations) {
+        /* Validations, invalid operations fail on their own without a lookup */
+        Map<PlaylistOperation, RuntimeException> invalid = new IdentityHashMap<>();
+        Set<String> uuids = new LinkedHashSet<>();
+        for (PlaylistOperation operation : operations) {
+            try {
+                validate(operation);
+                uuids.add(operation.getUuid());
+            } catch (RuntimeException e) {
+                invalid.put(operation, e);
+            }
+        }
+
+        /* N single lookups collapse into N / lookupBatchSize bulk lookups */
+        Map<String, Playlist> playlists = new HashMap<>();
+        Map<String, RuntimeException> lookupFailures = new HashMap<>();
+        List<String> batch = new ArrayList<>(lookupBatchSize);
+        for (Iterator<String> iterator = uuids.iterator(); iterator.hasNext(); ) {
+            batch.add(iterator.next());
+            if (batch.size() == lookupBatchSize || !iterator.hasNext()) {
+                lookUp(batch, playlists, lookupFailures);
+                batch.clear();
+            }
+        }
+
+        List<PlaylistOperationResult> results = new ArrayList<>(operations.size());
+        for (PlaylistOperation operation : operations) {
+            RuntimeException error = invalid.get(operation);
+            if (error == null) error = lookupFailures.get(operation.getUuid());
+
+            results.add(
+                    error != null
+                            ? PlaylistOperationResult.failure(operation, error)
+                            : apply(operation, playlists.get(operation.getUuid())));
+        }
+        return results;
+    }
+
+    private PlaylistOperationResult apply(PlaylistOperation operation, Playlist playlist) {
+        try {
+            if (playlist == null) throw new PlaylistException("Playlist not found");
+
+            List<PlaylistTrack> tracks =
+                    operation.getType() == PlaylistOperation.Type.ADD
+                            ? playlistService.addTracks(
+                                    playlist, operation.getTracks(), operation.getInsertionIndex())
+                            : playlistService.removeTracks(playlist, operation.getIndexes());
+            return PlaylistOperationResult.success(operation, tracks);
+        } catch (RuntimeException e) {
+            return PlaylistOperationResult.failure(operation, e);
+        }
+    }
+
+    private void validate(PlaylistOperation operation) {
+        if (operation.getType() == PlaylistOperation.Type.ADD) {
+            playlistService.validateAddTracks(operation.getUuid(), operation.getTracks());
+        } else {
+            playlistService.validateRemoveTracks(operation.getUuid(), operation.getIndexes());
+        }
+    }
+
+    /* A failing bulk lookup only fails the operations on the playlists of that batch */
+    private void lookUp(
+            List<String> batch,
+            Map<String, Playlist> playlists,
+            Map<String, RuntimeException> lookupFailures) {
+        try {
+            playlists.putAll(playlistRepository.getPlaylistsByUUIDs(batch));
+        } catch (RuntimeException e) {
+            batch.forEach(uuid -> lookupFailures.put(uuid, e));
+        }
+    }
+}
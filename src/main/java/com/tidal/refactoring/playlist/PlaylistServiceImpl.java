@@ -1,18 +1,37 @@
 package com.tidal.refactoring.playlist;
 
 import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistChange;
+import com.tidal.refactoring.playlist.data.PlaylistDiff;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
 import com.tidal.refactoring.playlist.data.PlaylistTrack;
 import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackIdIndex;
+import com.tidal.refactoring.playlist.data.TrackSequence;
 import com.tidal.refactoring.playlist.exception.PlaylistException;
 import com.tidal.refactoring.playlist.exception.ValidationException;
+import com.tidal.refactoring.playlist.history.PlaylistHistory;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
 import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
 import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.journal.JournalRecord;
+import com.tidal.refactoring.playlist.journal.PlaylistJournal;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Failure;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Operation;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Phase;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import lombok.Builder;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public class PlaylistServiceImpl implements PlaylistService {
     private static final Integer PLAYLIST_MAX_SIZE = 500;
@@ -21,149 +40,861 @@ public class PlaylistServiceImpl implements PlaylistService {
 
     private BusinessUtils businessUtils;
 
+    private TrackCatalog trackCatalog;
+
+    private PlaylistMetrics metrics;
+
+    private PlaylistChangeListener listener;
+
+    private PlaylistHistory history;
+
+    private PlaylistJournal journal;
+
     public PlaylistServiceImpl(PlaylistRepository playlistRepository) {
+        this(playlistRepository, null, null, null, null, null);
+    }
+
+    /**
+     * @param trackCatalog shares added tracks across playlists, {@link TrackCatalog#shared()} if
+     *     not set
+     * @param metrics receives phase latencies, failures and sizes of every edit, none if not set
+     * @param listener told about the tracks of every published edit, none if not set
+     * @param history keeps the versions undo, redo and getVersion read, none if not set
+     * @param journal every published edit is appended to before it returns, with the version it
+     *     published, none if not set. When the append fails the edit stays applied in memory, an
+     *     {@link UncheckedIOException} reports that it is not durable
+     */
+    @Builder
+    public PlaylistServiceImpl(
+            PlaylistRepository playlistRepository,
+            TrackCatalog trackCatalog,
+            PlaylistMetrics metrics,
+            PlaylistChangeListener listener,
+            PlaylistHistory history,
+            PlaylistJournal journal) {
         this.playlistRepository = playlistRepository;
         this.businessUtils = new BusinessUtils();
+        this.trackCatalog = trackCatalog != null ? trackCatalog : TrackCatalog.shared();
+        this.metrics = metrics != null ? metrics : PlaylistMetrics.NOOP;
+        this.listener = listener != null ? listener : PlaylistChangeListener.NONE;
+        this.history = history != null ? history : PlaylistHistory.NONE;
+        this.journal = journal;
     }
 
     /** @see PlaylistService#addTracks(String, List, int) */
     public List<PlaylistTrack> addTracks(String uuid, List<Track> tracksToAdd, int insertionIndex)
             throws PlaylistException {
+        return addTracks(uuid, tracksToAdd, insertionIndex, false);
+    }
 
-        /* Validations */
-        if (StringUtils.isBlank(uuid))
-            throw new ValidationException("uuid must not be null or empty");
+    /** @see PlaylistService#addTracks(String, List, int, boolean) */
+    public List<PlaylistTrack> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex, boolean skipDuplicates)
+            throws PlaylistException {
+        long start = System.nanoTime();
+        validateAddTracks(uuid, tracksToAdd);
+        long validated = lap(Operation.ADD_TRACKS, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.ADD_TRACKS);
+        long found = lap(Operation.ADD_TRACKS, Phase.LOOKUP, validated);
+
+        List<PlaylistTrack> added =
+                addTracks(playList, tracksToAdd, insertionIndex, skipDuplicates);
+        lap(Operation.ADD_TRACKS, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.ADD_TRACKS, tracksToAdd.size());
+        metrics.recordPlaylistSize(Operation.ADD_TRACKS, playList.getNrOfTracks());
+        return added;
+    }
 
-        if (CollectionUtils.isEmpty(tracksToAdd))
-            throw new ValidationException("tracksToAdd must not be null or empty");
+    /** Adds tracks to an already loaded playlist, see {@link #addTracks(String, List, int)} */
+    List<PlaylistTrack> addTracks(Playlist playList, List<Track> tracksToAdd, int insertionIndex) {
+        return addTracks(playList, tracksToAdd, insertionIndex, false);
+    }
 
-        Playlist playList =
-                playlistRepository
-                        .getPlaylistByUUID(uuid)
-                        .orElseThrow(() -> new PlaylistException("Playlist not found"));
+    private List<PlaylistTrack> addTracks(
+            Playlist playList,
+            List<Track> tracksToAdd,
+            int insertionIndex,
+            boolean skipDuplicates) {
+        /* Optimistic edit: the new state is built off to the side and published only if no
+         * other edit was published meanwhile, otherwise it is rebuilt against the newer state */
+        while (true) {
+            PlaylistSnapshot current = playList.getSnapshot();
+            List<PlaylistTrack> addedTracks = new ArrayList<>(tracksToAdd.size());
+            PlaylistSnapshot next =
+                    addTracks(
+                            playList,
+                            current,
+                            tracksToAdd,
+                            insertionIndex,
+                            skipDuplicates,
+                            addedTracks);
+            if (playList.compareAndSetSnapshot(current, next)) {
+                if (next == current) return addedTracks;
+                history.recordEdit(playList.getUuid(), current, next);
+                reportAdded(playList, next.getVersion(), addedTracks);
+                journalAdded(playList.getUuid(), next.getVersion(), addedTracks);
+                return addedTracks;
+            }
+        }
+    }
+
+    /**
+     * Builds the state after adding tracks to {@code current} without publishing it, so several
+     * edits can be chained before one publish
+     *
+     * @param skipDuplicates leave out tracks already in the playlist or earlier in the list, the
+     *     state stays {@code current} when all of them are left out
+     * @param addedTracks receives the added tracks
+     */
+    PlaylistSnapshot addTracks(
+            Playlist playList,
+            PlaylistSnapshot current,
+            List<Track> tracksToAdd,
+            int insertionIndex,
+            boolean skipDuplicates,
+            List<PlaylistTrack> addedTracks) {
+        /* Only an index already in use is maintained, unless it is needed for the duplicates */
+        TrackIdIndex trackIds =
+                skipDuplicates ? current.getTrackIds() : current.getTrackIdsIfBuilt();
+        List<Track> toAdd = tracksToAdd;
+        if (skipDuplicates) {
+            /* O(W), one index lookup per track */
+            toAdd = new ArrayList<>(tracksToAdd.size());
+            TrackIdIndex seen = trackIds;
+            for (Track track : tracksToAdd) {
+                if (seen.contains(track.getId())) continue;
+                seen = seen.add(track.getId());
+                toAdd.add(track);
+            }
+            if (toAdd.isEmpty()) return current;
+        }
 
         /* We do not allow more than MAX_TRACKS in playlists */
-        if (playList.getNrOfTracks() + tracksToAdd.size() > PLAYLIST_MAX_SIZE) {
-            throw new PlaylistException(
+        if (current.getNrOfTracks() + toAdd.size() > PLAYLIST_MAX_SIZE) {
+            throw failure(
+                    Operation.ADD_TRACKS,
+                    Failure.PLAYLIST_FULL,
                     "Playlist cannot have more than " + PLAYLIST_MAX_SIZE + " tracks");
         }
 
         /* The index is higher than size, put it in the end of the list */
-        int size = playList.getNrOfTracks();
-        if (insertionIndex > size || insertionIndex == -1) {
-            insertionIndex = size;
+        int size = current.getNrOfTracks();
+        int index = insertionIndex;
+        if (index > size || index == -1) {
+            index = size;
         }
 
-        if (!isValidIndex(insertionIndex, playList.getNrOfTracks())) {
-            throw new PlaylistException("insertionIndex " + insertionIndex + "is out of bounds");
+        if (!isValidIndex(index, size)) {
+            throw failure(
+                    Operation.ADD_TRACKS,
+                    Failure.INDEX_OUT_OF_BOUNDS,
+                    "insertionIndex " + index + "is out of bounds");
         }
 
-        /* Sorted list of tracks */
-        List<PlaylistTrack> original =
-                new ArrayList<>(SetUtils.emptyIfNull(playList.getPlaylistTracks()));
-        Collections.sort(original);
-
-        /* Add tracks to the playlist tracks based on index */
-        List<PlaylistTrack> addedTracks = new ArrayList<>(tracksToAdd.size());
-        for (Track track : tracksToAdd) {
+        /* Add tracks to the playlist tracks based on index, in one insertion. O(W + log(N)) for
+         * the tree, one O(N + W) copy for the compact layout */
+        List<PlaylistTrack> inserted = new ArrayList<>(toAdd.size());
+        long addedMillis = 0;
+        for (Track trackToAdd : toAdd) {
             PlaylistTrack playlistTrack =
-                    PlaylistTrack.builder()
-                            .track(track)
-                            .playlist(playList)
-                            .dateAdded(
-                                    businessUtils
-                                            .currentDate()) // code uses utility to get date for
-                                                            // better testing purposes
-                            .trackId(track.getId())
-                            .build();
-
-            playList.setDuration(addTrackDurationToPlaylist(playList, track));
-            original.add(insertionIndex, playlistTrack);
-            addedTracks.add(playlistTrack);
-            insertionIndex++;
+                    playlistTrack(playList, trackToAdd, index + inserted.size());
+            addedMillis += playlistTrack.getTrack().getDurationMillis();
+            if (trackIds != null) trackIds = trackIds.add(playlistTrack.getTrackId());
+            inserted.add(playlistTrack);
         }
+        TrackSequence tracks = current.getTracks().insertAll(index, inserted);
+        addedTracks.addAll(inserted);
 
-        /* Reassign indices to the tracks in playlist */
-        int indexInPlaylist = 0;
-        for (PlaylistTrack track : original) {
-            track.setIndex(indexInPlaylist++);
-        }
+        /* No re-indexing needed, the sequence derives positions of the shifted tracks.
+         * Duration changes once per edit, by the exact sum of the added tracks */
+        long duration = current.getDurationMillis() + addedMillis;
+        return current.next(tracks, tracks.size(), duration, trackIds);
+    }
 
-        /* Setting new HashSet instead of set#clear(), clear() is slower */
-        playList.setPlaylistTracks(new HashSet<>(original));
-        playList.setNrOfTracks(original.size());
-        return addedTracks;
+    private PlaylistTrack playlistTrack(Playlist playList, Track trackToAdd, int index) {
+        /* One shared instance per track id instead of the caller's copy */
+        Track track = trackCatalog.intern(trackToAdd);
+        return PlaylistTrack.builder()
+                .track(track)
+                .playlist(playList)
+                .index(index)
+                .dateAdded(businessUtils.currentDate()) // code uses utility to get date
+                                                        // for better testing purposes
+                .trackId(track.getId())
+                .build();
     }
 
     /** @see PlaylistService#removeTracks(String, List) */
     public List<PlaylistTrack> removeTracks(String uuid, List<Integer> indexes)
             throws PlaylistException {
+        long start = System.nanoTime();
+        validateRemoveTracks(uuid, indexes);
+        long validated = lap(Operation.REMOVE_TRACKS, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.REMOVE_TRACKS);
+        long found = lap(Operation.REMOVE_TRACKS, Phase.LOOKUP, validated);
+
+        List<PlaylistTrack> remaining = removeTracks(playList, indexes);
+        lap(Operation.REMOVE_TRACKS, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.REMOVE_TRACKS, indexes.size());
+        metrics.recordPlaylistSize(Operation.REMOVE_TRACKS, remaining.size());
+        return remaining;
+    }
+
+    /** Removes tracks from an already loaded playlist, see {@link #removeTracks(String, List)} */
+    List<PlaylistTrack> removeTracks(Playlist playList, List<Integer> indexes) {
+        /* Suggestion: Method return type should be changed from List to Set */
+        return removeTracks(playList, indexes, removed -> {}).toList();
+    }
+
+    /** @see PlaylistService#removeTracks(String, List, Consumer) */
+    public int removeTracks(String uuid, List<Integer> indexes, Consumer<PlaylistTrack> removed)
+            throws PlaylistException {
+        long start = System.nanoTime();
+        validateRemoveTracks(uuid, indexes);
+        long validated = lap(Operation.REMOVE_TRACKS, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.REMOVE_TRACKS);
+        long found = lap(Operation.REMOVE_TRACKS, Phase.LOOKUP, validated);
+
+        int[] count = new int[1];
+        TrackSequence remaining =
+                removeTracks(
+                        playList,
+                        indexes,
+                        track -> {
+                            count[0]++;
+                            removed.accept(track);
+                        });
+        lap(Operation.REMOVE_TRACKS, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.REMOVE_TRACKS, indexes.size());
+        metrics.recordPlaylistSize(Operation.REMOVE_TRACKS, remaining.size());
+        return count[0];
+    }
+
+    /**
+     * Removes the tracks at {@code indexes}, handing the removed ones to {@code removed} once the
+     * removal is published
+     *
+     * @return the remaining tracks
+     */
+    private TrackSequence removeTracks(
+            Playlist playList, List<Integer> indexes, Consumer<PlaylistTrack> removed) {
+        return removeTracks(
+                playList,
+                current -> {
+                    BitSet positions = new BitSet();
+                    markPositions(current, indexes, positions);
+                    return positions;
+                },
+                removed);
+    }
+
+    /**
+     * Removes the tracks at the positions {@code select} picks in the current state, handing the
+     * removed ones to {@code removed} once the removal is published
+     *
+     * @return the remaining tracks
+     */
+    private TrackSequence removeTracks(
+            Playlist playList,
+            Function<PlaylistSnapshot, BitSet> select,
+            Consumer<PlaylistTrack> removed) {
+        /* Optimistic edit, see addTracks */
+        while (true) {
+            PlaylistSnapshot current = playList.getSnapshot();
+            BitSet positions = select.apply(current);
+            if (positions.isEmpty()) return current.getTracks();
+            PlaylistSnapshot next = removePositions(current, positions);
+
+            if (playList.compareAndSetSnapshot(current, next)) {
+                history.recordEdit(playList.getUuid(), current, next);
+                /* Read from the replaced sequence, so a lost race never reports tracks */
+                List<PlaylistTrack> removedTracks = tracksAt(current, positions);
+                removedTracks.forEach(removed);
+                reportRemoved(playList, next.getVersion(), removedTracks);
+                journalRemoved(playList.getUuid(), next.getVersion(), positions);
+                return next.getTracks();
+            }
+        }
+    }
+
+    /**
+     * Builds the state after removing the tracks at {@code indexes} from {@code current} without
+     * publishing it, see {@link #addTracks(Playlist, PlaylistSnapshot, List, int, boolean, List)}
+     *
+     * @param positions receives the positions of the removed tracks in {@code current}
+     */
+    PlaylistSnapshot removeTracks(
+            PlaylistSnapshot current, List<Integer> indexes, BitSet positions) {
+        markPositions(current, indexes, positions);
+        return removePositions(current, positions);
+    }
+
+    private void markPositions(PlaylistSnapshot current, List<Integer> indexes, BitSet positions) {
+        /* Validate indices and mark them in a bitmap, no sorting or boxed set. O(W) */
+        TrackSequence tracks = current.getTracks();
+        int size = Math.min(current.getNrOfTracks(), tracks.size());
+        for (int index : indexes) {
+            if (!isValidIndex(index, current.getNrOfTracks())) {
+                throw failure(
+                        Operation.REMOVE_TRACKS,
+                        Failure.INDEX_OUT_OF_BOUNDS,
+                        "Index: " + index + "out of bounds");
+            }
+            /* Index equal to the size passes validation but holds no track */
+            if (index < size) positions.set(index);
+        }
+    }
+
+    /* The state after removing the tracks at the set positions, O(min(N, W * log(N))) */
+    private PlaylistSnapshot removePositions(PlaylistSnapshot current, BitSet positions) {
+        TrackSequence tracks = current.getTracks();
+
+        /* Duplicates collapse into one bit */
+        TrackIdIndex[] trackIds = {current.getTrackIdsIfBuilt()};
+        TrackSequence remaining =
+                tracks.removeAll(
+                        positions,
+                        track -> {
+                            if (trackIds[0] != null)
+                                trackIds[0] = trackIds[0].remove(track.getTrackId());
+                        });
+
+        /* The sequences keep their summed durations, the removed ones are the difference */
+        long duration =
+                current.getDurationMillis()
+                        - (tracks.getDurationMillis() - remaining.getDurationMillis());
+        return current.next(remaining, remaining.size(), duration, trackIds[0]);
+    }
+
+    /** @return the tracks at the set positions of {@code snapshot}, carrying those indexes */
+    List<PlaylistTrack> tracksAt(PlaylistSnapshot snapshot, BitSet positions) {
+        TrackSequence tracks = snapshot.getTracks();
+        List<PlaylistTrack> found = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            found.add(tracks.get(i));
+        }
+        return found;
+    }
+
+    /** @see PlaylistService#removeTracksById(String, Collection) */
+    public List<PlaylistTrack> removeTracksById(String uuid, Collection<Integer> trackIds)
+            throws PlaylistException {
+        long start = System.nanoTime();
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.REMOVE_TRACKS, "uuid must not be null or empty");
+        if (CollectionUtils.isEmpty(trackIds))
+            throw invalid(Operation.REMOVE_TRACKS, "trackIds must not be null or empty");
+        long validated = lap(Operation.REMOVE_TRACKS, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.REMOVE_TRACKS);
+        long found = lap(Operation.REMOVE_TRACKS, Phase.LOOKUP, validated);
+
+        Set<Integer> distinct = new HashSet<>(trackIds);
+        List<PlaylistTrack> removed = new ArrayList<>();
+        TrackSequence remaining =
+                removeTracks(playList, current -> positionsOf(current, distinct), removed::add);
+        lap(Operation.REMOVE_TRACKS, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.REMOVE_TRACKS, trackIds.size());
+        metrics.recordPlaylistSize(Operation.REMOVE_TRACKS, remaining.size());
+        return removed;
+    }
 
-        /* Validations */
+    /*
+     * Positions of every occurrence of the track ids. O(K) when none is in the playlist, otherwise
+     * the tracks are scanned up to the last occurrence
+     */
+    private BitSet positionsOf(PlaylistSnapshot current, Set<Integer> trackIds) {
+        TrackIdIndex index = current.getTrackIds();
+        int occurrences = 0;
+        for (int trackId : trackIds) occurrences += index.count(trackId);
+
+        BitSet positions = new BitSet();
+        int position = 0;
+        for (Iterator<PlaylistTrack> iterator = current.getTracks().iterator();
+                occurrences > 0 && iterator.hasNext();
+                position++) {
+            if (trackIds.contains(iterator.next().getTrackId())) {
+                positions.set(position);
+                occurrences--;
+            }
+        }
+        return positions;
+    }
+
+    /** @see PlaylistService#containsTrack(String, int) */
+    public boolean containsTrack(String uuid, int trackId) {
         if (StringUtils.isBlank(uuid))
-            throw new ValidationException("uuid must not be null or empty");
+            throw invalid(Operation.READ, "uuid must not be null or empty");
+
+        return findPlaylist(uuid, Operation.READ).getSnapshot().getTrackIds().contains(trackId);
+    }
+
+    /** @see PlaylistService#removeRange(String, int, int) */
+    public List<PlaylistTrack> removeRange(String uuid, int fromIndex, int toIndex)
+            throws PlaylistException {
+        long start = System.nanoTime();
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.REMOVE_RANGE, "uuid must not be null or empty");
+        long validated = lap(Operation.REMOVE_RANGE, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.REMOVE_RANGE);
+        long found = lap(Operation.REMOVE_RANGE, Phase.LOOKUP, validated);
+
+        List<PlaylistTrack> remaining = removeRange(playList, fromIndex, toIndex);
+        lap(Operation.REMOVE_RANGE, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.REMOVE_RANGE, toIndex - fromIndex);
+        metrics.recordPlaylistSize(Operation.REMOVE_RANGE, remaining.size());
+        return remaining;
+    }
+
+    /** Range removal on an already loaded playlist, see {@link #removeRange(String, int, int)} */
+    List<PlaylistTrack> removeRange(Playlist playList, int fromIndex, int toIndex) {
+        /* Optimistic edit, see addTracks */
+        while (true) {
+            PlaylistSnapshot current = playList.getSnapshot();
+            TrackSequence tracks = current.getTracks();
+            int size = Math.min(current.getNrOfTracks(), tracks.size());
+            if (fromIndex < 0 || fromIndex > toIndex || toIndex > size) {
+                throw failure(
+                        Operation.REMOVE_RANGE,
+                        Failure.INDEX_OUT_OF_BOUNDS,
+                        "Range: [" + fromIndex + ", " + toIndex + ") out of bounds");
+            }
+            /* An empty range changes nothing, so nothing is published, recorded or journaled */
+            if (fromIndex == toIndex) return tracks.toList();
+
+            /* Split and join instead of one removal per track, durations included. O(log(N)) */
+            TrackSequence remaining = tracks.removeRange(fromIndex, toIndex);
+            long duration =
+                    current.getDurationMillis()
+                            - (tracks.getDurationMillis() - remaining.getDurationMillis());
+
+            /* A track id index in use visits the removed tracks, O(range) */
+            TrackIdIndex trackIds = current.getTrackIdsIfBuilt();
+            if (trackIds != null) {
+                Iterator<PlaylistTrack> removed = tracks.iterator(fromIndex);
+                for (int i = fromIndex; i < toIndex; i++) {
+                    trackIds = trackIds.remove(removed.next().getTrackId());
+                }
+            }
+            tracks = remaining;
+
+            PlaylistSnapshot next = current.next(tracks, tracks.size(), duration, trackIds);
+            if (playList.compareAndSetSnapshot(current, next)) {
+                history.recordEdit(playList.getUuid(), current, next);
+                if (listener != PlaylistChangeListener.NONE) {
+                    reportRemoved(
+                            playList,
+                            next.getVersion(),
+                            current.getTracks().toList(fromIndex, toIndex));
+                }
+                if (journal != null) {
+                    journal(
+                            JournalRecord.removeRange(
+                                    playList.getUuid(),
+                                    next.getVersion(),
+                                    fromIndex,
+                                    toIndex,
+                                    businessUtils.currentDate()));
+                }
+                return tracks.toList();
+            }
+        }
+    }
+
+    /** @see PlaylistService#applyEdits(String, List) */
+    public PlaylistDiff applyEdits(String uuid, List<PlaylistEdit> edits)
+            throws PlaylistException {
+        long start = System.nanoTime();
+        validateApplyEdits(uuid, edits);
+        long validated = lap(Operation.APPLY_EDITS, Phase.VALIDATION, start);
+        Playlist playList = findPlaylist(uuid, Operation.APPLY_EDITS);
+        long found = lap(Operation.APPLY_EDITS, Phase.LOOKUP, validated);
+
+        PlaylistDiff diff = applyEdits(playList, edits);
+        lap(Operation.APPLY_EDITS, Phase.MUTATION, found);
+        metrics.recordBatchSize(Operation.APPLY_EDITS, edits.size());
+        metrics.recordPlaylistSize(Operation.APPLY_EDITS, diff.getNrOfTracks());
+        return diff;
+    }
+
+    /** @see PlaylistService#moveTracks(String, int, int, int) */
+    public PlaylistDiff moveTracks(String uuid, int fromIndex, int count, int toIndex)
+            throws PlaylistException {
+        return applyEdits(
+                uuid, Collections.singletonList(PlaylistEdit.move(fromIndex, count, toIndex)));
+    }
+
+    private PlaylistDiff applyEdits(Playlist playList, List<PlaylistEdit> edits) {
+        /* Optimistic edit, see addTracks. All edits are chained on one state, published once */
+        while (true) {
+            PlaylistSnapshot current = playList.getSnapshot();
+            List<PlaylistEdit> resolved = resolveEdits(current, edits);
+            List<PlaylistTrack> added = new ArrayList<>();
+            List<PlaylistTrack> removed = new ArrayList<>();
+            PlaylistSnapshot next = applyEdits(playList, current, resolved, added, removed);
+
+            if (playList.compareAndSetSnapshot(current, next)) {
+                history.recordEdit(playList.getUuid(), current, next);
+                /* Added first, a track added and removed again by the batch then nets out */
+                if (!added.isEmpty()) listener.tracksAdded(playList, added);
+                if (!removed.isEmpty()) listener.tracksRemoved(playList, removed);
+                listener.changed(PlaylistChange.reset(playList.getUuid(), next.getVersion()));
+                if (journal != null) {
+                    /* One record for the whole list, replay applies all of the edits or none */
+                    journal(
+                            JournalRecord.edits(
+                                    playList.getUuid(),
+                                    next.getVersion(),
+                                    resolved,
+                                    added.isEmpty()
+                                            ? businessUtils.currentDate()
+                                            : added.get(0).getDateAdded()));
+                }
+                return new PlaylistDiff(
+                        current.getVersion(),
+                        next.getVersion(),
+                        resolved,
+                        added,
+                        removed,
+                        next.getNrOfTracks(),
+                        next.getDurationMillis());
+            }
+        }
+    }
+
+    /*
+     * Checks every edit against the track count left by the edits before it, and resolves the
+     * insertion indexes the way addTracks does. O(E), no track is touched, so a bad edit late in
+     * the list fails the batch before any work is done
+     */
+    private List<PlaylistEdit> resolveEdits(PlaylistSnapshot current, List<PlaylistEdit> edits) {
+        int size = Math.min(current.getNrOfTracks(), current.getTracks().size());
+        List<PlaylistEdit> resolved = new ArrayList<>(edits.size());
+        for (PlaylistEdit edit : edits) {
+            int index = edit.getIndex();
+            if (edit.getType() == PlaylistEdit.Type.INSERT && (index > size || index == -1)) {
+                edit = PlaylistEdit.insert(size, edit.getTracks());
+            }
+            if (!isValidEdit(edit, size)) {
+                throw failure(
+                        Operation.APPLY_EDITS,
+                        Failure.INDEX_OUT_OF_BOUNDS,
+                        "Edit " + resolved.size() + ": index " + index + " out of bounds");
+            }
+            size += edit.sizeDelta();
+            resolved.add(edit);
+        }
+
+        /* Only the end state is published, so only it has to fit */
+        if (size > PLAYLIST_MAX_SIZE) {
+            throw failure(
+                    Operation.APPLY_EDITS,
+                    Failure.PLAYLIST_FULL,
+                    "Playlist cannot have more than " + PLAYLIST_MAX_SIZE + " tracks");
+        }
+        return resolved;
+    }
+
+    private boolean isValidEdit(PlaylistEdit edit, int size) {
+        int index = edit.getIndex();
+        switch (edit.getType()) {
+            case INSERT:
+                return isValidIndex(index, size);
+            case MOVE:
+                return isValidIndex(index, size - edit.getCount())
+                        && isValidIndex(edit.getToIndex(), size - edit.getCount());
+            default:
+                return isValidIndex(index, size - edit.getCount());
+        }
+    }
+
+    /*
+     * Chains the resolved edits on the tracks of {@code current}, one O(log(N)) split and join
+     * per range and one insert per added track. A track id index in use follows the added and
+     * removed tracks, moves leave it alone
+     */
+    private PlaylistSnapshot applyEdits(
+            Playlist playList,
+            PlaylistSnapshot current,
+            List<PlaylistEdit> edits,
+            List<PlaylistTrack> added,
+            List<PlaylistTrack> removed) {
+        TrackSequence tracks = current.getTracks();
+        TrackIdIndex trackIds = current.getTrackIdsIfBuilt();
+        for (PlaylistEdit edit : edits) {
+            int index = edit.getIndex();
+            if (edit.getType() == PlaylistEdit.Type.MOVE) {
+                tracks = tracks.move(index, index + edit.getCount(), edit.getToIndex());
+                continue;
+            }
+            if (edit.getType() != PlaylistEdit.Type.INSERT) {
+                /* REMOVE and REPLACE drop their range, REPLACE then inserts in its place */
+                int toIndex = index + edit.getCount();
+                for (PlaylistTrack track : tracks.toList(index, toIndex)) {
+                    if (trackIds != null) trackIds = trackIds.remove(track.getTrackId());
+                    removed.add(track);
+                }
+                tracks = tracks.removeRange(index, toIndex);
+            }
+            if (edit.getType() == PlaylistEdit.Type.REMOVE) continue;
+
+            List<PlaylistTrack> inserted = new ArrayList<>(edit.getTracks().size());
+            for (Track trackToAdd : edit.getTracks()) {
+                PlaylistTrack playlistTrack = playlistTrack(playList, trackToAdd, index++);
+                if (trackIds != null) trackIds = trackIds.add(playlistTrack.getTrackId());
+                inserted.add(playlistTrack);
+            }
+            tracks = tracks.insertAll(edit.getIndex(), inserted);
+            added.addAll(inserted);
+        }
+
+        /* The sequences keep their summed durations, the edits changed it by the difference */
+        long duration =
+                current.getDurationMillis()
+                        + (tracks.getDurationMillis() - current.getTracks().getDurationMillis());
+        return current.next(tracks, tracks.size(), duration, trackIds);
+    }
+
+    /** @see PlaylistService#undo(String) */
+    public PlaylistSnapshot undo(String uuid) throws PlaylistException {
+        return restore(uuid, true);
+    }
+
+    /** @see PlaylistService#redo(String) */
+    public PlaylistSnapshot redo(String uuid) throws PlaylistException {
+        return restore(uuid, false);
+    }
+
+    /* Publishes the retained state undo or redo steps to as a new version */
+    private PlaylistSnapshot restore(String uuid, boolean undo) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.RESTORE, "uuid must not be null or empty");
+        Playlist playList = findPlaylist(uuid, Operation.RESTORE);
+
+        /* Optimistic edit, see addTracks */
+        while (true) {
+            PlaylistSnapshot current = playList.getSnapshot();
+            PlaylistSnapshot target =
+                    undo ? history.undoTarget(uuid, current) : history.redoTarget(uuid, current);
+            if (target == null)
+                throw new PlaylistException("Nothing to " + (undo ? "undo" : "redo"));
+
+            /* O(1), the retained tracks and their id index are shared, not copied */
+            PlaylistSnapshot next =
+                    current.next(
+                            target.getTracks(),
+                            target.getNrOfTracks(),
+                            target.getDurationMillis(),
+                            target.getTrackIdsIfBuilt());
+            if (playList.compareAndSetSnapshot(current, next)) {
+                if (undo) history.recordUndo(uuid, target, current, next);
+                else history.recordRedo(uuid, target, current, next);
+                reportRestore(playList, current, next);
+                if (journal != null) {
+                    /* The history is not journaled, so the restored tracks are, with their dates
+                     * added */
+                    journal(
+                            JournalRecord.restore(
+                                    uuid,
+                                    next.getVersion(),
+                                    next.getTracks(),
+                                    businessUtils.currentDate()));
+                }
+                return next;
+            }
+        }
+    }
+
+    /*
+     * Reports what a restore changed as the difference of the track ids before and after, O(N).
+     * Added first, as for applyEdits
+     */
+    private void reportRestore(Playlist playList, PlaylistSnapshot before, PlaylistSnapshot after) {
+        if (listener == PlaylistChangeListener.NONE) return;
+
+        Map<Integer, Integer> unmatched = new HashMap<>();
+        for (PlaylistTrack track : before.getTracks()) {
+            unmatched.merge(track.getTrackId(), 1, Integer::sum);
+        }
+        List<PlaylistTrack> added = new ArrayList<>();
+        for (PlaylistTrack track : after.getTracks()) {
+            if (unmatched.merge(track.getTrackId(), -1, Integer::sum) < 0) added.add(track);
+        }
+        List<PlaylistTrack> removed = new ArrayList<>();
+        for (PlaylistTrack track : before.getTracks()) {
+            if (unmatched.merge(track.getTrackId(), -1, Integer::sum) >= 0) removed.add(track);
+        }
+
+        if (!added.isEmpty()) listener.tracksAdded(playList, added);
+        if (!removed.isEmpty()) listener.tracksRemoved(playList, removed);
+        listener.changed(PlaylistChange.reset(playList.getUuid(), after.getVersion()));
+    }
+
+    /** Tells the listener about the tracks an edit published as {@code version} added */
+    void reportAdded(Playlist playList, long version, List<PlaylistTrack> added) {
+        if (added.isEmpty()) return;
+        listener.tracksAdded(playList, added);
+        if (listener != PlaylistChangeListener.NONE) {
+            listener.changed(PlaylistChange.added(playList.getUuid(), version, added));
+        }
+    }
+
+    /** Tells the listener about the tracks an edit published as {@code version} removed */
+    void reportRemoved(Playlist playList, long version, List<PlaylistTrack> removed) {
+        if (removed.isEmpty()) return;
+        listener.tracksRemoved(playList, removed);
+        if (listener != PlaylistChangeListener.NONE) {
+            listener.changed(PlaylistChange.removed(playList.getUuid(), version, removed));
+        }
+    }
+
+    /** Journals the tracks an edit published as {@code version} added */
+    void journalAdded(String uuid, long version, List<PlaylistTrack> added) {
+        if (journal == null || added.isEmpty()) return;
+
+        /* The index the tracks actually went to, after resolving -1 and too large indexes */
+        int[] trackIds = added.stream().mapToInt(PlaylistTrack::getTrackId).toArray();
+        PlaylistTrack first = added.get(0);
+        journal(JournalRecord.add(uuid, version, first.getIndex(), trackIds, first.getDateAdded()));
+    }
+
+    /**
+     * Journals the positions an edit published as {@code version} removed tracks from, none if
+     * it removed nothing but still published
+     */
+    void journalRemoved(String uuid, long version, BitSet positions) {
+        if (journal == null) return;
+        journal(
+                JournalRecord.remove(
+                        uuid, version, positions.stream().toArray(), businessUtils.currentDate()));
+    }
+
+    /*
+     * Appends after the publish, so the records of concurrent edits may reach the journal out of
+     * version order; replay puts them back in order
+     */
+    private void journal(JournalRecord record) {
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Edit of " + record.getUuid() + " not journaled", e);
+        }
+    }
+
+    /** @see PlaylistService#getVersion(String, long) */
+    public PlaylistSnapshot getVersion(String uuid, long version) throws PlaylistException {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.READ, "uuid must not be null or empty");
+
+        PlaylistSnapshot current = findPlaylist(uuid, Operation.READ).getSnapshot();
+        if (current.getVersion() == version) return current;
+        PlaylistSnapshot retained = history.getVersion(uuid, version);
+        if (retained == null)
+            throw new PlaylistException("Version " + version + " is not retained");
+        return retained;
+    }
+
+    /** @see PlaylistService#getTracks(String, int, int) */
+    public List<PlaylistTrack> getTracks(String uuid, int offset, int limit) {
+        validateGetTracks(uuid, offset, limit);
+
+        /* Only the page is visited, O(log(N) + limit) */
+        TrackSequence tracks = findPlaylist(uuid, Operation.READ).getTracks();
+        int fromIndex = Math.min(offset, tracks.size());
+        int toIndex = (int) Math.min((long) fromIndex + limit, tracks.size());
+        return tracks.toList(fromIndex, toIndex);
+    }
+
+    /** @see PlaylistService#streamTracks(String) */
+    public Stream<PlaylistTrack> streamTracks(String uuid) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.READ, "uuid must not be null or empty");
+
+        return findPlaylist(uuid, Operation.READ).getTracks().stream();
+    }
+
+    void validateAddTracks(String uuid, List<Track> tracksToAdd) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.ADD_TRACKS, "uuid must not be null or empty");
+
+        if (CollectionUtils.isEmpty(tracksToAdd))
+            throw invalid(Operation.ADD_TRACKS, "tracksToAdd must not be null or empty");
+    }
+
+    void validateRemoveTracks(String uuid, List<Integer> indexes) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.REMOVE_TRACKS, "uuid must not be null or empty");
 
         if (CollectionUtils.isEmpty(indexes))
-            throw new ValidationException("indexes must not be null or empty");
-
-        Playlist playList =
-                playlistRepository
-                        .getPlaylistByUUID(uuid)
-                        .orElseThrow(() -> new PlaylistException("Playlist not found"));
-
-        /* Validate indices */
-        indexes.forEach(
-                index -> {
-                    if (!isValidIndex(index, playList.getNrOfTracks())) {
-                        throw new PlaylistException("Index: " + index + "out of bounds");
-                    }
-                });
-
-        Set<PlaylistTrack> tracksOfPlaylist = SetUtils.emptyIfNull(playList.getPlaylistTracks());
-
-        /* Gather all tracks to be removed. Time complexity O(N * W) */
-        Set<PlaylistTrack> tracksToRemove =
-                playList.getPlaylistTracks().stream()
-                        .filter(playlistTrack -> indexes.contains(playlistTrack.getIndex()))
-                        .collect(Collectors.toSet());
-
-        tracksToRemove.forEach(
-                removableTrack -> {
-                    /* O(1) operations since its HashSet */
-                    tracksOfPlaylist.remove(removableTrack);
-                    /* Remove track duration from overall playlist duration */
-                    playList.setDuration(
-                            removeTrackDurationFromPlaylist(playList, removableTrack.getTrack()));
-                });
-
-        /* sorting the tracks of playlist. Overall nlog(n) complexity */
-        Set<PlaylistTrack> sortedTracks = new TreeSet<>(tracksOfPlaylist);
-
-        /* Re-assign indices: O(n) */
-        Integer plIndex = 0;
-        for (PlaylistTrack plTrack : sortedTracks) {
-            plTrack.setIndex(plIndex++);
-        }
-
-        /* In fairly large sets, assigning new set is faster than clearing and adding into existing */
-        playList.setPlaylistTracks(new HashSet<>(sortedTracks));
-        playList.setNrOfTracks(tracksOfPlaylist.size());
+            throw invalid(Operation.REMOVE_TRACKS, "indexes must not be null or empty");
+    }
 
-        /* Suggestion: Method return type should be changed from List to Set */
-        return new ArrayList<>(sortedTracks);
+    void validateApplyEdits(String uuid, List<PlaylistEdit> edits) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.APPLY_EDITS, "uuid must not be null or empty");
+
+        if (CollectionUtils.isEmpty(edits))
+            throw invalid(Operation.APPLY_EDITS, "edits must not be null or empty");
+
+        for (PlaylistEdit edit : edits) {
+            if (edit == null) throw invalid(Operation.APPLY_EDITS, "edits must not contain null");
+
+            switch (edit.getType()) {
+                case INSERT:
+                case REPLACE:
+                    if (CollectionUtils.isEmpty(edit.getTracks())
+                            || edit.getTracks().stream().anyMatch(Objects::isNull))
+                        throw invalid(Operation.APPLY_EDITS, "tracks must not be null or empty");
+                    break;
+                default:
+                    if (edit.getCount() <= 0)
+                        throw invalid(Operation.APPLY_EDITS, "count must be positive");
+            }
+        }
     }
 
-    private boolean isValidIndex(int toIndex, int length) {
-        return toIndex >= 0 && toIndex <= length;
+    void validateGetTracks(String uuid, int offset, int limit) {
+        if (StringUtils.isBlank(uuid))
+            throw invalid(Operation.READ, "uuid must not be null or empty");
+
+        if (offset < 0) throw invalid(Operation.READ, "offset must not be negative");
+
+        if (limit < 0) throw invalid(Operation.READ, "limit must not be negative");
+    }
+
+    private Playlist findPlaylist(String uuid) {
+        Playlist playList = playlistRepository.getPlaylistByUUID(uuid).orElse(null);
+        metrics.recordLookup(playList != null);
+        if (playList == null) throw new PlaylistException("Playlist not found");
+        return playList;
     }
 
-    private float addTrackDurationToPlaylist(Playlist playList, Track track) {
-        return (track != null ? track.getDuration() : 0)
-                + (playList != null && playList.getDuration() != null ? playList.getDuration() : 0);
+    private Playlist findPlaylist(String uuid, Operation operation) {
+        try {
+            return findPlaylist(uuid);
+        } catch (PlaylistException e) {
+            metrics.recordFailure(operation, Failure.PLAYLIST_NOT_FOUND);
+            throw e;
+        }
+    }
+
+    /* Records the time since {@code since} as the phase, returns now as the start of the next */
+    private long lap(Operation operation, Phase phase, long since) {
+        long now = System.nanoTime();
+        metrics.recordLatency(operation, phase, now - since);
+        return now;
+    }
+
+    private ValidationException invalid(Operation operation, String message) {
+        metrics.recordFailure(operation, Failure.INVALID_ARGUMENT);
+        return new ValidationException(message);
     }
 
-    private float removeTrackDurationFromPlaylist(Playlist playList, Track track) {
-        return (playList != null && playList.getDuration() != null ? playList.getDuration() : 0)
-                - (track != null ? track.getDuration() : 0);
+    private PlaylistException failure(Operation operation, Failure failure, String message) {
+        metrics.recordFailure(operation, failure);
+        return new PlaylistException(message);
+    }
+
+    private boolean isValidIndex(int toIndex, int length) {
+        return toIndex >= 0 && toIndex <= length;
     }
 }
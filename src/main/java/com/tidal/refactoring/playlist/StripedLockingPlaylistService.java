@@ -0,0 +1,171 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.concurrent.StripedLocks;
+import com.tidal.refactoring.playlist.data.PlaylistDiff;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link PlaylistService} that serializes mutations per playlist uuid through a striped lock
+ * table, so edits to one playlist cannot interleave while edits to different playlists run in
+ * parallel.
+ *
+ * <p>Readers never take a lock: {@code Playlist#getSnapshot()} always returns a complete,
+ * immutable view of the playlist. Serializing writers also keeps the optimistic publishing in
+ * {@link PlaylistServiceImpl} from retrying under contention.
+ */
+public class StripedLockingPlaylistService implements PlaylistService {
+
+    private final PlaylistService delegate;
+
+    private final StripedLocks locks;
+
+    public StripedLockingPlaylistService(PlaylistService delegate) {
+        this(delegate, StripedLocks.forAvailableProcessors());
+    }
+
+    public StripedLockingPlaylistService(PlaylistService delegate, StripedLocks locks) {
+        this.delegate = delegate;
+        this.locks = locks;
+    }
+
+    /** @see PlaylistService#addTracks(String, List, int) */
+    public List<PlaylistTrack> addTracks(String uuid, List<Track> tracksToAdd, int insertionIndex) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.addTracks(uuid, tracksToAdd, insertionIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#addTracks(String, List, int, boolean) */
+    public List<PlaylistTrack> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex, boolean skipDuplicates) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.addTracks(uuid, tracksToAdd, insertionIndex, skipDuplicates);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#removeTracks(String, List) */
+    public List<PlaylistTrack> removeTracks(String uuid, List<Integer> indexes) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.removeTracks(uuid, indexes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#removeTracks(String, List, Consumer) */
+    public int removeTracks(String uuid, List<Integer> indexes, Consumer<PlaylistTrack> removed) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.removeTracks(uuid, indexes, removed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#removeTracksById(String, Collection) */
+    public List<PlaylistTrack> removeTracksById(String uuid, Collection<Integer> trackIds) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.removeTracksById(uuid, trackIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#containsTrack(String, int) */
+    public boolean containsTrack(String uuid, int trackId) {
+        return delegate.containsTrack(uuid, trackId);
+    }
+
+    /** @see PlaylistService#removeRange(String, int, int) */
+    public List<PlaylistTrack> removeRange(String uuid, int fromIndex, int toIndex) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.removeRange(uuid, fromIndex, toIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#applyEdits(String, List) */
+    public PlaylistDiff applyEdits(String uuid, List<PlaylistEdit> edits) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.applyEdits(uuid, edits);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#moveTracks(String, int, int, int) */
+    public PlaylistDiff moveTracks(String uuid, int fromIndex, int count, int toIndex) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.moveTracks(uuid, fromIndex, count, toIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#undo(String) */
+    public PlaylistSnapshot undo(String uuid) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.undo(uuid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#redo(String) */
+    public PlaylistSnapshot redo(String uuid) {
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            return delegate.redo(uuid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @see PlaylistService#getVersion(String, long) */
+    public PlaylistSnapshot getVersion(String uuid, long version) {
+        return delegate.getVersion(uuid, version);
+    }
+
+    /** @see PlaylistService#getTracks(String, int, int) */
+    public List<PlaylistTrack> getTracks(String uuid, int offset, int limit) {
+        return delegate.getTracks(uuid, offset, limit);
+    }
+
+    /** @see PlaylistService#streamTracks(String) */
+    public Stream<PlaylistTrack> streamTracks(String uuid) {
+        return delegate.streamTracks(uuid);
+    }
+}
@@ -0,0 +1,53 @@
+package com.tidal.refactoring.playlist.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Executors for running blocking playlist calls off the caller's thread */
+public final class PlaylistExecutors {
+
+    private PlaylistExecutors() {}
+
+    /**
+     * One virtual thread per task, available on JDK 21 and later. Looked up reflectively because
+     * the project is compiled for Java 11.
+     *
+     * @return the executor, empty on JDKs without virtual threads
+     */
+    public static Optional<ExecutorService> virtualThreadPerTask() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Fixed pool of daemon platform threads with a bounded queue. Once {@code threads} calls are
+     * running and {@code queueCapacity} are waiting, new tasks are rejected instead of queued
+     * without limit.
+     */
+    public static ExecutorService boundedPlatformPool(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "playlist-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Virtual threads where available, otherwise a bounded platform pool */
+    public static ExecutorService virtualOrBoundedPlatformPool(int threads, int queueCapacity) {
+        return virtualThreadPerTask().orElseGet(() -> boundedPlatformPool(threads, queueCapacity));
+    }
+}
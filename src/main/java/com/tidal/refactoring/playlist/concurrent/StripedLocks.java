@@ -0,0 +1,46 @@
+package com.tidal.refactoring.playlist.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of locks where every key maps to one stripe. Keys sharing a stripe serialize, keys
+ * on different stripes never contend, and memory stays constant however many keys exist.
+ */
+public class StripedLocks {
+
+    private final Lock[] locks;
+    private final int mask;
+
+    /** @param stripes number of locks, rounded up to the next power of two */
+    public StripedLocks(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("stripes must be positive");
+
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new Lock[Math.max(size, 1)];
+        this.mask = locks.length - 1;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /** Four stripes per core keeps collisions between concurrently edited keys unlikely */
+    public static StripedLocks forAvailableProcessors() {
+        return new StripedLocks(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @return the lock guarding {@code key}, a {@code null} key maps to the first stripe */
+    public Lock lockFor(String key) {
+        return locks[spread(Objects.hashCode(key)) & mask];
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+
+    /* Mixes the high bits in, as String hashes of similar uuids differ mostly in low bits */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
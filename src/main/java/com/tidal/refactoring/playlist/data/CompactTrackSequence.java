@@ -0,0 +1,243 @@
+package com.tidal.refactoring.playlist.data;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * {@link TrackSequence} stored as parallel arrays, one slot per track: entry id, track id, the
+ * day the track was added and a reference to the shared {@link Track}. That is 16 bytes per track
+ * where the tree spends a node, a {@link PlaylistTrack}, a {@link LocalDate} and a boxed id.
+ *
+ * <p>Every edit copies the arrays, O(n). {@link PlaylistTrack}s are only materialized when asked
+ * for, they carry no {@link Playlist} back-reference. A null id or date added is stored as {@link
+ * #NONE}.
+ */
+final class CompactTrackSequence implements TrackSequence {
+
+    static final CompactTrackSequence EMPTY =
+            new CompactTrackSequence(new int[0], new int[0], new int[0], new Track[0], 0);
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final int[] ids;
+    private final int[] trackIds;
+    private final int[] epochDays;
+    private final Track[] tracks;
+    private final long durationMillis;
+
+    private CompactTrackSequence(
+            int[] ids, int[] trackIds, int[] epochDays, Track[] tracks, long durationMillis) {
+        this.ids = ids;
+        this.trackIds = trackIds;
+        this.epochDays = epochDays;
+        this.tracks = tracks;
+        this.durationMillis = durationMillis;
+    }
+
+    static TrackSequence of(Collection<PlaylistTrack> playlistTracks) {
+        if (playlistTracks == null || playlistTracks.isEmpty()) return EMPTY;
+
+        Slots slots = new Slots(playlistTracks.size());
+        for (PlaylistTrack track : playlistTracks) slots.add(track);
+        return slots.toSequence();
+    }
+
+    @Override
+    public TrackLayout getLayout() {
+        return TrackLayout.COMPACT;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    /** O(1) */
+    @Override
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public PlaylistTrack get(int index) {
+        checkIndex(index, size());
+        return view(index);
+    }
+
+    @Override
+    public TrackSequence insert(int index, PlaylistTrack track) {
+        checkIndex(index, size() + 1);
+        Slots slots = new Slots(size() + 1);
+        slots.copy(this, 0, index);
+        slots.add(track);
+        slots.copy(this, index, size());
+        return slots.toSequence();
+    }
+
+    /** One copy, O(N + W) */
+    @Override
+    public TrackSequence insertAll(int index, List<PlaylistTrack> tracks) {
+        checkIndex(index, size() + 1);
+        if (tracks.isEmpty()) return this;
+
+        Slots slots = new Slots(size() + tracks.size());
+        slots.copy(this, 0, index);
+        for (PlaylistTrack track : tracks) slots.add(track);
+        slots.copy(this, index, size());
+        return slots.toSequence();
+    }
+
+    @Override
+    public TrackSequence remove(int index) {
+        checkIndex(index, size());
+        return removeRange(index, index + 1);
+    }
+
+    /** One O(N) pass */
+    @Override
+    public TrackSequence removeAll(BitSet positions, Consumer<PlaylistTrack> removed) {
+        int count = positions.get(0, size()).cardinality();
+        if (count == 0) return this;
+
+        Slots slots = new Slots(size() - count);
+        for (int i = 0; i < size(); i++) {
+            if (positions.get(i)) {
+                removed.accept(view(i));
+            } else {
+                slots.copy(this, i, i + 1);
+            }
+        }
+        return slots.toSequence();
+    }
+
+    @Override
+    public TrackSequence subSequence(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        Slots slots = new Slots(toIndex - fromIndex);
+        slots.copy(this, fromIndex, toIndex);
+        return slots.toSequence();
+    }
+
+    @Override
+    public TrackSequence removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return this;
+
+        Slots slots = new Slots(size() - (toIndex - fromIndex));
+        slots.copy(this, 0, fromIndex);
+        slots.copy(this, toIndex, size());
+        return slots.toSequence();
+    }
+
+    @Override
+    public TrackSequence move(int fromIndex, int toIndex, int targetIndex) {
+        checkRange(fromIndex, toIndex);
+        checkIndex(targetIndex, size() - (toIndex - fromIndex) + 1);
+        if (fromIndex == targetIndex || fromIndex == toIndex) return this;
+
+        /* The tracks passed over shift by the length of the moved range, the other way */
+        Slots slots = new Slots(size());
+        if (targetIndex < fromIndex) {
+            slots.copy(this, 0, targetIndex);
+            slots.copy(this, fromIndex, toIndex);
+            slots.copy(this, targetIndex, fromIndex);
+            slots.copy(this, toIndex, size());
+        } else {
+            int passed = toIndex + (targetIndex - fromIndex);
+            slots.copy(this, 0, fromIndex);
+            slots.copy(this, toIndex, passed);
+            slots.copy(this, fromIndex, toIndex);
+            slots.copy(this, passed, size());
+        }
+        return slots.toSequence();
+    }
+
+    @Override
+    public Iterator<PlaylistTrack> iterator(int fromIndex) {
+        checkIndex(fromIndex, size() + 1);
+        return new Iterator<PlaylistTrack>() {
+            private int position = fromIndex;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public PlaylistTrack next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return view(position++);
+            }
+        };
+    }
+
+    private PlaylistTrack view(int index) {
+        return PlaylistTrack.builder()
+                .id(ids[index] != NONE ? ids[index] : null)
+                .index(index)
+                .dateAdded(epochDays[index] != NONE ? LocalDate.ofEpochDay(epochDays[index]) : null)
+                .trackId(trackIds[index])
+                .track(tracks[index])
+                .build();
+    }
+
+    private static long durationMillis(Track track) {
+        return track != null ? track.getDurationMillis() : 0;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (bound - 1));
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())
+            throw new IndexOutOfBoundsException(
+                    "Range: [" + fromIndex + ", " + toIndex + "), Size: " + size());
+    }
+
+    /* Fills the arrays of a new sequence front to back */
+    private static final class Slots {
+        final int[] ids;
+        final int[] trackIds;
+        final int[] epochDays;
+        final Track[] tracks;
+        long durationMillis;
+        int next;
+
+        Slots(int size) {
+            ids = new int[size];
+            trackIds = new int[size];
+            epochDays = new int[size];
+            tracks = new Track[size];
+        }
+
+        void add(PlaylistTrack track) {
+            ids[next] = track.getId() != null ? track.getId() : NONE;
+            trackIds[next] = track.getTrackId();
+            epochDays[next] =
+                    track.getDateAdded() != null
+                            ? Math.toIntExact(track.getDateAdded().toEpochDay())
+                            : NONE;
+            tracks[next] = track.getTrack();
+            durationMillis += durationMillis(track.getTrack());
+            next++;
+        }
+
+        void copy(CompactTrackSequence source, int from, int to) {
+            int length = to - from;
+            System.arraycopy(source.ids, from, ids, next, length);
+            System.arraycopy(source.trackIds, from, trackIds, next, length);
+            System.arraycopy(source.epochDays, from, epochDays, next, length);
+            System.arraycopy(source.tracks, from, tracks, next, length);
+            for (int i = from; i < to; i++) durationMillis += durationMillis(source.tracks[i]);
+            next += length;
+        }
+
+        CompactTrackSequence toSequence() {
+            if (next == 0) return EMPTY;
+            return new CompactTrackSequence(ids, trackIds, epochDays, tracks, durationMillis);
+        }
+    }
+}
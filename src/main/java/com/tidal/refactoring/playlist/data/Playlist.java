@@ -4,6 +4,7 @@ import lombok.*;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** A very simplified version of TrackPlaylist */
 @Getter
@@ -13,15 +14,23 @@ public class Playlist {
     private Integer id;
     private String playListName;
 
-    private Set<PlaylistTrack> playlistTracks;
-
     private LocalDate registeredDate;
     private LocalDate lastUpdated;
     private String uuid;
-    private int nrOfTracks;
     private boolean deleted;
-    private Float duration;
 
+    /* Layout of the tracks, kept by every edit and by setPlaylistTracks */
+    private final TrackLayout trackLayout;
+
+    /* Tracks, nrOfTracks and duration are published together, readers never need a lock */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<PlaylistSnapshot> snapshot;
+
+    /**
+     * @param duration duration in seconds, wins over {@code durationMillis} if set
+     * @param tracks tracks as a ready sequence, wins over {@code playlistTracks} if set
+     */
     @Builder
     public Playlist(
             Integer id,
@@ -32,15 +41,114 @@ public class Playlist {
             String uuid,
             int nrOfTracks,
             boolean deleted,
-            Float duration) {
+            Float duration,
+            long durationMillis,
+            long version,
+            TrackLayout trackLayout,
+            TrackSequence tracks) {
         this.id = id;
         this.playListName = playListName;
-        this.playlistTracks = new HashSet<>(playlistTracks);
         this.registeredDate = registeredDate;
         this.lastUpdated = lastUpdated;
         this.uuid = uuid;
-        this.nrOfTracks = nrOfTracks;
         this.deleted = deleted;
-        this.duration = duration;
+        this.trackLayout = trackLayout != null ? trackLayout : TrackLayout.TREE;
+        this.snapshot =
+                new AtomicReference<>(
+                        new PlaylistSnapshot(
+                                version,
+                                tracks != null ? tracks : sorted(playlistTracks),
+                                nrOfTracks,
+                                duration != null ? toMillis(duration) : durationMillis));
+    }
+
+    /** @return the current tracks, track count, duration and version as one consistent view */
+    public PlaylistSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Publishes {@code next} only if the playlist is still at {@code expected}, the building block
+     * for optimistic edits that retry when another edit won the race.
+     *
+     * @return true when {@code next} was published
+     */
+    public boolean compareAndSetSnapshot(PlaylistSnapshot expected, PlaylistSnapshot next) {
+        return snapshot.compareAndSet(expected, next);
+    }
+
+    public long getVersion() {
+        return snapshot.get().getVersion();
+    }
+
+    public TrackSequence getTracks() {
+        return snapshot.get().getTracks();
+    }
+
+    public void setTracks(TrackSequence tracks) {
+        snapshot.updateAndGet(current -> current.withTracks(tracks));
+    }
+
+    public int getNrOfTracks() {
+        return snapshot.get().getNrOfTracks();
+    }
+
+    public void setNrOfTracks(int nrOfTracks) {
+        snapshot.updateAndGet(current -> current.withNrOfTracks(nrOfTracks));
+    }
+
+    /** @return the duration in seconds, derived from {@link #getDurationMillis()} */
+    public Float getDuration() {
+        return snapshot.get().getDuration();
+    }
+
+    public void setDuration(Float duration) {
+        setDurationMillis(toMillis(duration));
+    }
+
+    public long getDurationMillis() {
+        return snapshot.get().getDurationMillis();
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        snapshot.updateAndGet(current -> current.withDurationMillis(durationMillis));
+    }
+
+    /**
+     * Replaces the stored duration with the summed durations of the tracks. O(1), nothing is
+     * published when the duration is already consistent.
+     *
+     * @return true when the stored duration had to be corrected
+     */
+    public boolean recomputeDuration() {
+        while (true) {
+            PlaylistSnapshot current = snapshot.get();
+            if (current.isDurationConsistent()) return false;
+
+            PlaylistSnapshot next =
+                    current.withDurationMillis(current.getTracks().getDurationMillis());
+            if (snapshot.compareAndSet(current, next)) return true;
+        }
+    }
+
+    /** @return the tracks of the playlist in order, each carrying its current index */
+    public Set<PlaylistTrack> getPlaylistTracks() {
+        return new LinkedHashSet<>(getTracks().toList());
+    }
+
+    /** Replaces the tracks of the playlist, ordering them by their stored index */
+    public void setPlaylistTracks(Set<PlaylistTrack> playlistTracks) {
+        setTracks(sorted(playlistTracks));
+    }
+
+    private static long toMillis(Float seconds) {
+        return seconds != null ? Math.round(seconds * 1000d) : 0;
+    }
+
+    private TrackSequence sorted(Set<PlaylistTrack> playlistTracks) {
+        List<PlaylistTrack> sorted =
+                new ArrayList<>(playlistTracks != null ? playlistTracks : Set.of());
+        Collections.sort(sorted);
+        return trackLayout.of(sorted);
     }
 }
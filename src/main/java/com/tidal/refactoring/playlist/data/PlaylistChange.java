@@ -0,0 +1,90 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Compact description of one published edit of a playlist, for consumers that keep their own copy
+ * in step instead of reading the whole playlist again. Immutable, one instance is delivered to
+ * every subscriber.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PlaylistChange {
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        /* Positions are not described, read the playlist again */
+        RESET
+    }
+
+    @Getter private final String uuid;
+    @Getter private final Type type;
+
+    /* Version the edit was published as. A playlist read at this version or later holds it */
+    @Getter private final long version;
+
+    /* ADD: indexes the tracks were added at. REMOVE: indexes they were removed from, in the
+     * state before the edit. Ascending, empty for RESET */
+    private final int[] positions;
+
+    /* Track ids at the positions */
+    private final int[] trackIds;
+
+    /** @return the number of described positions, 0 for RESET */
+    public int size() {
+        return positions.length;
+    }
+
+    /** @return the i-th position, see {@link #getPositions()} */
+    public int getPosition(int i) {
+        return positions[i];
+    }
+
+    /** @return the track id at the i-th position */
+    public int getTrackId(int i) {
+        return trackIds[i];
+    }
+
+    /**
+     * @return a copy of the positions. ADD: indexes the tracks were added at. REMOVE: indexes they
+     *     were removed from, in the state before the edit. Ascending, empty for RESET
+     */
+    public int[] getPositions() {
+        return positions.clone();
+    }
+
+    /** @return a copy of the track ids at the positions */
+    public int[] getTrackIds() {
+        return trackIds.clone();
+    }
+
+    /** @param added the added tracks, each carrying the index it was added at */
+    public static PlaylistChange added(String uuid, long version, List<PlaylistTrack> added) {
+        return of(uuid, Type.ADD, version, added);
+    }
+
+    /** @param removed the removed tracks, each carrying the index it was removed from */
+    public static PlaylistChange removed(String uuid, long version, List<PlaylistTrack> removed) {
+        return of(uuid, Type.REMOVE, version, removed);
+    }
+
+    /** An edit whose positions are not described, e.g. a move or an undo */
+    public static PlaylistChange reset(String uuid, long version) {
+        return new PlaylistChange(uuid, Type.RESET, version, new int[0], new int[0]);
+    }
+
+    private static PlaylistChange of(
+            String uuid, Type type, long version, List<PlaylistTrack> tracks) {
+        int[] positions = new int[tracks.size()];
+        int[] trackIds = new int[tracks.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = tracks.get(i).getIndex();
+            trackIds[i] = tracks.get(i).getTrackId();
+        }
+        return new PlaylistChange(uuid, type, version, positions, trackIds);
+    }
+}
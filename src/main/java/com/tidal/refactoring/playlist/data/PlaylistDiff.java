@@ -0,0 +1,30 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * What one atomically applied list of {@link PlaylistEdit}s changed, enough for a client holding
+ * the playlist at {@code fromVersion} to replay it instead of reading all tracks again.
+ */
+@Getter
+@AllArgsConstructor
+public class PlaylistDiff {
+
+    /* Snapshot versions the edits were applied to and published as */
+    private final long fromVersion;
+    private final long toVersion;
+
+    /* The edits as applied, insertion indexes resolved to where the tracks went */
+    private final List<PlaylistEdit> edits;
+
+    /* In edit order, each track carrying its index right after or before its own edit */
+    private final List<PlaylistTrack> added;
+    private final List<PlaylistTrack> removed;
+
+    /* State after the edits */
+    private final int nrOfTracks;
+    private final long durationMillis;
+}
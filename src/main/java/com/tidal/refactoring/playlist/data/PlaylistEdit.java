@@ -0,0 +1,75 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One insert, remove, move or replace of tracks, to be applied to a playlist together with other
+ * edits by {@code PlaylistService#applyEdits}. Indexes refer to the tracks as the edits before it
+ * in the same list left them.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PlaylistEdit {
+
+    public enum Type {
+        INSERT,
+        REMOVE,
+        MOVE,
+        REPLACE
+    }
+
+    private final Type type;
+
+    /* INSERT: insertion index. REMOVE, MOVE: first index of the range. REPLACE: replaced index */
+    private final int index;
+
+    /* REMOVE, MOVE: number of consecutive tracks */
+    private final int count;
+
+    /* MOVE: index of the first moved track once moved */
+    private final int toIndex;
+
+    /* INSERT: tracks to add. REPLACE: the one replacing track */
+    private final List<Track> tracks;
+
+    /** Same as {@code PlaylistService#addTracks}, -1 or an index past the end appends */
+    public static PlaylistEdit insert(int index, List<Track> tracks) {
+        return new PlaylistEdit(Type.INSERT, index, 0, 0, tracks);
+    }
+
+    /** Same as {@code PlaylistService#removeRange(uuid, index, index + count)} */
+    public static PlaylistEdit remove(int index, int count) {
+        return new PlaylistEdit(Type.REMOVE, index, count, 0, null);
+    }
+
+    /**
+     * Moves {@code count} consecutive tracks from {@code fromIndex}, keeping their order
+     *
+     * @param toIndex index of the first moved track once moved, counted without the moved tracks
+     */
+    public static PlaylistEdit move(int fromIndex, int count, int toIndex) {
+        return new PlaylistEdit(Type.MOVE, fromIndex, count, toIndex, null);
+    }
+
+    /** Puts {@code track} in place of the track at {@code index} */
+    public static PlaylistEdit replace(int index, Track track) {
+        return new PlaylistEdit(Type.REPLACE, index, 1, 0, Collections.singletonList(track));
+    }
+
+    /** @return number of tracks the edit adds minus the number it removes */
+    public int sizeDelta() {
+        switch (type) {
+            case INSERT:
+                return tracks.size();
+            case REMOVE:
+                return -count;
+            default:
+                return 0;
+        }
+    }
+}
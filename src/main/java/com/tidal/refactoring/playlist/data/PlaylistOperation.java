@@ -0,0 +1,38 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/** One add or remove of tracks, to be applied to a playlist as part of a batch */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PlaylistOperation {
+
+    public enum Type {
+        ADD,
+        REMOVE
+    }
+
+    private final String uuid;
+    private final Type type;
+
+    /* Set for ADD operations */
+    private final List<Track> tracks;
+    private final int insertionIndex;
+
+    /* Set for REMOVE operations */
+    private final List<Integer> indexes;
+
+    /** Same as {@code PlaylistService#addTracks}, applied as part of a batch */
+    public static PlaylistOperation addTracks(String uuid, List<Track> tracks, int insertionIndex) {
+        return new PlaylistOperation(uuid, Type.ADD, tracks, insertionIndex, null);
+    }
+
+    /** Same as {@code PlaylistService#removeTracks}, applied as part of a batch */
+    public static PlaylistOperation removeTracks(String uuid, List<Integer> indexes) {
+        return new PlaylistOperation(uuid, Type.REMOVE, null, 0, indexes);
+    }
+}
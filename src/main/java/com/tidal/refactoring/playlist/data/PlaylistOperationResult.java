@@ -0,0 +1,39 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/** Outcome of one {@link PlaylistOperation} of a batch */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PlaylistOperationResult {
+
+    private final PlaylistOperation operation;
+
+    /* The tracks the single add or remove call would have returned, null on failure */
+    private final List<PlaylistTrack> tracks;
+
+    /* Why the operation was rejected, null on success */
+    private final RuntimeException error;
+
+    public static PlaylistOperationResult success(
+            PlaylistOperation operation, List<PlaylistTrack> tracks) {
+        return new PlaylistOperationResult(operation, tracks, null);
+    }
+
+    public static PlaylistOperationResult failure(
+            PlaylistOperation operation, RuntimeException error) {
+        return new PlaylistOperationResult(operation, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public String getUuid() {
+        return operation.getUuid();
+    }
+}
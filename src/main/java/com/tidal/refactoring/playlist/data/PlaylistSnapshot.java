@@ -0,0 +1,102 @@
+package com.tidal.refactoring.playlist.data;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Immutable, consistent view of the mutable state of a {@link Playlist}: its tracks, track count
+ * and duration at one version. Every published change produces a new snapshot with a higher
+ * version, so readers holding a snapshot never observe a half-applied edit.
+ *
+ * <p>Duration is kept in whole milliseconds, so it can be updated by a delta on every edit
+ * without the drift of repeated float arithmetic.
+ *
+ * <p>The {@link TrackIdIndex} of the tracks is built on first use. Edits carry a built index over
+ * to the next snapshot updated by their own tracks, playlists never queried by track id never
+ * build one.
+ */
+@Getter
+public final class PlaylistSnapshot {
+
+    private final long version;
+    private final TrackSequence tracks;
+    private final int nrOfTracks;
+    private final long durationMillis;
+
+    /* Racy but idempotent: two readers may both build it, either result is the same */
+    @Getter(AccessLevel.NONE)
+    private volatile TrackIdIndex trackIds;
+
+    public PlaylistSnapshot(
+            long version, TrackSequence tracks, int nrOfTracks, long durationMillis) {
+        this(version, tracks, nrOfTracks, durationMillis, null);
+    }
+
+    /** @param trackIds index of {@code tracks}, built on first use if null */
+    public PlaylistSnapshot(
+            long version,
+            TrackSequence tracks,
+            int nrOfTracks,
+            long durationMillis,
+            TrackIdIndex trackIds) {
+        this.version = version;
+        this.tracks = tracks != null ? tracks : TrackSequence.empty();
+        this.nrOfTracks = nrOfTracks;
+        this.durationMillis = durationMillis;
+        this.trackIds = trackIds;
+    }
+
+    /** @return the duration in seconds */
+    public float getDuration() {
+        return durationMillis / 1000f;
+    }
+
+    /**
+     * @return true when the stored duration equals the summed durations of the tracks, O(1) since
+     *     the sequence keeps that sum
+     */
+    public boolean isDurationConsistent() {
+        return durationMillis == tracks.getDurationMillis();
+    }
+
+    /** @return the track ids of the tracks, O(n) on the first call and O(1) afterwards */
+    public TrackIdIndex getTrackIds() {
+        TrackIdIndex index = trackIds;
+        if (index == null) {
+            index = TrackIdIndex.of(tracks);
+            trackIds = index;
+        }
+        return index;
+    }
+
+    /** @return the track ids if already built, null otherwise, see {@link #getTrackIds()} */
+    public TrackIdIndex getTrackIdsIfBuilt() {
+        return trackIds;
+    }
+
+    /** @return the snapshot following this one, holding the given state */
+    public PlaylistSnapshot next(TrackSequence tracks, int nrOfTracks, long durationMillis) {
+        return next(tracks, nrOfTracks, durationMillis, null);
+    }
+
+    /**
+     * @param trackIds index of {@code tracks}, built on first use if null
+     * @return the snapshot following this one, holding the given state
+     */
+    public PlaylistSnapshot next(
+            TrackSequence tracks, int nrOfTracks, long durationMillis, TrackIdIndex trackIds) {
+        return new PlaylistSnapshot(version + 1, tracks, nrOfTracks, durationMillis, trackIds);
+    }
+
+    public PlaylistSnapshot withTracks(TrackSequence tracks) {
+        return next(tracks, nrOfTracks, durationMillis);
+    }
+
+    public PlaylistSnapshot withNrOfTracks(int nrOfTracks) {
+        return next(tracks, nrOfTracks, durationMillis, trackIds);
+    }
+
+    public PlaylistSnapshot withDurationMillis(long durationMillis) {
+        return next(tracks, nrOfTracks, durationMillis, trackIds);
+    }
+}
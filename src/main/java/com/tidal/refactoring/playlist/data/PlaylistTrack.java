@@ -13,7 +13,10 @@ public class PlaylistTrack implements Comparable<PlaylistTrack> {
 
   private Integer id;
   private Playlist playlist;
-  private int index;
+
+  /* Position at the time the track was stored, see TrackSequence for the current one */
+  @With private int index;
+
   private LocalDate dateAdded;
   private int trackId;
 
@@ -12,4 +12,9 @@ public class Track {
   private String title;
   private float duration;
   private int artistId;
+
+  /** @return the duration in whole milliseconds, exact to add and subtract */
+  public long getDurationMillis() {
+    return Math.round(duration * 1000d);
+  }
 }
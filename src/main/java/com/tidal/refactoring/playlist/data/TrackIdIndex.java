@@ -0,0 +1,185 @@
+package com.tidal.refactoring.playlist.data;
+
+/**
+ * Immutable multiset of the track ids of a {@link TrackSequence}: how often each track id occurs.
+ * Lookups take O(1), adding or removing one occurrence returns a new index sharing all but one
+ * path with this one, so every edit updates it by its own tracks only.
+ *
+ * <p>A hash array mapped trie: every level branches on 5 bits of a bijective mix of the id, so
+ * two ids never collide and the trie is at most 7 levels deep. Positions are not indexed, they
+ * shift with every insert and are derived by the sequence instead.
+ */
+public final class TrackIdIndex {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final TrackIdIndex EMPTY = new TrackIdIndex(null, 0);
+
+    private final Node root;
+    private final int distinct;
+
+    private TrackIdIndex(Node root, int distinct) {
+        this.root = root;
+        this.distinct = distinct;
+    }
+
+    public static TrackIdIndex empty() {
+        return EMPTY;
+    }
+
+    /** @return the index of the track ids of {@code tracks}. O(n) */
+    public static TrackIdIndex of(TrackSequence tracks) {
+        TrackIdIndex index = EMPTY;
+        for (PlaylistTrack track : tracks) index = index.add(track.getTrackId());
+        return index;
+    }
+
+    /** @return occurrences of {@code trackId}, 0 when absent */
+    public int count(int trackId) {
+        int hash = mix(trackId);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return 0;
+
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.trackId == trackId ? entry.count : 0;
+            }
+            node = (Node) slot;
+        }
+        return 0;
+    }
+
+    public boolean contains(int trackId) {
+        return count(trackId) > 0;
+    }
+
+    /** @return number of different track ids */
+    public int distinct() {
+        return distinct;
+    }
+
+    /** @return this index with one more occurrence of {@code trackId} */
+    public TrackIdIndex add(int trackId) {
+        return update(trackId, 1);
+    }
+
+    /** @return this index with one occurrence of {@code trackId} less, this if absent */
+    public TrackIdIndex remove(int trackId) {
+        return update(trackId, -1);
+    }
+
+    private TrackIdIndex update(int trackId, int delta) {
+        int before = count(trackId);
+        if (before + delta < 0) return this;
+
+        Node updated = update(root, mix(trackId), 0, trackId, before + delta);
+        int change = (before == 0 ? 1 : 0) - (before + delta == 0 ? 1 : 0);
+        return new TrackIdIndex(updated, distinct + change);
+    }
+
+    /* Sets the count of {@code trackId} below {@code node}, removing it at 0. Null when empty */
+    private static Node update(Node node, int hash, int shift, int trackId, int count) {
+        if (node == null) {
+            return count == 0 ? null : Node.of(hash, shift, new Entry(trackId, count));
+        }
+
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int position = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            return count == 0 ? node : node.inserted(bit, position, new Entry(trackId, count));
+        }
+
+        Object slot = node.slots[position];
+        if (slot instanceof Entry) {
+            Entry entry = (Entry) slot;
+            if (entry.trackId == trackId) {
+                return count == 0
+                        ? node.removed(bit, position)
+                        : node.replaced(position, new Entry(trackId, count));
+            }
+            if (count == 0) return node;
+
+            /* Another id shares these bits so far, push both a level down */
+            Node pair =
+                    Node.of(mix(entry.trackId), shift + BITS, entry)
+                            .inserting(hash, shift + BITS, new Entry(trackId, count));
+            return node.replaced(position, pair);
+        }
+
+        Node child = update((Node) slot, hash, shift + BITS, trackId, count);
+        if (child == slot) return node;
+        return child == null ? node.removed(bit, position) : node.replaced(position, child);
+    }
+
+    /* Multiplying by an odd constant is a bijection of the ints, spreading sequential ids */
+    private static int mix(int trackId) {
+        return trackId * 0x9E3779B9;
+    }
+
+    private static final class Entry {
+        private final int trackId;
+        private final int count;
+
+        private Entry(int trackId, int count) {
+            this.trackId = trackId;
+            this.count = count;
+        }
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private static Node of(int hash, int shift, Entry entry) {
+            return new Node(1 << ((hash >>> shift) & MASK), new Object[] {entry});
+        }
+
+        /* Adds an entry for an id absent below this node, which holds exactly one entry */
+        private Node inserting(int hash, int shift, Entry entry) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return inserted(bit, Integer.bitCount(bitmap & (bit - 1)), entry);
+            }
+            Entry existing = (Entry) slots[0];
+            return new Node(
+                    bitmap,
+                    new Object[] {
+                        of(mix(existing.trackId), shift + BITS, existing)
+                                .inserting(hash, shift + BITS, entry)
+                    });
+        }
+
+        private Node inserted(int bit, int position, Object slot) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, position);
+            copy[position] = slot;
+            System.arraycopy(slots, position, copy, position + 1, slots.length - position);
+            return new Node(bitmap | bit, copy);
+        }
+
+        private Node replaced(int position, Object slot) {
+            Object[] copy = slots.clone();
+            copy[position] = slot;
+            return new Node(bitmap, copy);
+        }
+
+        /* Null when the last slot goes */
+        private Node removed(int bit, int position) {
+            if (slots.length == 1) return null;
+
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, position);
+            System.arraycopy(slots, position + 1, copy, position, copy.length - position);
+            return new Node(bitmap & ~bit, copy);
+        }
+    }
+}
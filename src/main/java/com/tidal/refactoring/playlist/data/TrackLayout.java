@@ -0,0 +1,41 @@
+package com.tidal.refactoring.playlist.data;
+
+import java.util.Collection;
+
+/** How the tracks of a playlist are stored, see {@link Playlist#getTrackLayout()} */
+public enum TrackLayout {
+
+    /** Persistent AVL tree: O(log n) edits sharing all untouched nodes, ~120 bytes per track */
+    TREE {
+        @Override
+        public TrackSequence empty() {
+            return TreeTrackSequence.EMPTY;
+        }
+
+        @Override
+        public TrackSequence of(Collection<PlaylistTrack> tracks) {
+            return TreeTrackSequence.of(tracks);
+        }
+    },
+
+    /**
+     * Parallel primitive arrays: O(n) copying edits, 16 bytes per track. Suits the many resident
+     * playlists that are read far more often than edited
+     */
+    COMPACT {
+        @Override
+        public TrackSequence empty() {
+            return CompactTrackSequence.EMPTY;
+        }
+
+        @Override
+        public TrackSequence of(Collection<PlaylistTrack> tracks) {
+            return CompactTrackSequence.of(tracks);
+        }
+    };
+
+    public abstract TrackSequence empty();
+
+    /** @return a sequence in this layout holding the tracks in iteration order */
+    public abstract TrackSequence of(Collection<PlaylistTrack> tracks);
+}
@@ -0,0 +1,115 @@
+package com.tidal.refactoring.playlist.data;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Positional sequence of {@link PlaylistTrack}s.
+ *
+ * <p>Sequences are immutable: every edit returns a new sequence of the same {@link TrackLayout}.
+ * Tracks handed out by {@link #get(int)} and by iteration always carry their current position.
+ */
+public interface TrackSequence extends Iterable<PlaylistTrack> {
+
+    /** @return an empty sequence in the default {@link TrackLayout#TREE} layout */
+    static TrackSequence empty() {
+        return TrackLayout.TREE.empty();
+    }
+
+    /** @return a sequence in the default {@link TrackLayout#TREE} layout, in iteration order */
+    static TrackSequence of(Collection<PlaylistTrack> tracks) {
+        return TrackLayout.TREE.of(tracks);
+    }
+
+    TrackLayout getLayout();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** @return the summed durations of all tracks in milliseconds */
+    long getDurationMillis();
+
+    /** @return the track at {@code index}, carrying that index */
+    PlaylistTrack get(int index);
+
+    /** @return a sequence with {@code track} inserted at {@code index}, shifting later tracks */
+    TrackSequence insert(int index, PlaylistTrack track);
+
+    /**
+     * @return a sequence with {@code tracks} inserted in order from {@code index}, shifting later
+     *     tracks, as by one {@link #insert} per track but without the intermediate sequences
+     */
+    TrackSequence insertAll(int index, List<PlaylistTrack> tracks);
+
+    /** @return a sequence without the track at {@code index} */
+    TrackSequence remove(int index);
+
+    /**
+     * Removes the tracks at the set positions, positions past the end are ignored.
+     *
+     * @param removed receives each removed track, carrying the index it was removed from
+     * @return a sequence without the tracks at the set positions
+     */
+    TrackSequence removeAll(BitSet positions, Consumer<PlaylistTrack> removed);
+
+    /** @return the tracks from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive */
+    TrackSequence subSequence(int fromIndex, int toIndex);
+
+    /** @return a sequence without the tracks from {@code fromIndex} to {@code toIndex} */
+    TrackSequence removeRange(int fromIndex, int toIndex);
+
+    /**
+     * Moves the tracks from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive, keeping
+     * their order.
+     *
+     * @param targetIndex index of the first moved track in the result, at most {@code size() -
+     *     (toIndex - fromIndex)}
+     * @return a sequence with the same tracks, the moved ones at {@code targetIndex}
+     */
+    TrackSequence move(int fromIndex, int toIndex, int targetIndex);
+
+    /** @return the tracks in order from {@code fromIndex}, each carrying its current index */
+    Iterator<PlaylistTrack> iterator(int fromIndex);
+
+    @Override
+    default Iterator<PlaylistTrack> iterator() {
+        return iterator(0);
+    }
+
+    /** @return a new list of all tracks in order, each carrying its current index */
+    default List<PlaylistTrack> toList() {
+        List<PlaylistTrack> list = new ArrayList<>(size());
+        forEach(list::add);
+        return list;
+    }
+
+    /**
+     * @return a new list of the tracks from {@code fromIndex}, inclusive, to {@code toIndex},
+     *     exclusive, each carrying its index in this sequence. Visits only those tracks
+     */
+    default List<PlaylistTrack> toList(int fromIndex, int toIndex) {
+        if (fromIndex > toIndex || toIndex > size())
+            throw new IndexOutOfBoundsException(
+                    "Range: [" + fromIndex + ", " + toIndex + "), Size: " + size());
+
+        List<PlaylistTrack> list = new ArrayList<>(toIndex - fromIndex);
+        Iterator<PlaylistTrack> iterator = iterator(fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) list.add(iterator.next());
+        return list;
+    }
+
+    /** @return the tracks in order, read lazily from this immutable sequence */
+    default Stream<PlaylistTrack> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(
+                        iterator(),
+                        size(),
+                        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+                false);
+    }
+}
@@ -0,0 +1,363 @@
+package com.tidal.refactoring.playlist.data;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * {@link TrackSequence} backed by a size-augmented AVL tree (an order-statistic tree). Insert-at,
+ * remove-at and get-at run in O(log n).
+ *
+ * <p>Every edit returns a new sequence which shares all untouched nodes with the previous one.
+ * Positions are derived from subtree sizes, so the {@code index} stored on a track is never
+ * rewritten when other tracks move.
+ *
+ * <p>Every node also keeps the summed track duration of its subtree, so the duration of the
+ * whole sequence is known in O(1) and follows every edit at no extra cost.
+ */
+final class TreeTrackSequence implements TrackSequence {
+
+    static final TreeTrackSequence EMPTY = new TreeTrackSequence(null);
+
+    private final Node root;
+
+    private TreeTrackSequence(Node root) {
+        this.root = root;
+    }
+
+    /** Builds a balanced sequence holding the tracks in iteration order. O(n) */
+    static TrackSequence of(Collection<PlaylistTrack> tracks) {
+        if (tracks == null || tracks.isEmpty()) return EMPTY;
+        PlaylistTrack[] array = tracks.toArray(new PlaylistTrack[0]);
+        return new TreeTrackSequence(build(array, 0, array.length));
+    }
+
+    @Override
+    public TrackLayout getLayout() {
+        return TrackLayout.TREE;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /** O(1) */
+    @Override
+    public long getDurationMillis() {
+        return durationMillis(root);
+    }
+
+    @Override
+    public PlaylistTrack get(int index) {
+        checkIndex(index, size());
+        Node node = root;
+        int position = index;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position > leftSize) {
+                position -= leftSize + 1;
+                node = node.right;
+            } else {
+                return positioned(node.track, index);
+            }
+        }
+    }
+
+    @Override
+    public TrackSequence insert(int index, PlaylistTrack track) {
+        checkIndex(index, size() + 1);
+        return new TreeTrackSequence(insert(root, index, track));
+    }
+
+    /** O(W + log(N)), the tracks are built into one subtree and joined in */
+    @Override
+    public TrackSequence insertAll(int index, List<PlaylistTrack> tracks) {
+        checkIndex(index, size() + 1);
+        if (tracks.isEmpty()) return this;
+
+        PlaylistTrack[] array = tracks.toArray(new PlaylistTrack[0]);
+        Node[] parts = split(root, index);
+        return new TreeTrackSequence(
+                concat(concat(parts[0], build(array, 0, array.length)), parts[1]));
+    }
+
+    @Override
+    public TrackSequence remove(int index) {
+        checkIndex(index, size());
+        return new TreeTrackSequence(remove(root, index));
+    }
+
+    /**
+     * Few positions are removed one by one in O(W * log(N)), many are compacted in one O(N) pass
+     */
+    @Override
+    public TrackSequence removeAll(BitSet positions, Consumer<PlaylistTrack> removed) {
+        int size = size();
+        int count = positions.get(0, size).cardinality();
+        if (count == 0) return this;
+
+        if ((long) count * (32 - Integer.numberOfLeadingZeros(size)) < size) {
+            /* Highest position first, so the pending positions are not shifted */
+            TrackSequence result = this;
+            for (int i = positions.previousSetBit(size - 1);
+                    i >= 0;
+                    i = positions.previousSetBit(i - 1)) {
+                removed.accept(result.get(i));
+                result = result.remove(i);
+            }
+            return result;
+        }
+
+        PlaylistTrack[] survivors = new PlaylistTrack[size - count];
+        int kept = 0;
+        int position = 0;
+        for (Iterator<PlaylistTrack> iterator = storedIterator(); iterator.hasNext(); position++) {
+            PlaylistTrack track = iterator.next();
+            if (positions.get(position)) {
+                removed.accept(positioned(track, position));
+            } else {
+                survivors[kept++] = track;
+            }
+        }
+        return new TreeTrackSequence(build(survivors, 0, survivors.length));
+    }
+
+    /** O(log(n)) */
+    @Override
+    public TrackSequence subSequence(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        return new TreeTrackSequence(split(split(root, toIndex)[0], fromIndex)[1]);
+    }
+
+    /** O(log(n)) */
+    @Override
+    public TrackSequence removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return this;
+        return new TreeTrackSequence(concat(split(root, fromIndex)[0], split(root, toIndex)[1]));
+    }
+
+    /** O(log(n)), the moved tracks are split off and joined back in as one subtree */
+    @Override
+    public TrackSequence move(int fromIndex, int toIndex, int targetIndex) {
+        checkRange(fromIndex, toIndex);
+        checkIndex(targetIndex, size() - (toIndex - fromIndex) + 1);
+        if (fromIndex == targetIndex || fromIndex == toIndex) return this;
+
+        Node[] head = split(root, fromIndex);
+        Node[] moved = split(head[1], toIndex - fromIndex);
+        Node[] rest = split(concat(head[0], moved[1]), targetIndex);
+        return new TreeTrackSequence(concat(concat(rest[0], moved[0]), rest[1]));
+    }
+
+    /** O(log(n)) to position, then O(1) amortized per track */
+    @Override
+    public Iterator<PlaylistTrack> iterator(int fromIndex) {
+        checkIndex(fromIndex, size() + 1);
+        return new Iterator<PlaylistTrack>() {
+            private final Deque<Node> path = new ArrayDeque<>();
+            private int position = fromIndex;
+
+            {
+                /* Keep the ancestors still to be visited, as if iterated up to fromIndex */
+                Node node = root;
+                int remaining = fromIndex;
+                while (node != null) {
+                    int leftSize = size(node.left);
+                    if (remaining <= leftSize) {
+                        path.push(node);
+                        if (remaining == leftSize) break;
+                        node = node.left;
+                    } else {
+                        remaining -= leftSize + 1;
+                        node = node.right;
+                    }
+                }
+            }
+
+            private void descendLeft(Node node) {
+                for (; node != null; node = node.left) path.push(node);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public PlaylistTrack next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                Node node = path.pop();
+                descendLeft(node.right);
+                return positioned(node.track, position++);
+            }
+        };
+    }
+
+    /* In-order iterator over the tracks as stored, without deriving their index */
+    private Iterator<PlaylistTrack> storedIterator() {
+        return new Iterator<PlaylistTrack>() {
+            private final Deque<Node> path = new ArrayDeque<>();
+
+            {
+                for (Node node = root; node != null; node = node.left) path.push(node);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public PlaylistTrack next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                Node node = path.pop();
+                for (Node child = node.right; child != null; child = child.left) path.push(child);
+                return node.track;
+            }
+        };
+    }
+
+    /* Stored indexes are not maintained, hand out a copy only when the stored one is stale */
+    private static PlaylistTrack positioned(PlaylistTrack track, int index) {
+        return track.getIndex() == index ? track : track.withIndex(index);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (bound - 1));
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())
+            throw new IndexOutOfBoundsException(
+                    "Range: [" + fromIndex + ", " + toIndex + "), Size: " + size());
+    }
+
+    /* ---------------------------- AVL tree --------------------------------*/
+
+    private static final class Node {
+        final PlaylistTrack track;
+        final Node left;
+        final Node right;
+        final int size;
+        final int height;
+        final long durationMillis;
+
+        Node(PlaylistTrack track, Node left, Node right) {
+            this.track = track;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.durationMillis =
+                    durationMillis(left) + durationMillis(right) + durationMillis(track);
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long durationMillis(Node node) {
+        return node == null ? 0 : node.durationMillis;
+    }
+
+    private static long durationMillis(PlaylistTrack track) {
+        return track != null && track.getTrack() != null ? track.getTrack().getDurationMillis() : 0;
+    }
+
+    private static Node build(PlaylistTrack[] tracks, int from, int to) {
+        if (from >= to) return null;
+        int mid = (from + to) >>> 1;
+        return new Node(tracks[mid], build(tracks, from, mid), build(tracks, mid + 1, to));
+    }
+
+    private static Node insert(Node node, int index, PlaylistTrack track) {
+        if (node == null) return new Node(track, null, null);
+        int leftSize = size(node.left);
+        if (index <= leftSize)
+            return balance(node.track, insert(node.left, index, track), node.right);
+        return balance(node.track, node.left, insert(node.right, index - leftSize - 1, track));
+    }
+
+    private static Node remove(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) return balance(node.track, remove(node.left, index), node.right);
+        if (index > leftSize)
+            return balance(node.track, node.left, remove(node.right, index - leftSize - 1));
+
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        return balance(first(node.right), node.left, remove(node.right, 0));
+    }
+
+    private static PlaylistTrack first(Node node) {
+        while (node.left != null) node = node.left;
+        return node.track;
+    }
+
+    /* Splits into the first {@code index} tracks and the rest. O(log(N)) */
+    private static Node[] split(Node node, int index) {
+        if (node == null) return new Node[] {null, null};
+
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            Node[] parts = split(node.left, index);
+            return new Node[] {parts[0], join(parts[1], node.track, node.right)};
+        }
+        Node[] parts = split(node.right, index - leftSize - 1);
+        return new Node[] {join(node.left, node.track, parts[0]), parts[1]};
+    }
+
+    /* All of left, then pivot, then all of right. O(|height(left) - height(right)|) */
+    private static Node join(Node left, PlaylistTrack pivot, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1)
+            return balance(left.track, left.left, join(left.right, pivot, right));
+        if (rightHeight > leftHeight + 1)
+            return balance(right.track, join(left, pivot, right.left), right.right);
+        return new Node(pivot, left, right);
+    }
+
+    private static Node concat(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        return join(left, first(right), remove(right, 0));
+    }
+
+    /* Rebuilds a node from its parts, applying at most a double rotation to restore balance */
+    private static Node balance(PlaylistTrack track, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right))
+                return new Node(left.track, left.left, new Node(track, left.right, right));
+            Node pivot = left.right;
+            return new Node(
+                    pivot.track,
+                    new Node(left.track, left.left, pivot.left),
+                    new Node(track, pivot.right, right));
+        }
+
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left))
+                return new Node(right.track, new Node(track, left, right.left), right.right);
+            Node pivot = right.left;
+            return new Node(
+                    pivot.track,
+                    new Node(track, left, pivot.left),
+                    new Node(right.track, pivot.right, right.right));
+        }
+
+        return new Node(track, left, right);
+    }
+}
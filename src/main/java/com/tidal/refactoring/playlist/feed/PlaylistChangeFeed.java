@@ -0,0 +1,219 @@
+package com.tidal.refactoring.playlist.feed;
+
+import com.tidal.refactoring.playlist.data.PlaylistChange;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
+import lombok.Builder;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Flow.Publisher} of the {@link PlaylistChange}s of every published edit, for caches and
+ * indexers that follow playlists instead of polling them. Register it as the {@link
+ * PlaylistChangeListener} of the services, next to other listeners through {@link
+ * PlaylistChangeListener#of}.
+ *
+ * <p>Every subscriber has a bounded buffer and gets changes in batches, one batch per requested
+ * item, on the executor. Editing threads only append to the buffers, a slow subscriber never
+ * blocks them. When a buffer is full its changes are conflated: all pending changes of a playlist
+ * become one {@link PlaylistChange.Type#RESET} at the latest version. A subscriber lagging behind
+ * on more playlists than its buffer holds is failed with an {@link IllegalStateException} rather
+ * than silently missing changes.
+ *
+ * <p>Changes of one playlist are delivered in the order they were published if its edits are
+ * serialized, e.g. by a {@code StripedLockingPlaylistService}. A subscriber reading a playlist
+ * after a RESET should skip later changes with a version at or below the one it read.
+ */
+public class PlaylistChangeFeed
+        implements PlaylistChangeListener, Flow.Publisher<List<PlaylistChange>>, AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final int maxBatchSize;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param executor delivers the changes, the common pool if not set
+     * @param bufferSize changes buffered per subscriber before they are conflated, 1024 if not set
+     * @param maxBatchSize changes per delivered batch, 64 if not set
+     */
+    @Builder
+    public PlaylistChangeFeed(Executor executor, int bufferSize, int maxBatchSize) {
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        this.bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<PlaylistChange>> subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscriptions.add(subscription);
+        /* A close racing with the add above may have missed this subscription */
+        if (closed) subscription.complete();
+    }
+
+    @Override
+    public void changed(PlaylistChange change) {
+        for (Subscription subscription : subscriptions) subscription.offer(change);
+    }
+
+    /** @return subscribers not yet cancelled, failed or completed */
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** Completes every subscriber once it has received its buffered changes */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) subscription.complete();
+    }
+
+    /** Buffer and demand of one subscriber, drained by at most one task at a time */
+    private class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super List<PlaylistChange>> subscriber;
+
+        /* Guarded by this */
+        private final ArrayDeque<PlaylistChange> buffer = new ArrayDeque<>();
+        private long requested;
+        private boolean completed;
+        private Throwable failure;
+        private boolean done;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscription(Flow.Subscriber<? super List<PlaylistChange>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("non-positive request: " + n));
+                } else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void offer(PlaylistChange change) {
+            synchronized (this) {
+                if (done || completed || failure != null) return;
+                if (buffer.size() == bufferSize) conflate();
+                if (buffer.size() == bufferSize) {
+                    fail(
+                            new IllegalStateException(
+                                    "Subscriber behind on more than " + bufferSize + " playlists"));
+                } else {
+                    buffer.addLast(change);
+                }
+            }
+            schedule();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        /* Guarded by this. Pending changes are dropped, the error is delivered next */
+        private void fail(Throwable e) {
+            if (failure == null) failure = e;
+            buffer.clear();
+        }
+
+        /* Guarded by this. One RESET per playlist at its latest version, in first-seen order */
+        private void conflate() {
+            Map<String, Long> latest = new LinkedHashMap<>();
+            for (PlaylistChange change : buffer) {
+                latest.merge(change.getUuid(), change.getVersion(), Math::max);
+            }
+            buffer.clear();
+            latest.forEach((uuid, version) -> buffer.addLast(PlaylistChange.reset(uuid, version)));
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                cancel();
+                subscriber.onError(e);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<PlaylistChange> batch;
+                    Throwable error;
+                    boolean complete;
+                    synchronized (this) {
+                        if (done) return;
+                        error = failure;
+                        complete = completed && buffer.isEmpty();
+                        batch = null;
+                        if (error == null && !complete) {
+                            if (requested == 0 || buffer.isEmpty()) return;
+                            batch = new ArrayList<>(Math.min(buffer.size(), maxBatchSize));
+                            while (batch.size() < maxBatchSize && !buffer.isEmpty()) {
+                                batch.add(buffer.pollFirst());
+                            }
+                            if (requested != Long.MAX_VALUE) requested--;
+                        }
+                    }
+
+                    if (batch == null) {
+                        cancel();
+                        if (error != null) subscriber.onError(error);
+                        else subscriber.onComplete();
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(Collections.unmodifiableList(batch));
+                    } catch (RuntimeException e) {
+                        /* A throwing subscriber is treated as cancelled */
+                        cancel();
+                        return;
+                    }
+                }
+            } finally {
+                /* Changes and requests arriving after the last check saw the drain scheduled */
+                scheduled.set(false);
+                if (hasWork()) schedule();
+            }
+        }
+
+        private synchronized boolean hasWork() {
+            return !done
+                    && (failure != null
+                            || (completed && buffer.isEmpty())
+                            || (requested > 0 && !buffer.isEmpty()));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.tidal.refactoring.playlist.history;
+
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import lombok.Builder;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded per-playlist history of published {@link PlaylistSnapshot}s, backing undo, redo and
+ * reads of earlier versions. Snapshots are immutable and a {@code TREE} sequence shares all
+ * untouched nodes with the one before, so each retained version costs O(log n) nodes rather than
+ * a copy of the tracks. {@code COMPACT} sequences copy on every edit and get no such sharing.
+ *
+ * <p>Every playlist keeps at most {@code maxVersions} published versions and as many undo and
+ * redo steps, the oldest are dropped first. A new edit clears the redo steps. Undo and redo
+ * publish the restored state as a new version, versions only ever go up.
+ *
+ * <p>Every step is keyed by the version it applies to and restores the state published before
+ * that version, so edits may report here in any order: the lock-free services report after their
+ * compare-and-set, and a later version can be recorded before an earlier one.
+ *
+ * <p>Edits published without this history, e.g. by a service built without it or by a journal
+ * replay, leave the playlist at a version no step applies to: undo and redo then find nothing
+ * rather than discard those edits.
+ */
+public class PlaylistHistory {
+    private static final int DEFAULT_MAX_VERSIONS = 50;
+
+    /** Keeps nothing, the default of the services: nothing can be undone */
+    public static final PlaylistHistory NONE = new PlaylistHistory();
+
+    private final int maxVersions;
+
+    private final ConcurrentHashMap<String, Versions> playlists = new ConcurrentHashMap<>();
+
+    private PlaylistHistory() {
+        this.maxVersions = 0;
+    }
+
+    /** @param maxVersions versions, undo and redo steps kept per playlist, 50 if not set */
+    @Builder
+    public PlaylistHistory(int maxVersions) {
+        this.maxVersions = maxVersions > 0 ? maxVersions : DEFAULT_MAX_VERSIONS;
+    }
+
+    /** Records an edit that replaced {@code previous} by {@code next} */
+    public void recordEdit(String uuid, PlaylistSnapshot previous, PlaylistSnapshot next) {
+        if (maxVersions == 0) return;
+
+        Versions versions = playlists.computeIfAbsent(uuid, key -> new Versions());
+        synchronized (versions) {
+            versions.publish(previous, next);
+            put(versions.undo, next.getVersion(), previous);
+            /* A new edit drops the redo steps, those of later versions were not replaced yet */
+            versions.redo.headMap(next.getVersion(), true).clear();
+        }
+    }
+
+    /**
+     * @param current the state of the playlist the undo would replace
+     * @return the state the next undo restores, null if there is none or the playlist was edited
+     *     without this history since
+     */
+    public PlaylistSnapshot undoTarget(String uuid, PlaylistSnapshot current) {
+        return peek(uuid, current, true);
+    }
+
+    /** Same as {@link #undoTarget} for redo */
+    public PlaylistSnapshot redoTarget(String uuid, PlaylistSnapshot current) {
+        return peek(uuid, current, false);
+    }
+
+    /**
+     * Records that {@code target}, taken from {@link #undoTarget}, was restored: {@code previous}
+     * was replaced by {@code next}, a copy of {@code target}
+     */
+    public void recordUndo(
+            String uuid,
+            PlaylistSnapshot target,
+            PlaylistSnapshot previous,
+            PlaylistSnapshot next) {
+        Versions versions = playlists.get(uuid);
+        if (versions == null) return;
+        synchronized (versions) {
+            versions.publish(previous, next);
+            step(versions.undo, target, previous, next);
+            put(versions.redo, next.getVersion(), previous);
+        }
+    }
+
+    /** Same as {@link #recordUndo} for a {@code target} taken from {@link #redoTarget} */
+    public void recordRedo(
+            String uuid,
+            PlaylistSnapshot target,
+            PlaylistSnapshot previous,
+            PlaylistSnapshot next) {
+        Versions versions = playlists.get(uuid);
+        if (versions == null) return;
+        synchronized (versions) {
+            versions.publish(previous, next);
+            step(versions.redo, target, previous, next);
+            put(versions.undo, next.getVersion(), previous);
+        }
+    }
+
+    /** @return the retained snapshot with the version, null if it was dropped or never seen */
+    public PlaylistSnapshot getVersion(String uuid, long version) {
+        Versions versions = playlists.get(uuid);
+        if (versions == null) return null;
+        synchronized (versions) {
+            return versions.published.get(version);
+        }
+    }
+
+    /** Drops the history of a playlist, e.g. a deleted one */
+    public void forget(String uuid) {
+        playlists.remove(uuid);
+    }
+
+    private PlaylistSnapshot peek(String uuid, PlaylistSnapshot current, boolean undo) {
+        Versions versions = playlists.get(uuid);
+        if (versions == null) return null;
+        synchronized (versions) {
+            return (undo ? versions.undo : versions.redo).get(current.getVersion());
+        }
+    }
+
+    /* Takes the step that restored target, replacing previous by next. The step of the version
+     * target was now applies to next, a copy of it */
+    private static void step(
+            TreeMap<Long, PlaylistSnapshot> steps,
+            PlaylistSnapshot target,
+            PlaylistSnapshot previous,
+            PlaylistSnapshot next) {
+        if (steps.get(previous.getVersion()) != target) return;
+        steps.remove(previous.getVersion());
+        PlaylistSnapshot below = steps.remove(target.getVersion());
+        if (below != null) steps.put(next.getVersion(), below);
+    }
+
+    /* The lowest versions are dropped once full */
+    private void put(
+            TreeMap<Long, PlaylistSnapshot> snapshots, long version, PlaylistSnapshot snapshot) {
+        snapshots.put(version, snapshot);
+        while (snapshots.size() > maxVersions) snapshots.pollFirstEntry();
+    }
+
+    /**
+     * History of one playlist by version, the three maps share their snapshots. An undo or redo
+     * step maps the version it applies to to the state it restores
+     */
+    private class Versions {
+        private final TreeMap<Long, PlaylistSnapshot> published = new TreeMap<>();
+        private final TreeMap<Long, PlaylistSnapshot> undo = new TreeMap<>();
+        private final TreeMap<Long, PlaylistSnapshot> redo = new TreeMap<>();
+
+        private void publish(PlaylistSnapshot previous, PlaylistSnapshot next) {
+            /* The state before an edit is a version too, e.g. before the first recorded one */
+            if (!published.containsKey(previous.getVersion())) {
+                put(published, previous.getVersion(), previous);
+            }
+            put(published, next.getVersion(), next);
+        }
+    }
+}
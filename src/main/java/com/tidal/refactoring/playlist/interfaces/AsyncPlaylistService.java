@@ -0,0 +1,18 @@
+package com.tidal.refactoring.playlist.interfaces;
+
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/** Non-blocking variant of {@link PlaylistService}, failures complete the future exceptionally */
+public interface AsyncPlaylistService {
+
+    /** @see PlaylistService#addTracks(String, List, int) */
+    CompletableFuture<List<PlaylistTrack>> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex);
+
+    /** @see PlaylistService#removeTracks(String, List) */
+    CompletableFuture<List<PlaylistTrack>> removeTracks(String uuid, List<Integer> indexes);
+}
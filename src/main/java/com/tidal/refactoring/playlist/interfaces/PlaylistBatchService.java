@@ -0,0 +1,19 @@
+package com.tidal.refactoring.playlist.interfaces;
+
+import com.tidal.refactoring.playlist.data.PlaylistOperation;
+import com.tidal.refactoring.playlist.data.PlaylistOperationResult;
+
+import java.util.List;
+
+public interface PlaylistBatchService {
+
+    /**
+     * Applies add and remove operations to many playlists in one call. Playlists are looked up in
+     * bulk, operations on the same playlist are applied in the given order, and a failing
+     * operation does not abort the others.
+     *
+     * @param operations operations to apply
+     * @return one result per operation, in the order of the operations
+     */
+    List<PlaylistOperationResult> apply(List<PlaylistOperation> operations);
+}
@@ -0,0 +1,63 @@
+package com.tidal.refactoring.playlist.interfaces;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistChange;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+
+import java.util.List;
+
+/**
+ * Told about every edit of a playlist right after it is published, on the thread that made it.
+ * Edits of different playlists are reported concurrently, implementations must be thread safe.
+ * All methods default to doing nothing.
+ */
+public interface PlaylistChangeListener {
+
+    /** Listens to nothing, the default of the services */
+    PlaylistChangeListener NONE = new PlaylistChangeListener() {};
+
+    /**
+     * Lets a service, which takes one listener, tell several, e.g. a {@code PlaylistChangeFeed}
+     * and a {@code TrackReverseIndex}.
+     *
+     * @return a listener telling each of {@code listeners} in the given order. A failing listener
+     *     fails the report, the ones after it are not told
+     */
+    static PlaylistChangeListener of(PlaylistChangeListener... listeners) {
+        PlaylistChangeListener[] all = listeners.clone();
+        if (all.length == 0) return NONE;
+        if (all.length == 1) return all[0];
+
+        return new PlaylistChangeListener() {
+            @Override
+            public void tracksAdded(Playlist playlist, List<PlaylistTrack> added) {
+                for (PlaylistChangeListener listener : all) listener.tracksAdded(playlist, added);
+            }
+
+            @Override
+            public void tracksRemoved(Playlist playlist, List<PlaylistTrack> removed) {
+                for (PlaylistChangeListener listener : all) {
+                    listener.tracksRemoved(playlist, removed);
+                }
+            }
+
+            @Override
+            public void changed(PlaylistChange change) {
+                for (PlaylistChangeListener listener : all) listener.changed(change);
+            }
+        };
+    }
+
+    /** @param added the added tracks, each carrying the index it was added at */
+    default void tracksAdded(Playlist playlist, List<PlaylistTrack> added) {}
+
+    /** @param removed the removed tracks, each carrying the index it was removed from */
+    default void tracksRemoved(Playlist playlist, List<PlaylistTrack> removed) {}
+
+    /**
+     * Told once per published edit that changed the tracks, after {@link #tracksAdded} and
+     * {@link #tracksRemoved}. Edit lists and undo or redo are told as {@link
+     * PlaylistChange.Type#RESET}, their positions do not apply one after the other
+     */
+    default void changed(PlaylistChange change) {}
+}
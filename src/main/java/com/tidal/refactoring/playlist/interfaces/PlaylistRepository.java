@@ -2,10 +2,27 @@ package com.tidal.refactoring.playlist.interfaces;
 
 import com.tidal.refactoring.playlist.data.Playlist;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public interface PlaylistRepository {
 
     Optional<Playlist> getPlaylistByUUID(String uuid);
 
+    /**
+     * Looks up many playlists in one call. Repositories backed by a remote store should override
+     * this with a single round trip, the default looks the uuids up one by one.
+     *
+     * @param uuids identify the playlists
+     * @return the found playlists by uuid, unknown uuids are absent
+     */
+    default Map<String, Playlist> getPlaylistsByUUIDs(Collection<String> uuids) {
+        Map<String, Playlist> playlists = new HashMap<>();
+        for (String uuid : uuids) {
+            getPlaylistByUUID(uuid).ifPresent(playlist -> playlists.put(uuid, playlist));
+        }
+        return playlists;
+    }
 }
@@ -1,11 +1,17 @@
 package com.tidal.refactoring.playlist.interfaces;
 
+import com.tidal.refactoring.playlist.data.PlaylistDiff;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
 import com.tidal.refactoring.playlist.data.PlaylistTrack;
 import com.tidal.refactoring.playlist.data.Track;
 import com.tidal.refactoring.playlist.exception.PlaylistException;
 import com.tidal.refactoring.playlist.exception.ValidationException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface PlaylistService {
 
@@ -21,6 +27,20 @@ public interface PlaylistService {
      */
     List<PlaylistTrack> addTracks(String uuid, List<Track> tracksToAdd, int insertionIndex);
 
+    /**
+     * Add the tracks to the playlist sent as list, optionally leaving out duplicates
+     *
+     * @param uuid identifies the playlist
+     * @param tracksToAdd Tracks to add to the playlist
+     * @param insertionIndex Index to insert tracks at
+     * @param skipDuplicates leave out tracks already in the playlist or earlier in tracksToAdd
+     * @return The newly tracks added tracks to the playlist, empty when all were left out
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    List<PlaylistTrack> addTracks(
+            String uuid, List<Track> tracksToAdd, int insertionIndex, boolean skipDuplicates);
+
     /**
      * Remove the tracks from the playlist located at the sent indexes
      *
@@ -31,4 +51,134 @@ public interface PlaylistService {
      * @throws ValidationException
      */
     List<PlaylistTrack> removeTracks(String uuid, List<Integer> indexes);
+
+    /**
+     * Remove the tracks from the playlist located at the sent indexes, without copying the
+     * remaining tracks
+     *
+     * @param uuid identifies the playlist
+     * @param indexes indexes of the tracks in the playlist that need to be removed
+     * @param removed receives each removed track, in index order and carrying the index it was
+     *     removed from. Pass {@code track -> {}} when only the count is needed
+     * @return the number of tracks removed, duplicate indexes count once
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    int removeTracks(String uuid, List<Integer> indexes, Consumer<PlaylistTrack> removed);
+
+    /**
+     * Remove every occurrence of the tracks from the playlist, wherever they are
+     *
+     * @param uuid identifies the playlist
+     * @param trackIds ids of the tracks to remove, ids not in the playlist are ignored
+     * @return the removed tracks in index order, each carrying the index it was removed from
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    List<PlaylistTrack> removeTracksById(String uuid, Collection<Integer> trackIds);
+
+    /**
+     * Check whether the playlist holds a track, without reading its tracks
+     *
+     * @param uuid identifies the playlist
+     * @param trackId id of the track
+     * @return true when the track is in the playlist at least once
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    boolean containsTrack(String uuid, int trackId);
+
+    /**
+     * Remove the consecutive tracks from fromIndex, inclusive, to toIndex, exclusive
+     *
+     * @param uuid identifies the playlist
+     * @param fromIndex index of the first track to remove
+     * @param toIndex index after the last track to remove
+     * @return the tracks in the playlist after the removal
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    List<PlaylistTrack> removeRange(String uuid, int fromIndex, int toIndex);
+
+    /**
+     * Apply the edits in order as one change: other readers see all of them or none, and the
+     * playlist is published once. The whole list is checked before any edit is applied, an
+     * invalid edit fails all of them
+     *
+     * @param uuid identifies the playlist
+     * @param edits edits to apply, each indexing the tracks as the edits before it left them
+     * @return what the edits changed
+     * @throws PlaylistException when an index is out of bounds or the playlist would end up with
+     *     too many tracks
+     * @throws ValidationException
+     */
+    PlaylistDiff applyEdits(String uuid, List<PlaylistEdit> edits);
+
+    /**
+     * Move consecutive tracks to another index, keeping their order, their ids and the dates they
+     * were added
+     *
+     * @param uuid identifies the playlist
+     * @param fromIndex index of the first track to move
+     * @param count number of tracks to move
+     * @param toIndex index of the first moved track once moved
+     * @return what the move changed
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    PlaylistDiff moveTracks(String uuid, int fromIndex, int count, int toIndex);
+
+    /**
+     * Undo the last edit not undone yet, as far back as the history of the playlist reaches
+     *
+     * @param uuid identifies the playlist
+     * @return the restored state, published as a new version
+     * @throws PlaylistException when there is nothing to undo
+     * @throws ValidationException
+     */
+    PlaylistSnapshot undo(String uuid);
+
+    /**
+     * Redo the last undone edit, until a new edit is made
+     *
+     * @param uuid identifies the playlist
+     * @return the restored state, published as a new version
+     * @throws PlaylistException when there is nothing to redo
+     * @throws ValidationException
+     */
+    PlaylistSnapshot redo(String uuid);
+
+    /**
+     * Read the playlist as it was at an earlier version, if the history still holds it
+     *
+     * @param uuid identifies the playlist
+     * @param version version of the playlist, the current one included
+     * @return the tracks, track count and duration at that version
+     * @throws PlaylistException when the version is not retained
+     * @throws ValidationException
+     */
+    PlaylistSnapshot getVersion(String uuid, long version);
+
+    /**
+     * Read one page of the tracks of the playlist, touching only the tracks of that page
+     *
+     * @param uuid identifies the playlist
+     * @param offset index of the first track of the page
+     * @param limit maximum number of tracks of the page
+     * @return the tracks from offset in index order, empty when offset is past the last track
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    List<PlaylistTrack> getTracks(String uuid, int offset, int limit);
+
+    /**
+     * Stream the tracks of the playlist in index order. The stream reads the playlist as it was
+     * when this method was called, later edits do not affect it
+     *
+     * @param uuid identifies the playlist
+     * @return the tracks, each carrying its index
+     * @throws PlaylistException
+     * @throws ValidationException
+     */
+    Stream<PlaylistTrack> streamTracks(String uuid);
 }
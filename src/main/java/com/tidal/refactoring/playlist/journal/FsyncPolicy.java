@@ -0,0 +1,17 @@
+package com.tidal.refactoring.playlist.journal;
+
+/** When {@link PlaylistJournal#append(JournalRecord)} forces records to disk */
+public enum FsyncPolicy {
+
+    /** Never explicitly, the OS writes pages back on its own. Fastest, a crash may lose records */
+    NEVER,
+
+    /**
+     * Before returning, one force covering every record appended meanwhile: concurrent appenders
+     * share an fsync instead of queueing one each
+     */
+    GROUP_COMMIT,
+
+    /** One force per record, appenders queue behind each other */
+    EVERY_RECORD
+}
@@ -0,0 +1,123 @@
+package com.tidal.refactoring.playlist.journal;
+
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One successful playlist edit as written to the {@link PlaylistJournal}. Holds what is needed to
+ * apply the edit again to the state it was first applied to, and the version it published: the
+ * records of a playlist may reach the journal in any order, {@link JournalReplayer} applies them
+ * in version order.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class JournalRecord {
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        REMOVE_RANGE,
+        EDITS,
+        RESTORE
+    }
+
+    private final Type type;
+    private final String uuid;
+
+    /* Version the edit was published as, one above the version it was applied to */
+    private final long version;
+
+    /* Day the edit was applied, null if unknown */
+    private final LocalDate date;
+
+    /* ADD: index of the first added track. REMOVE_RANGE: first removed index. EDITS: edit count.
+     * RESTORE: track count */
+    private final int index;
+
+    /* ADD: track ids. REMOVE: requested indexes. REMOVE_RANGE: the exclusive end. EDITS: the
+     * edits, see edits(). RESTORE: track id and epoch day added of every track. Not copied */
+    private final int[] values;
+
+    /** @param index index the first track was actually added at */
+    public static JournalRecord add(
+            String uuid, long version, int index, int[] trackIds, LocalDate dateAdded) {
+        return new JournalRecord(Type.ADD, uuid, version, dateAdded, index, trackIds);
+    }
+
+    /** @param indexes positions of the removed tracks in the state before the edit */
+    public static JournalRecord remove(String uuid, long version, int[] indexes, LocalDate date) {
+        return new JournalRecord(Type.REMOVE, uuid, version, date, 0, indexes);
+    }
+
+    /**
+     * Each edit is packed as its type, its index and then INSERT: track count and track ids,
+     * REMOVE: count, MOVE: count and target index, REPLACE: track id
+     *
+     * @param edits edits as applied, insertion indexes resolved
+     * @param dateAdded day the inserted and replacing tracks were added
+     */
+    public static JournalRecord edits(
+            String uuid, long version, List<PlaylistEdit> edits, LocalDate dateAdded) {
+        int length = 0;
+        for (PlaylistEdit edit : edits) {
+            if (edit.getType() == PlaylistEdit.Type.INSERT) length += 3 + edit.getTracks().size();
+            else length += edit.getType() == PlaylistEdit.Type.MOVE ? 4 : 3;
+        }
+
+        int[] values = new int[length];
+        int position = 0;
+        for (PlaylistEdit edit : edits) {
+            values[position++] = edit.getType().ordinal();
+            values[position++] = edit.getIndex();
+            switch (edit.getType()) {
+                case INSERT:
+                    values[position++] = edit.getTracks().size();
+                    for (Track track : edit.getTracks()) values[position++] = track.getId();
+                    break;
+                case MOVE:
+                    values[position++] = edit.getCount();
+                    values[position++] = edit.getToIndex();
+                    break;
+                case REMOVE:
+                    values[position++] = edit.getCount();
+                    break;
+                default:
+                    values[position++] = edit.getTracks().get(0).getId();
+            }
+        }
+        return new JournalRecord(Type.EDITS, uuid, version, dateAdded, edits.size(), values);
+    }
+
+    /**
+     * All tracks of a playlist, e.g. after an undo, replacing whatever tracks it held
+     *
+     * @param date day of the restore
+     */
+    public static JournalRecord restore(
+            String uuid, long version, TrackSequence tracks, LocalDate date) {
+        int[] values = new int[2 * tracks.size()];
+        int position = 0;
+        for (PlaylistTrack track : tracks) {
+            values[position++] = track.getTrackId();
+            values[position++] =
+                    track.getDateAdded() != null
+                            ? Math.toIntExact(track.getDateAdded().toEpochDay())
+                            : PlaylistJournal.NO_DATE;
+        }
+        return new JournalRecord(Type.RESTORE, uuid, version, date, tracks.size(), values);
+    }
+
+    public static JournalRecord removeRange(
+            String uuid, long version, int fromIndex, int toIndex, LocalDate date) {
+        return new JournalRecord(
+                Type.REMOVE_RANGE, uuid, version, date, fromIndex, new int[] {toIndex});
+    }
+}
@@ -0,0 +1,216 @@
+package com.tidal.refactoring.playlist.journal;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Rebuilds playlist state by applying {@link JournalRecord}s to the playlists they were first
+ * applied to. Added tracks get the date of their record, not the replay date.
+ *
+ * <p>The records of a playlist are applied in version order, each to the version before its own,
+ * whatever order they were appended in. Records of versions the playlist already holds are
+ * skipped, so the playlists may come from a snapshot taken while the journal was written. A
+ * missing version, e.g. of an edit whose append failed, fails the replay: later records are
+ * positional and cannot be applied without it.
+ */
+public class JournalReplayer {
+
+    private final Function<String, Playlist> playlists;
+
+    private final IntFunction<Track> tracks;
+
+    /* Records read ahead of the version they apply to, by uuid and version */
+    private final Map<String, TreeMap<Long, JournalRecord>> pending = new HashMap<>();
+
+    /**
+     * @param playlists the playlist of a uuid, in the state the journal started from. Records of
+     *     uuids mapped to null are skipped
+     * @param tracks the track of a track id, supplies titles and durations of added tracks
+     */
+    public JournalReplayer(Function<String, Playlist> playlists, IntFunction<Track> tracks) {
+        this.playlists = playlists;
+        this.tracks = tracks;
+    }
+
+    /**
+     * @return the number of records read from the journal in {@code directory}
+     * @throws IOException when a version of a playlist is missing, the playlist is left at the
+     *     version before it
+     */
+    public long replay(Path directory) throws IOException {
+        long count = PlaylistJournal.replay(directory, this::apply);
+
+        if (!pending.isEmpty()) {
+            String uuid = pending.keySet().iterator().next();
+            throw new IOException(
+                    "Journal of "
+                            + uuid
+                            + " has no record of version "
+                            + (playlists.apply(uuid).getVersion() + 1)
+                            + ", "
+                            + pending.get(uuid).size()
+                            + " later records not applied");
+        }
+        return count;
+    }
+
+    private void apply(JournalRecord record) {
+        Playlist playlist = playlists.apply(record.getUuid());
+        if (playlist == null || record.getVersion() <= playlist.getVersion()) return;
+
+        if (record.getVersion() > playlist.getVersion() + 1) {
+            pending.computeIfAbsent(record.getUuid(), uuid -> new TreeMap<>())
+                    .put(record.getVersion(), record);
+            return;
+        }
+        apply(playlist, record);
+
+        /* The records read ahead that now follow on */
+        TreeMap<Long, JournalRecord> waiting = pending.get(record.getUuid());
+        if (waiting == null) return;
+        for (JournalRecord next;
+                (next = waiting.remove(playlist.getVersion() + 1)) != null; ) {
+            apply(playlist, next);
+        }
+        if (waiting.isEmpty()) pending.remove(record.getUuid());
+    }
+
+    /* Publishes the record as the next version of the playlist */
+    private void apply(Playlist playlist, JournalRecord record) {
+        while (true) {
+            PlaylistSnapshot current = playlist.getSnapshot();
+            TrackSequence before = current.getTracks();
+            TrackSequence after;
+            switch (record.getType()) {
+                case ADD:
+                    after =
+                            add(
+                                    playlist,
+                                    before,
+                                    record.getIndex(),
+                                    record.getValues(),
+                                    record.getDate());
+                    break;
+                case REMOVE:
+                    after = remove(current, record.getValues());
+                    break;
+                case EDITS:
+                    after = edits(playlist, before, record);
+                    break;
+                case RESTORE:
+                    after = restore(playlist, record);
+                    break;
+                default:
+                    after = before.removeRange(record.getIndex(), record.getValues()[0]);
+            }
+
+            long duration =
+                    current.getDurationMillis()
+                            + after.getDurationMillis()
+                            - before.getDurationMillis();
+            if (playlist.compareAndSetSnapshot(
+                    current, current.next(after, after.size(), duration))) {
+                return;
+            }
+        }
+    }
+
+    private TrackSequence add(
+            Playlist playlist, TrackSequence tracks, int index, int[] trackIds, LocalDate date) {
+        List<PlaylistTrack> added = new ArrayList<>(trackIds.length);
+        for (int trackId : trackIds) {
+            added.add(
+                    PlaylistTrack.builder()
+                            .track(this.tracks.apply(trackId))
+                            .playlist(playlist)
+                            .index(index + added.size())
+                            .dateAdded(date)
+                            .trackId(trackId)
+                            .build());
+        }
+        return tracks.insertAll(index, added);
+    }
+
+    /* Unpacks the edits the way JournalRecord.edits packed them and chains them */
+    private TrackSequence edits(Playlist playlist, TrackSequence tracks, JournalRecord record) {
+        int[] values = record.getValues();
+        int position = 0;
+        for (int i = 0; i < record.getIndex(); i++) {
+            PlaylistEdit.Type type = PlaylistEdit.Type.values()[values[position++]];
+            int index = values[position++];
+            int count;
+            switch (type) {
+                case INSERT:
+                    count = values[position++];
+                    int[] trackIds = Arrays.copyOfRange(values, position, position + count);
+                    tracks = add(playlist, tracks, index, trackIds, record.getDate());
+                    position += count;
+                    break;
+                case REMOVE:
+                    tracks = tracks.removeRange(index, index + values[position++]);
+                    break;
+                case MOVE:
+                    count = values[position++];
+                    tracks = tracks.move(index, index + count, values[position++]);
+                    break;
+                default:
+                    tracks =
+                            add(
+                                    playlist,
+                                    tracks.remove(index),
+                                    index,
+                                    new int[] {values[position++]},
+                                    record.getDate());
+            }
+        }
+        return tracks;
+    }
+
+    private TrackSequence restore(Playlist playlist, JournalRecord record) {
+        int[] values = record.getValues();
+        List<PlaylistTrack> restored = new ArrayList<>(record.getIndex());
+        for (int i = 0; i < record.getIndex(); i++) {
+            int trackId = values[2 * i];
+            int epochDay = values[2 * i + 1];
+            restored.add(
+                    PlaylistTrack.builder()
+                            .track(tracks.apply(trackId))
+                            .playlist(playlist)
+                            .index(i)
+                            .dateAdded(
+                                    epochDay != PlaylistJournal.NO_DATE
+                                            ? LocalDate.ofEpochDay(epochDay)
+                                            : null)
+                            .trackId(trackId)
+                            .build());
+        }
+        return playlist.getTrackLayout().of(restored);
+    }
+
+    /* Same rules as the service: indexes past the tracks are skipped */
+    private static TrackSequence remove(PlaylistSnapshot current, int[] indexes) {
+        int size = Math.min(current.getNrOfTracks(), current.getTracks().size());
+        BitSet positions = new BitSet(size);
+        for (int index : indexes) {
+            if (index >= 0 && index < size) positions.set(index);
+        }
+        return current.getTracks().removeAll(positions, removed -> {});
+    }
+}
@@ -0,0 +1,333 @@
+package com.tidal.refactoring.playlist.journal;
+
+import lombok.Builder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of playlist edits, split into numbered segment files in one directory.
+ *
+ * <p>Every record is framed as {@code [payload length][CRC32 of payload][payload]}. A record torn
+ * by a crash fails its length or checksum and ends the replay of its segment. A reopened journal
+ * always starts a new segment and never appends behind a possibly torn tail.
+ *
+ * <p>Appends are serialized, forcing to disk follows the {@link FsyncPolicy}.
+ *
+ * <p>A write failing partway, e.g. on a full disk, would leave a partial frame that ends the replay
+ * of its segment before every later record. It is cut off and appending continues in a new
+ * segment. When that fails as well, or a force fails and leaves unknown what reached the disk, the
+ * journal refuses every later append.
+ */
+public class PlaylistJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final int HEADER_BYTES = 8;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long segmentBytes;
+
+    /* Appends hold appendLock. Forces and segment switches hold syncLock, after appendLock */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentSize;
+
+    /* Bytes appended and bytes known to be on disk since opening */
+    private volatile long written;
+    private long durable;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    private final SegmentOpener segmentOpener;
+
+    /* Set once appends are refused */
+    private volatile IOException failure;
+
+    /**
+     * @param directory directory of the segment files, created if missing
+     * @param fsyncPolicy when records are forced to disk, {@link FsyncPolicy#GROUP_COMMIT} if not
+     *     set
+     * @param segmentBytes size after which a new segment is started, 64 MiB if not set
+     */
+    @Builder
+    public PlaylistJournal(Path directory, FsyncPolicy fsyncPolicy, long segmentBytes)
+            throws IOException {
+        this(directory, fsyncPolicy, segmentBytes, PlaylistJournal::open);
+    }
+
+    /** @param segmentOpener opens a new segment file for writing, e.g. to inject failures */
+    PlaylistJournal(
+            Path directory, FsyncPolicy fsyncPolicy, long segmentBytes, SegmentOpener segmentOpener)
+            throws IOException {
+        if (directory == null) throw new IllegalArgumentException("directory must not be null");
+
+        this.segmentOpener = segmentOpener;
+        this.directory = Files.createDirectories(directory);
+        this.fsyncPolicy = fsyncPolicy != null ? fsyncPolicy : FsyncPolicy.GROUP_COMMIT;
+        this.segmentBytes = segmentBytes > 0 ? segmentBytes : DEFAULT_SEGMENT_BYTES;
+
+        List<Path> segments = segments(directory);
+        this.segmentNumber = segments.isEmpty() ? 0 : number(segments.get(segments.size() - 1)) + 1;
+        this.segment = openSegment(segmentNumber);
+    }
+
+    /**
+     * Appends the record and, depending on the {@link FsyncPolicy}, waits until it is on disk.
+     * Records of concurrent appends are written in the order they got the append lock.
+     */
+    public void append(JournalRecord record) throws IOException {
+        ByteBuffer frame = encode(record);
+        long position;
+
+        appendLock.lock();
+        try {
+            if (failure != null) throw new IOException("Journal failed, not appending", failure);
+            if (segmentSize > 0 && segmentSize + frame.remaining() > segmentBytes) roll();
+
+            int length = frame.remaining();
+            try {
+                while (frame.hasRemaining()) segment.write(frame);
+            } catch (IOException e) {
+                discardPartialFrame(e);
+                throw e;
+            }
+            segmentSize += length;
+            position = written + length;
+            written = position;
+            records.increment();
+
+            if (fsyncPolicy == FsyncPolicy.EVERY_RECORD) sync(position);
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (fsyncPolicy == FsyncPolicy.GROUP_COMMIT) sync(position);
+    }
+
+    /** @return records appended since opening */
+    public long recordCount() {
+        return records.sum();
+    }
+
+    /** @return forces to disk since opening, at most one per record */
+    public long forceCount() {
+        return forces.sum();
+    }
+
+    /**
+     * Forces all appended records to disk and closes the current segment. Appends waiting for a
+     * group commit return once it is closed, their records were forced by the close
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        syncLock.lock();
+        try {
+            if (!segment.isOpen()) return;
+            segment.force(false);
+            durable = written;
+            segment.close();
+        } finally {
+            syncLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Reads all records of the journal in {@code directory} in the order they were appended.
+     *
+     * @return the number of records read
+     */
+    public static long replay(Path directory, Consumer<JournalRecord> consumer)
+            throws IOException {
+        if (!Files.isDirectory(directory)) return 0;
+
+        long count = 0;
+        for (Path segment : segments(directory)) {
+            /* Bounds the record lengths, whatever segment size the journal was written with */
+            long remaining = Files.size(segment);
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                JournalRecord record;
+                while ((record = read(in, remaining)) != null) {
+                    consumer.accept(record);
+                    count++;
+                    remaining -= HEADER_BYTES + payloadBytes(record);
+                }
+            }
+        }
+        return count;
+    }
+
+    /* Group commit: the first waiter forces everything written so far, the ones queued behind it
+     * find their record already durable and return without a force of their own */
+    private void sync(long position) throws IOException {
+        syncLock.lock();
+        try {
+            if (durable >= position) return;
+
+            long target = written;
+            force();
+            durable = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /* Called with appendLock held */
+    private void roll() throws IOException {
+        syncLock.lock();
+        try {
+            force();
+            durable = written;
+            segment.close();
+            segment = openSegment(++segmentNumber);
+            segmentSize = 0;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /* Called with syncLock held. After a failed force the state on disk is unknown, retrying
+     * could report records durable that were lost */
+    private void force() throws IOException {
+        try {
+            segment.force(false);
+            forces.increment();
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    /* Called with appendLock held, after a write of the frame starting at segmentSize failed */
+    private void discardPartialFrame(IOException cause) {
+        try {
+            segment.truncate(segmentSize);
+            roll();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return segmentOpener.open(
+                directory.resolve(String.format("%016d%s", number, SEGMENT_SUFFIX)));
+    }
+
+    private static FileChannel open(Path segment) throws IOException {
+        return FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /** Opens a new segment file for writing */
+    interface SegmentOpener {
+        FileChannel open(Path segment) throws IOException;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /* ---------------------------- Record format --------------------------------*/
+
+    /* [type][uuid length][uuid UTF-8][version][epoch day][index][value count][values] */
+    private static ByteBuffer encode(JournalRecord record) {
+        byte[] uuid = record.getUuid().getBytes(StandardCharsets.UTF_8);
+        int[] values = record.getValues();
+        int payload = payloadBytes(record);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload);
+        buffer.position(HEADER_BYTES);
+        buffer.put((byte) record.getType().ordinal());
+        buffer.putShort((short) uuid.length);
+        buffer.put(uuid);
+        buffer.putLong(record.getVersion());
+        LocalDate date = record.getDate();
+        buffer.putInt(date != null ? Math.toIntExact(date.toEpochDay()) : NO_DATE);
+        buffer.putInt(record.getIndex());
+        buffer.putInt(values.length);
+        for (int value : values) buffer.putInt(value);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, payload);
+        buffer.putInt(0, payload);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int payloadBytes(JournalRecord record) {
+        int uuid = record.getUuid().getBytes(StandardCharsets.UTF_8).length;
+        return 1 + 2 + uuid + 8 + 4 + 4 + 4 + 4 * record.getValues().length;
+    }
+
+    /*
+     * @param remaining bytes left in the segment
+     * @return the next record, null at the end of the segment or at a torn record
+     */
+    private static JournalRecord read(DataInputStream in, long remaining) throws IOException {
+        byte[] payload;
+        int checksum;
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > remaining - HEADER_BYTES) return null;
+            checksum = in.readInt();
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        JournalRecord.Type type = JournalRecord.Type.values()[buffer.get()];
+        byte[] uuid = new byte[buffer.getShort()];
+        buffer.get(uuid);
+        long version = buffer.getLong();
+        int epochDay = buffer.getInt();
+        int index = buffer.getInt();
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) values[i] = buffer.getInt();
+
+        return new JournalRecord(
+                type,
+                new String(uuid, StandardCharsets.UTF_8),
+                version,
+                epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null,
+                index,
+                values);
+    }
+}
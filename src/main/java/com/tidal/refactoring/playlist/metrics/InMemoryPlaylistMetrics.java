@@ -0,0 +1,113 @@
+package com.tidal.refactoring.playlist.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link PlaylistMetrics} keeping everything in {@link Histogram}s and counters on the heap, to be
+ * read by an exporter or a test. All of it is allocated up front, recording only updates it.
+ */
+public class InMemoryPlaylistMetrics implements PlaylistMetrics {
+
+    private static final int OPERATIONS = Operation.values().length;
+    private static final int PHASES = Phase.values().length;
+    private static final int FAILURES = Failure.values().length;
+
+    private final Histogram[] latencies = new Histogram[OPERATIONS * PHASES];
+    private final LongAdder[] failures = new LongAdder[OPERATIONS * FAILURES];
+    private final Histogram[] playlistSizes = new Histogram[OPERATIONS];
+    private final Histogram[] batchSizes = new Histogram[OPERATIONS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Histogram coalescedBatches = new Histogram();
+    private final Histogram queueDepths = new Histogram();
+
+    public InMemoryPlaylistMetrics() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new Histogram();
+        for (int i = 0; i < failures.length; i++) failures[i] = new LongAdder();
+        for (int i = 0; i < OPERATIONS; i++) {
+            playlistSizes[i] = new Histogram();
+            batchSizes[i] = new Histogram();
+        }
+    }
+
+    @Override
+    public void recordLatency(Operation operation, Phase phase, long nanos) {
+        latencies[operation.ordinal() * PHASES + phase.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordFailure(Operation operation, Failure failure) {
+        failures[operation.ordinal() * FAILURES + failure.ordinal()].increment();
+    }
+
+    @Override
+    public void recordLookup(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    @Override
+    public void recordPlaylistSize(Operation operation, int tracks) {
+        playlistSizes[operation.ordinal()].record(tracks);
+    }
+
+    @Override
+    public void recordBatchSize(Operation operation, int size) {
+        batchSizes[operation.ordinal()].record(size);
+    }
+
+    @Override
+    public void recordCoalescedBatch(int edits) {
+        coalescedBatches.record(edits);
+    }
+
+    @Override
+    public void recordQueueDepth(int depth) {
+        queueDepths.record(depth);
+    }
+
+    /** @return latencies in nanoseconds of one phase of an operation */
+    public Histogram getLatency(Operation operation, Phase phase) {
+        return latencies[operation.ordinal() * PHASES + phase.ordinal()];
+    }
+
+    public long getFailureCount(Operation operation, Failure failure) {
+        return failures[operation.ordinal() * FAILURES + failure.ordinal()].sum();
+    }
+
+    public Histogram getPlaylistSize(Operation operation) {
+        return playlistSizes[operation.ordinal()];
+    }
+
+    public Histogram getBatchSize(Operation operation) {
+        return batchSizes[operation.ordinal()];
+    }
+
+    /** @return edits per coalesced batch, its count is the number of publishes */
+    public Histogram getCoalescedBatch() {
+        return coalescedBatches;
+    }
+
+    public Histogram getQueueDepth() {
+        return queueDepths;
+    }
+
+    public long getLookupHitCount() {
+        return hits.sum();
+    }
+
+    public long getLookupMissCount() {
+        return misses.sum();
+    }
+
+    /** @return share of lookups that found their playlist, 1.0 when nothing was looked up yet */
+    public double lookupHitRate() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /** @return queued edits per publish, 1.0 when nothing was coalesced yet */
+    public double coalescingRatio() {
+        return coalescedBatches.getCount() == 0 ? 1.0 : coalescedBatches.getMean();
+    }
+}
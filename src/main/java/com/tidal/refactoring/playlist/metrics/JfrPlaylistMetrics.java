@@ -0,0 +1,95 @@
+package com.tidal.refactoring.playlist.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * {@link PlaylistMetrics} that also emits JDK Flight Recorder events, so slow phases and failures
+ * show up next to GC and lock events in a recording. Events are only built while a recording has
+ * them enabled, e.g. with {@code -XX:StartFlightRecording}.
+ */
+public class JfrPlaylistMetrics implements PlaylistMetrics {
+
+    private final PlaylistMetrics delegate;
+
+    /** @param delegate receives every measurement too, {@link PlaylistMetrics#NOOP} if null */
+    public JfrPlaylistMetrics(PlaylistMetrics delegate) {
+        this.delegate = delegate != null ? delegate : NOOP;
+    }
+
+    @Override
+    public void recordLatency(Operation operation, Phase phase, long nanos) {
+        delegate.recordLatency(operation, phase, nanos);
+
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.phase = phase.name();
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void recordFailure(Operation operation, Failure failure) {
+        delegate.recordFailure(operation, failure);
+
+        FailureEvent event = new FailureEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.failure = failure.name();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void recordLookup(boolean hit) {
+        delegate.recordLookup(hit);
+    }
+
+    @Override
+    public void recordPlaylistSize(Operation operation, int tracks) {
+        delegate.recordPlaylistSize(operation, tracks);
+    }
+
+    @Override
+    public void recordBatchSize(Operation operation, int size) {
+        delegate.recordBatchSize(operation, size);
+    }
+
+    @Override
+    public void recordCoalescedBatch(int edits) {
+        delegate.recordCoalescedBatch(edits);
+    }
+
+    @Override
+    public void recordQueueDepth(int depth) {
+        delegate.recordQueueDepth(depth);
+    }
+
+    @Name("com.tidal.playlist.Phase")
+    @Label("Playlist Phase")
+    @Category("Playlist")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    @Name("com.tidal.playlist.Failure")
+    @Label("Playlist Failure")
+    @Category("Playlist")
+    static class FailureEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Failure")
+        String failure;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tidal.refactoring.playlist.metrics;
+
+/**
+ * Receives measurements of the {@link com.tidal.refactoring.playlist.PlaylistServiceImpl} hot
+ * paths. Every method is called on the request thread, implementations must be thread safe and
+ * should not allocate or block. All methods default to doing nothing.
+ */
+public interface PlaylistMetrics {
+
+    /** Records nothing, the default of the service */
+    PlaylistMetrics NOOP = new PlaylistMetrics() {};
+
+    enum Operation {
+        ADD_TRACKS,
+        REMOVE_TRACKS,
+        REMOVE_RANGE,
+        APPLY_EDITS,
+        /* Undo and redo */
+        RESTORE,
+        /* Track pages and streams, track lookups and retained versions, only failures recorded */
+        READ
+    }
+
+    /** The parts an edit is timed in */
+    enum Phase {
+        VALIDATION,
+        LOOKUP,
+        MUTATION
+    }
+
+    /** Why an edit was rejected */
+    enum Failure {
+        /* Blank uuid, no tracks or indexes, negative offset */
+        INVALID_ARGUMENT,
+        PLAYLIST_NOT_FOUND,
+        PLAYLIST_FULL,
+        INDEX_OUT_OF_BOUNDS
+    }
+
+    default void recordLatency(Operation operation, Phase phase, long nanos) {}
+
+    default void recordFailure(Operation operation, Failure failure) {}
+
+    /** @param hit true when the repository found the playlist */
+    default void recordLookup(boolean hit) {}
+
+    /** @param tracks tracks of the playlist after the edit */
+    default void recordPlaylistSize(Operation operation, int tracks) {}
+
+    /** @param size tracks or indexes passed to one edit */
+    default void recordBatchSize(Operation operation, int size) {}
+
+    /** @param edits queued edits applied with one publish and one write-back */
+    default void recordCoalescedBatch(int edits) {}
+
+    /** @param depth edits waiting in a playlist mailbox right after one was queued */
+    default void recordQueueDepth(int depth) {}
+}
@@ -0,0 +1,124 @@
+package com.tidal.refactoring.playlist.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain(String)} never returns false for a
+ * key that was {@link #put(String)}, and returns true for an unknown key with roughly the
+ * configured false positive probability.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate false positive probability once that many keys are in. The bits
+     *     this takes are capped at about 2^37, see {@link #bitSize()}
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) throw new IllegalArgumentException("expectedInsertions < 1");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+
+        /* m = -n ln(p) / ln(2)^2, k = m / n ln(2) */
+        double ln2 = Math.log(2);
+        long optimalBits =
+                (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE, (Math.max(optimalBits, 64) + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions =
+                Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+    }
+
+    public void put(String key) {
+        long first = hash(key);
+        long second = secondHash(first);
+        for (int i = 1; i <= hashFunctions; i++) {
+            setBit(index(first + i * second));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long first = hash(key);
+        long second = secondHash(first);
+        for (int i = 1; i <= hashFunctions; i++) {
+            if (!getBit(index(first + i * second))) return false;
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < bits.length(); i++) count += Long.bitCount(bits.get(i));
+        return count;
+    }
+
+    /** @return false positive probability at the current fill, (set bits / m) ^ k */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitCount() / bitSize, hashFunctions);
+    }
+
+    /** @return estimated number of distinct keys put, -m / k * ln(1 - set bits / m) */
+    public long approximateElementCount() {
+        double fill = (double) bitCount() / bitSize;
+        if (fill >= 1) return Long.MAX_VALUE;
+        return Math.round(-bitSize / (double) hashFunctions * Math.log1p(-fill));
+    }
+
+    /* Double hashing, g_i(x) = h1(x) + i * h2(x) over 64 bits, so every one of up to 2^37 bits
+     * is reachable */
+    private long index(long combinedHash) {
+        return Long.remainderUnsigned(combinedHash, bitSize);
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean getBit(long index) {
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /* 64-bit FNV-1a over the UTF-8 bytes, finished with the murmur3 fmix64 avalanche */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return fmix64(hash);
+    }
+
+    /* Independent of the first hash, odd so that it is never zero */
+    private static long secondHash(long hash) {
+        return fmix64(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tidal.refactoring.playlist.repository;
+
+import lombok.Value;
+
+/** Point-in-time counters of a {@link CachingPlaylistRepository} */
+@Value
+public class CacheStats {
+
+    long hitCount;
+    long missCount;
+    long loadCount;
+    long evictionCount;
+
+    /* Playlists currently cached and their summed weight */
+    long size;
+    long weight;
+
+    /** @return share of lookups served from the cache, 1.0 when nothing was looked up yet */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,341 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link PlaylistRepository} decorator caching found playlists in front of a slower (remote)
+ * repository.
+ *
+ * <ul>
+ *   <li>Bounded by weight, a playlist weighs its track count (at least 1). The least recently used
+ *       playlists are evicted first.
+ *   <li>Entries optionally expire a fixed time after they were loaded.
+ *   <li>Concurrent misses for one uuid share a single call to the delegate.
+ * </ul>
+ *
+ * Unknown playlists are not cached. Cached playlists are the instances returned by the delegate,
+ * so edits published on them are visible to every later lookup; weights follow those edits once
+ * the hits are replayed. Hits take no lock: they are recorded in a small lossy buffer that is
+ * replayed into the recency order by whichever thread next gets the lock, so the order is close
+ * to, not exactly, least recently used.
+ */
+public class CachingPlaylistRepository implements PlaylistRepository {
+
+    /* Power of two */
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int DRAIN_EVERY_READS = 32;
+
+    private final PlaylistRepository delegate;
+    private final long maximumWeight;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+
+    /* Read without the lock, written only under it together with order */
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<>();
+
+    /* Access ordered, so iteration starts at the least recently used entry. Guarded by lock */
+    private final LinkedHashMap<String, Entry> order = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalWeight;
+
+    /* Recent hits, replayed into order under the lock. Older hits are overwritten when full */
+    private final AtomicReferenceArray<Entry> readBuffer =
+            new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong reads = new AtomicLong();
+
+    private final Map<String, Load> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param delegate repository the playlists are loaded from
+     * @param maximumWeight upper bound of summed track counts, {@code Long.MAX_VALUE} if not set
+     * @param expireAfterWrite time after loading an entry is dropped, never if not set
+     * @param ticker nanosecond time source, {@link System#nanoTime()} if not set
+     */
+    @Builder
+    public CachingPlaylistRepository(
+            PlaylistRepository delegate,
+            long maximumWeight,
+            Duration expireAfterWrite,
+            LongSupplier ticker) {
+        if (delegate == null) throw new IllegalArgumentException("delegate must not be null");
+
+        this.delegate = delegate;
+        this.maximumWeight = maximumWeight > 0 ? maximumWeight : Long.MAX_VALUE;
+        this.expireAfterWriteNanos = expireAfterWrite != null ? expireAfterWrite.toNanos() : 0;
+        this.ticker = ticker != null ? ticker : System::nanoTime;
+    }
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        Playlist cached = getIfPresent(uuid);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        /* Single flight: the first miss loads, concurrent misses wait for its result */
+        Load load = new Load();
+        Load inFlight = loading.putIfAbsent(uuid, load);
+        if (inFlight != null) return join(inFlight);
+
+        try {
+            /* A load may have completed between the cache check and registering this one */
+            cached = getIfPresent(uuid);
+            Optional<Playlist> playlist =
+                    cached != null ? Optional.of(cached) : loadAndCache(uuid, load);
+            load.result.complete(playlist);
+            return playlist;
+        } catch (RuntimeException e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(uuid, load);
+        }
+    }
+
+    /**
+     * Serves cached playlists and loads all misses with one bulk lookup on the delegate. Misses
+     * already being loaded by a concurrent lookup wait for that load instead.
+     */
+    @Override
+    public Map<String, Playlist> getPlaylistsByUUIDs(Collection<String> uuids) {
+        Map<String, Playlist> playlists = new HashMap<>();
+        Map<String, Load> owned = new LinkedHashMap<>();
+        Map<String, Load> waiting = new HashMap<>();
+        for (String uuid : new LinkedHashSet<>(uuids)) {
+            Playlist cached = getIfPresent(uuid);
+            if (cached != null) {
+                hits.increment();
+                playlists.put(uuid, cached);
+                continue;
+            }
+            misses.increment();
+            Load load = new Load();
+            Load inFlight = loading.putIfAbsent(uuid, load);
+            if (inFlight != null) waiting.put(uuid, inFlight);
+            else owned.put(uuid, load);
+        }
+
+        if (!owned.isEmpty()) {
+            try {
+                loads.add(owned.size());
+                Map<String, Playlist> found =
+                        delegate.getPlaylistsByUUIDs(new ArrayList<>(owned.keySet()));
+                owned.forEach(
+                        (uuid, load) -> {
+                            Playlist playlist = found.get(uuid);
+                            if (playlist != null) {
+                                put(uuid, playlist, load);
+                                playlists.put(uuid, playlist);
+                            }
+                            load.result.complete(Optional.ofNullable(playlist));
+                        });
+            } catch (RuntimeException e) {
+                owned.values().forEach(load -> load.result.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(loading::remove);
+            }
+        }
+        waiting.forEach((uuid, load) -> join(load).ifPresent(found -> playlists.put(uuid, found)));
+        return playlists;
+    }
+
+    /**
+     * Drops the cached playlist, the next lookup goes to the delegate. A load of it already in
+     * flight is returned to its callers but not cached.
+     */
+    public void invalidate(String uuid) {
+        lock.lock();
+        try {
+            Load load = loading.get(uuid);
+            if (load != null) load.invalidated = true;
+            Entry entry = order.remove(uuid);
+            if (entry != null) {
+                data.remove(uuid, entry);
+                totalWeight -= entry.weight;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            loading.values().forEach(load -> load.invalidated = true);
+            order.clear();
+            data.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            drainReads();
+            return new CacheStats(
+                    hits.sum(),
+                    misses.sum(),
+                    loads.sum(),
+                    evictions.sum(),
+                    order.size(),
+                    totalWeight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<Playlist> loadAndCache(String uuid, Load load) {
+        loads.increment();
+        Optional<Playlist> playlist = delegate.getPlaylistByUUID(uuid);
+        playlist.ifPresent(found -> put(uuid, found, load));
+        return playlist;
+    }
+
+    private Playlist getIfPresent(String uuid) {
+        Entry entry = data.get(uuid);
+        if (entry == null) return null;
+
+        if (isExpired(entry)) {
+            lock.lock();
+            try {
+                remove(entry);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+
+        long read = reads.getAndIncrement();
+        readBuffer.lazySet((int) (read & (READ_BUFFER_SIZE - 1)), entry);
+        /* Never waits: a thread holding the lock replays the buffer soon enough */
+        if (read % DRAIN_EVERY_READS == DRAIN_EVERY_READS - 1 && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry.playlist;
+    }
+
+    private void put(String uuid, Playlist playlist, Load load) {
+        lock.lock();
+        try {
+            /* Invalidated while loading, the delegate may have changed since it was read */
+            if (load.invalidated) return;
+
+            drainReads();
+            Entry entry = new Entry(uuid, playlist, weigh(playlist), ticker.getAsLong());
+            Entry previous = order.put(uuid, entry);
+            data.put(uuid, entry);
+            if (previous != null) totalWeight -= previous.weight;
+            totalWeight += entry.weight;
+            evictToMaximumWeight(uuid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* Guarded by lock. Moves the recently hit entries to the end and re-weighs them, edits since
+     * loading may have changed their track count */
+    private void drainReads() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Entry entry = readBuffer.getAndSet(i, null);
+            if (entry == null || order.get(entry.uuid) != entry) continue;
+
+            int weight = weigh(entry.playlist);
+            totalWeight += weight - entry.weight;
+            entry.weight = weight;
+        }
+        evictToMaximumWeight(null);
+    }
+
+    /* Guarded by lock. Evicts least recently used entries; the one just used goes last, and only
+     * when it alone is too heavy */
+    private void evictToMaximumWeight(String justUsed) {
+        Iterator<Entry> iterator = order.values().iterator();
+        while (totalWeight > maximumWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (eldest.uuid.equals(justUsed)) continue;
+
+            iterator.remove();
+            data.remove(eldest.uuid, eldest);
+            totalWeight -= eldest.weight;
+            evictions.increment();
+        }
+        if (totalWeight > maximumWeight && justUsed != null && remove(order.get(justUsed))) {
+            evictions.increment();
+        }
+    }
+
+    /* Guarded by lock */
+    private boolean remove(Entry entry) {
+        if (entry == null || !order.remove(entry.uuid, entry)) return false;
+        data.remove(entry.uuid, entry);
+        totalWeight -= entry.weight;
+        return true;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return expireAfterWriteNanos > 0
+                && ticker.getAsLong() - entry.writeTime >= expireAfterWriteNanos;
+    }
+
+    private static int weigh(Playlist playlist) {
+        return Math.max(1, playlist.getNrOfTracks());
+    }
+
+    private static Optional<Playlist> join(Load load) {
+        try {
+            return load.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        final String uuid;
+        final Playlist playlist;
+        final long writeTime;
+        /* Guarded by lock */
+        int weight;
+
+        Entry(String uuid, Playlist playlist, int weight, long writeTime) {
+            this.uuid = uuid;
+            this.playlist = playlist;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /** One in-flight delegate lookup, shared by the concurrent misses of its uuid */
+    private static final class Load {
+        final CompletableFuture<Optional<Playlist>> result = new CompletableFuture<>();
+        /* Guarded by lock */
+        boolean invalidated;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** {@link PlaylistRepository} keeping playlists on the heap, keyed by uuid */
+public class InMemoryPlaylistRepository implements PlaylistRepository {
+
+    private final Map<String, Playlist> playlists = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        return Optional.ofNullable(playlists.get(uuid));
+    }
+
+    /** Stores the playlist under its uuid, replacing any previous one */
+    public void save(Playlist playlist) {
+        playlists.put(playlist.getUuid(), playlist);
+    }
+
+    public void delete(String uuid) {
+        playlists.remove(uuid);
+    }
+
+    public int size() {
+        return playlists.size();
+    }
+
+    /** @return live view of the stored playlists, e.g. to write a snapshot of them */
+    public Collection<Playlist> getPlaylists() {
+        return Collections.unmodifiableCollection(playlists.values());
+    }
+}
@@ -0,0 +1,177 @@
+package com.tidal.refactoring.playlist.repository;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * On-disk open addressing hash table from uuid hash to record location, memory-mapped. Slots hold
+ * {@code [64-bit uuid hash][location]}, collisions are told apart by the caller checking the uuid
+ * stored at the location. Linear probing, doubled into a new file past 70% load.
+ *
+ * <p>Not thread safe, {@link MappedPlaylistRepository} guards it.
+ */
+final class MappedPlaylistIndex {
+
+    static final long ABSENT = -1;
+
+    private static final int MAGIC = 0x504c4958;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final long DELETED = -2;
+    private static final double MAXIMUM_LOAD = 0.7;
+
+    private final Path file;
+    private MappedByteBuffer slots;
+    private long capacity;
+
+    /* Live and deleted slots, deleted ones still lengthen probes until the next resize */
+    private long used;
+
+    MappedPlaylistIndex(Path file, long initialCapacity) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            map();
+            if (slots.getInt(0) != MAGIC) throw new IOException("Not a playlist index: " + file);
+        } else {
+            create(file, Long.highestOneBit(Math.max(initialCapacity, 16) * 2 - 1));
+            map();
+        }
+    }
+
+    /** @return the location stored for the hash and accepted by {@code matches}, or ABSENT */
+    long find(long hash, LongPredicate matches) {
+        long key = key(hash);
+        for (long slot = slot(key); ; slot = (slot + 1) & (capacity - 1)) {
+            long slotKey = slots.getLong(offset(slot));
+            long location = slots.getLong(offset(slot) + 8);
+            if (slotKey == 0) return ABSENT;
+            if (slotKey == key && location != DELETED && matches.test(location)) return location;
+        }
+    }
+
+    /** Stores the location, replacing the one accepted by {@code matches} */
+    void put(long hash, long location, LongPredicate matches) throws IOException {
+        long key = key(hash);
+        long free = -1;
+        for (long slot = slot(key); ; slot = (slot + 1) & (capacity - 1)) {
+            long slotKey = slots.getLong(offset(slot));
+            long current = slots.getLong(offset(slot) + 8);
+            if (slotKey == key && current != DELETED && matches.test(current)) {
+                slots.putLong(offset(slot) + 8, location);
+                return;
+            }
+            if (slotKey != 0 && current == DELETED && free < 0) free = slot;
+            if (slotKey == 0) {
+                if (free < 0) {
+                    free = slot;
+                    used++;
+                }
+                break;
+            }
+        }
+
+        slots.putLong(offset(free), key);
+        slots.putLong(offset(free) + 8, location);
+        slots.putLong(16, used);
+        if (used > capacity * MAXIMUM_LOAD) resize();
+    }
+
+    /** @return true when a location accepted by {@code matches} was removed */
+    boolean remove(long hash, LongPredicate matches) {
+        long key = key(hash);
+        for (long slot = slot(key); ; slot = (slot + 1) & (capacity - 1)) {
+            long slotKey = slots.getLong(offset(slot));
+            long location = slots.getLong(offset(slot) + 8);
+            if (slotKey == 0) return false;
+            if (slotKey == key && location != DELETED && matches.test(location)) {
+                slots.putLong(offset(slot) + 8, DELETED);
+                return true;
+            }
+        }
+    }
+
+    void force() {
+        slots.force();
+    }
+
+    private void resize() throws IOException {
+        Path resized = file.resolveSibling(file.getFileName() + ".resize");
+        Files.deleteIfExists(resized);
+        create(resized, capacity * 2);
+
+        MappedByteBuffer previous = slots;
+        long previousCapacity = capacity;
+        try (FileChannel channel =
+                FileChannel.open(resized, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        capacity = previousCapacity * 2;
+        used = 0;
+
+        for (long slot = 0; slot < previousCapacity; slot++) {
+            long key = previous.getLong(offset(slot));
+            long location = previous.getLong(offset(slot) + 8);
+            if (key == 0 || location == DELETED) continue;
+
+            long target = slot(key);
+            while (slots.getLong(offset(target)) != 0) target = (target + 1) & (capacity - 1);
+            slots.putLong(offset(target), key);
+            slots.putLong(offset(target) + 8, location);
+            used++;
+        }
+        slots.putLong(16, used);
+        slots.force();
+        Files.move(
+                resized,
+                file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        capacity = slots.getLong(8);
+        used = slots.getLong(16);
+    }
+
+    private static void create(Path file, long capacity) throws IOException {
+        if (HEADER_BYTES + capacity * SLOT_BYTES > Integer.MAX_VALUE)
+            throw new IOException("Playlist index over 2 GiB");
+
+        try (FileChannel channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            long bytes = HEADER_BYTES + capacity * SLOT_BYTES;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            header.putInt(0, MAGIC);
+            header.putLong(8, capacity);
+            header.putLong(16, 0);
+            header.force();
+        }
+    }
+
+    private long slot(long key) {
+        return key & (capacity - 1);
+    }
+
+    private static int offset(long slot) {
+        return (int) (HEADER_BYTES + slot * SLOT_BYTES);
+    }
+
+    /* 0 marks an empty slot */
+    private static long key(long hash) {
+        return hash != 0 ? hash : 1;
+    }
+}
@@ -0,0 +1,408 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.TrackLayout;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import lombok.Builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link PlaylistRepository} keeping playlists in memory-mapped segment files of one directory,
+ * so a node can hold more playlists than fit in heap and restarts without loading them.
+ *
+ * <p>Every save appends a record: a fixed-layout header with the uuid, track count, duration and
+ * dates, followed by packed 24-byte track entries and the track titles. An on-disk hash index maps
+ * each uuid to its latest record. A looked-up playlist decodes only its header, its tracks are
+ * read from the mapping as they are visited.
+ *
+ * <p>A looked-up playlist stays the live instance of its uuid while anything references it, so
+ * concurrent lookups share it and the compare-and-set of a {@code PlaylistServiceImpl} sees every
+ * edit published on it. Edits reach the store only through {@link #save(Playlist)} though: this is
+ * not a drop-in repository for a service that never saves. Edit through a service writing back,
+ * e.g. a {@code CoalescingPlaylistService} with {@link #writeBack()}; edits not saved are lost
+ * once the instance is no longer referenced and on restart.
+ *
+ * <p>Records superseded by a later save or a delete stay in their segment. Everything written is
+ * visible to readers at once and survives a crash of the process, {@link #flush()} also makes it
+ * survive a crash of the machine.
+ */
+public class MappedPlaylistRepository implements PlaylistRepository, Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "playlists.idx";
+    private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final int DEFAULT_INDEX_CAPACITY = 1 << 16;
+
+    /* Segment header: magic, format version, limit of the written records */
+    private static final int SEGMENT_MAGIC = 0x504c5347;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 16;
+    private static final int LIMIT_OFFSET = 8;
+
+    /* Record header, followed by the uuid, the name, the track entries and the titles */
+    private static final int RECORD_HEADER_BYTES = 64;
+    private static final int RECORD_ALIGNMENT = 8;
+    private static final int NONE = MappedTrackSequence.NONE;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final MappedPlaylistIndex index;
+    private final TrackCatalog trackCatalog;
+
+    /* Lookups hold the read lock, saves and deletes the write lock */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /* Set by close under the write lock */
+    private boolean closed;
+
+    /* Instances handed out and still referenced. Replaced under the read lock by lookups, under
+     * the write lock by saves and deletes */
+    private final ConcurrentHashMap<String, LiveReference> live = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Playlist> collected = new ReferenceQueue<>();
+
+    /**
+     * @param directory directory of the segment and index files, created if missing
+     * @param segmentBytes size of a segment file, 64 MiB if not set. A record larger than that
+     *     gets a segment of its own
+     * @param initialIndexCapacity playlists the index holds before it first grows, 65536 if not
+     *     set. Ignored when the index already exists
+     * @param trackCatalog interns the tracks decoded from the mappings, {@link
+     *     TrackCatalog#shared()} if not set
+     */
+    @Builder
+    public MappedPlaylistRepository(
+            Path directory, long segmentBytes, int initialIndexCapacity, TrackCatalog trackCatalog)
+            throws IOException {
+        if (directory == null) throw new IllegalArgumentException("directory must not be null");
+        if (segmentBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("segmentBytes must not exceed 2 GiB");
+
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes > 0 ? segmentBytes : DEFAULT_SEGMENT_BYTES;
+        this.index =
+                new MappedPlaylistIndex(
+                        directory.resolve(INDEX_FILE),
+                        initialIndexCapacity > 0 ? initialIndexCapacity : DEFAULT_INDEX_CAPACITY);
+        this.trackCatalog = trackCatalog != null ? trackCatalog : TrackCatalog.shared();
+
+        for (Path segment : segments(directory)) segments.add(map(segment, 0));
+    }
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        if (uuid == null) return Optional.empty();
+
+        expungeCollected();
+        Playlist current = liveInstance(uuid);
+        if (current != null) return Optional.of(current);
+
+        byte[] key = uuid.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long location = index.find(BloomFilter.hash(uuid), at -> matches(at, key));
+            if (location == MappedPlaylistIndex.ABSENT) return Optional.empty();
+
+            /* A concurrent lookup may have decoded it first, both must get the same instance */
+            Playlist decoded = decode(record(location));
+            Playlist[] found = {decoded};
+            live.compute(
+                    uuid,
+                    (id, reference) -> {
+                        Playlist existing = reference != null ? reference.get() : null;
+                        if (existing == null) return new LiveReference(id, decoded, collected);
+                        found[0] = existing;
+                        return reference;
+                    });
+            return Optional.of(found[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Stores the playlist under its uuid, replacing any previous one */
+    public void save(Playlist playlist) throws IOException {
+        if (playlist.getUuid() == null) throw new IllegalArgumentException("uuid must not be null");
+
+        ByteBuffer record = encode(playlist);
+        byte[] key = playlist.getUuid().getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long location = append(record);
+            index.put(BloomFilter.hash(playlist.getUuid()), location, at -> matches(at, key));
+            live.put(
+                    playlist.getUuid(),
+                    new LiveReference(playlist.getUuid(), playlist, collected));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return {@link #save(Playlist)} as a write-back for the services, failures rethrown as
+     *     {@link UncheckedIOException}
+     */
+    public Consumer<Playlist> writeBack() {
+        return playlist -> {
+            try {
+                save(playlist);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /** @return true when a playlist was stored under the uuid */
+    public boolean delete(String uuid) {
+        if (uuid == null) return false;
+
+        byte[] key = uuid.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            live.remove(uuid);
+            return index.remove(BloomFilter.hash(uuid), at -> matches(at, key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Forces all segments and the index to disk */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (MappedByteBuffer segment : segments) segment.force();
+            index.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and drops the mappings, later lookups, saves and deletes throw {@link
+     * IllegalStateException}. The mappings are not unmapped explicitly: playlists returned
+     * earlier read their tracks lazily from them, so they are released by the GC once no such
+     * playlist is left
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) return;
+            flush();
+            closed = true;
+            segments.clear();
+            live.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("repository is closed");
+    }
+
+    private Playlist liveInstance(String uuid) {
+        LiveReference reference = live.get(uuid);
+        return reference != null ? reference.get() : null;
+    }
+
+    private void expungeCollected() {
+        for (Reference<? extends Playlist> reference; (reference = collected.poll()) != null; ) {
+            live.remove(((LiveReference) reference).uuid, reference);
+        }
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        int limit = segment != null ? segment.getInt(LIMIT_OFFSET) : 0;
+        if (segment == null || limit + record.remaining() > segment.capacity()) {
+            Path file = directory.resolve(String.format("%08d%s", segments.size(), SEGMENT_SUFFIX));
+            segment = map(file, SEGMENT_HEADER_BYTES + record.remaining());
+            segments.add(segment);
+            limit = SEGMENT_HEADER_BYTES;
+        }
+
+        ByteBuffer target = segment.duplicate();
+        target.position(limit);
+        target.put(record);
+
+        /* Published after the record, a torn save leaves the limit before it */
+        segment.putInt(LIMIT_OFFSET, target.position());
+        return (long) (segments.size() - 1) << 32 | limit;
+    }
+
+    private MappedByteBuffer map(Path file, int minimumBytes) throws IOException {
+        boolean created = !Files.exists(file);
+        try (FileChannel channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            long size = created ? Math.max(segmentBytes, minimumBytes) : channel.size();
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (created) {
+                segment.putInt(0, SEGMENT_MAGIC);
+                segment.putInt(4, FORMAT_VERSION);
+                segment.putInt(LIMIT_OFFSET, SEGMENT_HEADER_BYTES);
+            } else if (segment.getInt(0) != SEGMENT_MAGIC) {
+                throw new IOException("Not a playlist segment: " + file);
+            } else if (segment.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported segment format " + segment.getInt(4));
+            }
+            return segment;
+        }
+    }
+
+    private ByteBuffer record(long location) {
+        MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        int offset = (int) location;
+        ByteBuffer record = segment.duplicate();
+        record.position(offset);
+        record.limit(offset + segment.getInt(offset));
+        return record.slice();
+    }
+
+    private boolean matches(long location, byte[] uuid) {
+        ByteBuffer record = record(location);
+        if (record.getShort(50) != uuid.length) return false;
+        for (int i = 0; i < uuid.length; i++) {
+            if (record.get(RECORD_HEADER_BYTES + i) != uuid[i]) return false;
+        }
+        return true;
+    }
+
+    private static ByteBuffer encode(Playlist playlist) {
+        PlaylistSnapshot snapshot = playlist.getSnapshot();
+        TrackSequence tracks = snapshot.getTracks();
+        byte[] uuid = playlist.getUuid().getBytes(StandardCharsets.UTF_8);
+        byte[] name =
+                playlist.getPlayListName() != null
+                        ? playlist.getPlayListName().getBytes(StandardCharsets.UTF_8)
+                        : null;
+        if (uuid.length > Short.MAX_VALUE)
+            throw new IllegalArgumentException("uuid longer than 32767 bytes");
+
+        int entriesOffset =
+                align(RECORD_HEADER_BYTES + uuid.length + (name != null ? name.length : 0));
+        int titlesOffset = entriesOffset + tracks.size() * MappedTrackSequence.ENTRY_BYTES;
+        int recordBytes = align(titlesOffset + MappedTrackSequence.titleBytes(tracks));
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(recordBytes)
+                .putInt(playlist.getId() != null ? playlist.getId() : NONE)
+                .putLong(snapshot.getVersion())
+                .putLong(snapshot.getDurationMillis())
+                .putLong(tracks.getDurationMillis())
+                .putInt(snapshot.getNrOfTracks())
+                .putInt(tracks.size())
+                .putInt(epochDay(playlist.getRegisteredDate()))
+                .putInt(epochDay(playlist.getLastUpdated()))
+                .put((byte) (playlist.isDeleted() ? 1 : 0))
+                .put((byte) playlist.getTrackLayout().ordinal())
+                .putShort((short) uuid.length)
+                .putInt(name != null ? name.length : -1)
+                .putInt(entriesOffset)
+                .putInt(0);
+        record.put(uuid);
+        if (name != null) record.put(name);
+
+        record.position(entriesOffset);
+        MappedTrackSequence.write(record, titlesOffset, tracks);
+        record.clear();
+        return record;
+    }
+
+    private Playlist decode(ByteBuffer record) {
+        int uuidLength = record.getShort(50);
+        int nameLength = record.getInt(52);
+
+        byte[] uuid = new byte[uuidLength];
+        byte[] name = nameLength >= 0 ? new byte[nameLength] : null;
+        ByteBuffer strings = record.duplicate();
+        strings.position(RECORD_HEADER_BYTES);
+        strings.get(uuid);
+        if (name != null) strings.get(name);
+
+        int id = record.getInt(4);
+        return Playlist.builder()
+                .id(id != NONE ? id : null)
+                .version(record.getLong(8))
+                .durationMillis(record.getLong(16))
+                .nrOfTracks(record.getInt(32))
+                .tracks(
+                        new MappedTrackSequence(
+                                record,
+                                record.getInt(56),
+                                record.getInt(36),
+                                record.getLong(24),
+                                trackCatalog))
+                .registeredDate(date(record.getInt(40)))
+                .lastUpdated(date(record.getInt(44)))
+                .deleted(record.get(48) != 0)
+                .trackLayout(TrackLayout.values()[record.get(49)])
+                .uuid(new String(uuid, StandardCharsets.UTF_8))
+                .playListName(name != null ? new String(name, StandardCharsets.UTF_8) : null)
+                .build();
+    }
+
+    private static int align(int bytes) {
+        return (bytes + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date != null ? Math.toIntExact(date.toEpochDay()) : NONE;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay != NONE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** Live instance of a uuid, dropped from the map once collected */
+    private static final class LiveReference extends WeakReference<Playlist> {
+        private final String uuid;
+
+        private LiveReference(String uuid, Playlist playlist, ReferenceQueue<Playlist> queue) {
+            super(playlist, queue);
+            this.uuid = uuid;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackLayout;
+import com.tidal.refactoring.playlist.data.TrackSequence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Read-only {@link TrackSequence} over the packed track entries of one playlist record in a
+ * {@link MappedPlaylistRepository} segment. Tracks are decoded from the mapping when asked for,
+ * nothing is copied onto the heap up front. Their metadata is interned, so the playlist tracks
+ * decoded by every read share the canonical {@link Track} instances.
+ *
+ * <p>The first edit copies the tracks into a {@link TrackLayout#COMPACT} sequence, which is also
+ * the layout reported.
+ */
+final class MappedTrackSequence implements TrackSequence {
+
+    /* Entry: id, track id, epoch day added, duration float bits, artist id, title offset */
+    static final int ENTRY_BYTES = 24;
+    static final int NONE = Integer.MIN_VALUE;
+
+    /* Title offsets are record relative and past the header, so never negative */
+    private static final int NO_TITLE = -1;
+    private static final int NO_TRACK = -2;
+
+    /* Record relative, absolute reads only, so the buffer is safe to share */
+    private final ByteBuffer record;
+    private final int entriesOffset;
+    private final int size;
+    private final long durationMillis;
+    private final TrackCatalog trackCatalog;
+
+    MappedTrackSequence(
+            ByteBuffer record,
+            int entriesOffset,
+            int size,
+            long durationMillis,
+            TrackCatalog trackCatalog) {
+        this.record = record;
+        this.entriesOffset = entriesOffset;
+        this.size = size;
+        this.durationMillis = durationMillis;
+        this.trackCatalog = trackCatalog;
+    }
+
+    /** Packs {@code tracks} at the position of {@code record}, titles at {@code titlesOffset} */
+    static void write(ByteBuffer record, int titlesOffset, TrackSequence tracks) {
+        int titles = titlesOffset;
+        for (PlaylistTrack track : tracks) {
+            Track metadata = track.getTrack();
+            byte[] title =
+                    metadata != null && metadata.getTitle() != null
+                            ? metadata.getTitle().getBytes(StandardCharsets.UTF_8)
+                            : null;
+
+            record.putInt(track.getId() != null ? track.getId() : NONE);
+            record.putInt(track.getTrackId());
+            record.putInt(
+                    track.getDateAdded() != null
+                            ? Math.toIntExact(track.getDateAdded().toEpochDay())
+                            : NONE);
+            record.putInt(metadata != null ? Float.floatToRawIntBits(metadata.getDuration()) : 0);
+            record.putInt(metadata != null ? metadata.getArtistId() : 0);
+            record.putInt(
+                    metadata == null ? NO_TRACK : title != null ? titles : NO_TITLE);
+
+            if (title != null) {
+                int entryEnd = record.position();
+                record.position(titles);
+                record.putShort((short) title.length);
+                record.put(title);
+                titles = record.position();
+                record.position(entryEnd);
+            }
+        }
+        record.position(titles);
+    }
+
+    /** @return bytes the titles of {@code tracks} take after the entries */
+    static int titleBytes(TrackSequence tracks) {
+        int bytes = 0;
+        for (PlaylistTrack track : tracks) {
+            if (track.getTrack() != null && track.getTrack().getTitle() != null) {
+                int length = track.getTrack().getTitle().getBytes(StandardCharsets.UTF_8).length;
+                if (length > Short.MAX_VALUE)
+                    throw new IllegalArgumentException("Track title longer than 32767 bytes");
+                bytes += 2 + length;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public TrackLayout getLayout() {
+        return TrackLayout.COMPACT;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public PlaylistTrack get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (size - 1));
+        return decode(index);
+    }
+
+    @Override
+    public TrackSequence insert(int index, PlaylistTrack track) {
+        return copy().insert(index, track);
+    }
+
+    @Override
+    public TrackSequence insertAll(int index, List<PlaylistTrack> tracks) {
+        return copy().insertAll(index, tracks);
+    }
+
+    @Override
+    public TrackSequence remove(int index) {
+        return copy().remove(index);
+    }
+
+    @Override
+    public TrackSequence removeAll(BitSet positions, Consumer<PlaylistTrack> removed) {
+        return copy().removeAll(positions, removed);
+    }
+
+    @Override
+    public TrackSequence subSequence(int fromIndex, int toIndex) {
+        return copy().subSequence(fromIndex, toIndex);
+    }
+
+    @Override
+    public TrackSequence removeRange(int fromIndex, int toIndex) {
+        return copy().removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public TrackSequence move(int fromIndex, int toIndex, int targetIndex) {
+        return copy().move(fromIndex, toIndex, targetIndex);
+    }
+
+    @Override
+    public Iterator<PlaylistTrack> iterator(int fromIndex) {
+        if (fromIndex < 0 || fromIndex > size)
+            throw new IndexOutOfBoundsException("Index: " + fromIndex + ", Size: " + size);
+        return new Iterator<PlaylistTrack>() {
+            private int position = fromIndex;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public PlaylistTrack next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return decode(position++);
+            }
+        };
+    }
+
+    private TrackSequence copy() {
+        return TrackLayout.COMPACT.of(toList());
+    }
+
+    private PlaylistTrack decode(int index) {
+        int entry = entriesOffset + index * ENTRY_BYTES;
+        int id = record.getInt(entry);
+        int trackId = record.getInt(entry + 4);
+        int epochDay = record.getInt(entry + 8);
+        int titleOffset = record.getInt(entry + 20);
+
+        Track track = null;
+        if (titleOffset != NO_TRACK) {
+            track =
+                    trackCatalog.intern(
+                            Track.builder()
+                                    .id(trackId)
+                                    .title(title(titleOffset))
+                                    .duration(Float.intBitsToFloat(record.getInt(entry + 12)))
+                                    .artistId(record.getInt(entry + 16))
+                                    .build());
+        }
+
+        return PlaylistTrack.builder()
+                .id(id != NONE ? id : null)
+                .index(index)
+                .dateAdded(epochDay != NONE ? LocalDate.ofEpochDay(epochDay) : null)
+                .trackId(trackId)
+                .track(track)
+                .build();
+    }
+
+    private String title(int offset) {
+        if (offset == NO_TITLE) return null;
+        byte[] title = new byte[record.getShort(offset)];
+        ByteBuffer view = record.duplicate();
+        view.position(offset + 2);
+        view.get(title);
+        return new String(title, StandardCharsets.UTF_8);
+    }
+}
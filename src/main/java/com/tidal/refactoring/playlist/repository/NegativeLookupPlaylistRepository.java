@@ -0,0 +1,190 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link PlaylistRepository} decorator answering lookups of unknown uuids without calling the
+ * delegate.
+ *
+ * <ul>
+ *   <li>A Bloom filter of all known uuids rejects uuids that definitely do not exist. It is only
+ *       consulted when seeded with every existing uuid, as a missing uuid would hide a playlist.
+ *   <li>A short-lived cache of recent misses catches repeated lookups of the same unknown uuid,
+ *       including the filter's false positives.
+ * </ul>
+ *
+ * Creating a playlist must be reported through {@link #playlistCreated(String)}, so it is added
+ * to the filter and dropped from the recent misses. Saving through {@link #saving(Consumer)} does
+ * that for every saved playlist.
+ */
+public class NegativeLookupPlaylistRepository implements PlaylistRepository {
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final Duration DEFAULT_MISS_TTL = Duration.ofSeconds(30);
+    private static final int DEFAULT_MAXIMUM_MISSES = 100_000;
+
+    private final PlaylistRepository delegate;
+    private final BloomFilter knownUuids;
+    private final long missTtlNanos;
+    private final int maximumMisses;
+    private final LongSupplier ticker;
+
+    /* uuid -> ticker value the miss expires at */
+    private final Map<String, Long> recentMisses = new ConcurrentHashMap<>();
+
+    /* Bumped by every playlistCreated, a miss read before a creation is not remembered */
+    private final AtomicLong creations = new AtomicLong();
+
+    private final LongAdder rejectedByFilter = new LongAdder();
+    private final LongAdder rejectedByMissCache = new LongAdder();
+    private final LongAdder delegated = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * @param delegate repository the playlists are loaded from
+     * @param knownUuids every existing uuid, the Bloom filter is disabled if not set
+     * @param expectedPlaylists number of uuids the filter is sized for, including future ones;
+     *     the number of knownUuids if not set or lower
+     * @param falsePositiveRate filter false positive probability, 1% if not set
+     * @param missTtl how long a miss is remembered, 30 seconds if not set
+     * @param maximumMisses bound of remembered misses, 100 000 if not set
+     * @param ticker nanosecond time source, {@link System#nanoTime()} if not set
+     */
+    @Builder
+    public NegativeLookupPlaylistRepository(
+            PlaylistRepository delegate,
+            Iterable<String> knownUuids,
+            long expectedPlaylists,
+            double falsePositiveRate,
+            Duration missTtl,
+            int maximumMisses,
+            LongSupplier ticker) {
+        if (delegate == null) throw new IllegalArgumentException("delegate must not be null");
+
+        this.delegate = delegate;
+        this.missTtlNanos = (missTtl != null ? missTtl : DEFAULT_MISS_TTL).toNanos();
+        this.maximumMisses = maximumMisses > 0 ? maximumMisses : DEFAULT_MAXIMUM_MISSES;
+        this.ticker = ticker != null ? ticker : System::nanoTime;
+
+        if (knownUuids != null) {
+            double rate = falsePositiveRate > 0 ? falsePositiveRate : DEFAULT_FALSE_POSITIVE_RATE;
+            List<String> seed = new ArrayList<>();
+            knownUuids.forEach(seed::add);
+            long expected = Math.max(expectedPlaylists, seed.size());
+            this.knownUuids = new BloomFilter(Math.max(expected, 1), rate);
+            seed.forEach(this.knownUuids::put);
+        } else {
+            this.knownUuids = null;
+        }
+    }
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        if (isKnownMissing(uuid)) return Optional.empty();
+
+        delegated.increment();
+        long generation = creations.get();
+        Optional<Playlist> playlist = delegate.getPlaylistByUUID(uuid);
+        if (!playlist.isPresent()) recordMiss(uuid, generation);
+        return playlist;
+    }
+
+    /** Passes only the uuids not known to be missing to the delegate, in one bulk lookup */
+    @Override
+    public Map<String, Playlist> getPlaylistsByUUIDs(Collection<String> uuids) {
+        List<String> candidates = new ArrayList<>(uuids.size());
+        for (String uuid : new LinkedHashSet<>(uuids)) {
+            if (!isKnownMissing(uuid)) candidates.add(uuid);
+        }
+        if (candidates.isEmpty()) return new HashMap<>();
+
+        delegated.add(candidates.size());
+        long generation = creations.get();
+        Map<String, Playlist> playlists = delegate.getPlaylistsByUUIDs(candidates);
+        for (String uuid : candidates) {
+            if (!playlists.containsKey(uuid)) recordMiss(uuid, generation);
+        }
+        return playlists;
+    }
+
+    /** Registers a newly created playlist, lookups of its uuid reach the delegate from now on */
+    public void playlistCreated(String uuid) {
+        if (knownUuids != null) knownUuids.put(uuid);
+        creations.incrementAndGet();
+        recentMisses.remove(uuid);
+    }
+
+    /**
+     * @param save stores a playlist in the delegate, e.g. {@link
+     *     MappedPlaylistRepository#writeBack()}
+     * @return {@code save} followed by {@link #playlistCreated(String)}, also usable as the
+     *     write-back of the services
+     */
+    public Consumer<Playlist> saving(Consumer<Playlist> save) {
+        return playlist -> {
+            save.accept(playlist);
+            playlistCreated(playlist.getUuid());
+        };
+    }
+
+    public NegativeLookupStats stats() {
+        return new NegativeLookupStats(
+                rejectedByFilter.sum(),
+                rejectedByMissCache.sum(),
+                delegated.sum(),
+                falsePositives.sum(),
+                knownUuids != null ? knownUuids.bitSize() : 0,
+                knownUuids != null ? knownUuids.approximateElementCount() : 0,
+                knownUuids != null ? knownUuids.expectedFalsePositiveRate() : 0,
+                recentMisses.size());
+    }
+
+    private boolean isKnownMissing(String uuid) {
+        if (knownUuids != null && !knownUuids.mightContain(uuid)) {
+            rejectedByFilter.increment();
+            return true;
+        }
+
+        Long expiresAt = recentMisses.get(uuid);
+        if (expiresAt != null) {
+            if (ticker.getAsLong() - expiresAt < 0) {
+                rejectedByMissCache.increment();
+                return true;
+            }
+            recentMisses.remove(uuid, expiresAt);
+        }
+        return false;
+    }
+
+    /* generation: creations before the delegate was asked */
+    private void recordMiss(String uuid, long generation) {
+        if (knownUuids != null) falsePositives.increment();
+
+        long now = ticker.getAsLong();
+        if (recentMisses.size() >= maximumMisses) evictMisses(now);
+        Long expiresAt = now + missTtlNanos;
+        recentMisses.put(uuid, expiresAt);
+        /* A playlist created since may be this one; its remove may have run before the put */
+        if (creations.get() != generation) recentMisses.remove(uuid, expiresAt);
+    }
+
+    /* Drops expired misses, and arbitrary ones while still at the bound */
+    private void evictMisses(long now) {
+        recentMisses.values().removeIf(expiresAt -> now - expiresAt >= 0);
+        Iterator<String> iterator = recentMisses.keySet().iterator();
+        while (recentMisses.size() >= maximumMisses && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.tidal.refactoring.playlist.repository;
+
+import lombok.Value;
+
+/** Point-in-time counters of a {@link NegativeLookupPlaylistRepository} */
+@Value
+public class NegativeLookupStats {
+
+    /* Lookups answered without the delegate, by the filter and by the recent misses */
+    long rejectedByFilter;
+    long rejectedByMissCache;
+
+    /* Lookups passed to the delegate, and those of them the filter wrongly let through */
+    long delegated;
+    long falsePositives;
+
+    long filterBitSize;
+    long filterApproximateElementCount;
+    double filterExpectedFalsePositiveRate;
+    long cachedMisses;
+}
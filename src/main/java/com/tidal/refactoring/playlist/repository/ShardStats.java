@@ -0,0 +1,18 @@
+package com.tidal.refactoring.playlist.repository;
+
+import lombok.Value;
+
+/** Point-in-time counters of one shard of a {@link ShardedPlaylistRepository} */
+@Value
+public class ShardStats {
+
+    int shard;
+
+    /* Playlists stored in the shard and their summed weight */
+    long size;
+    long weight;
+
+    /* Bulk operations handed to the shard's executor, and those it rejected and the caller ran */
+    long offloadedCount;
+    long rejectedCount;
+}
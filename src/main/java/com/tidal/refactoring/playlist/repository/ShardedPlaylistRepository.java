@@ -0,0 +1,285 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.concurrent.PlaylistExecutors;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import lombok.Builder;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link PlaylistRepository} keeping playlists on the heap in independent shards, a playlist
+ * living in the shard its uuid hashes to. Every shard has its own map, lock, executor and weight,
+ * so lookups and saves of different shards never contend and one node can use all its cores.
+ *
+ * <p>Bulk operations group their uuids by shard and run each group on that shard's executor,
+ * the last group on the calling thread, then join the results. A saturated shard executor makes
+ * the caller run the group instead.
+ *
+ * <p>Like {@link CachingPlaylistRepository}, a playlist weighs its track count (at least 1). Edits
+ * published on a stored playlist change its weight once it is saved again.
+ */
+public class ShardedPlaylistRepository implements PlaylistRepository, Closeable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final Shard[] shards;
+    private final int mask;
+
+    /**
+     * @param shards number of shards, rounded up to the next power of two, one per core if not set
+     * @param queueCapacity bulk operations waiting per shard before the caller runs them itself,
+     *     1024 if not set
+     */
+    @Builder
+    public ShardedPlaylistRepository(int shards, int queueCapacity) {
+        if (shards < 0) throw new IllegalArgumentException("shards must not be negative");
+
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        int size = Math.max(Integer.highestOneBit(count - 1) << 1, 1);
+        int capacity = queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY;
+        this.shards = new Shard[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.shards[i] = new Shard(i, PlaylistExecutors.boundedPlatformPool(1, capacity));
+        }
+    }
+
+    @Override
+    public Optional<Playlist> getPlaylistByUUID(String uuid) {
+        return Optional.ofNullable(shardFor(uuid).get(uuid));
+    }
+
+    /** Looks the uuids up in parallel, one task per shard holding any of them */
+    @Override
+    public Map<String, Playlist> getPlaylistsByUUIDs(Collection<String> uuids) {
+        Map<String, Playlist> playlists = new HashMap<>();
+        for (Map<String, Playlist> found : fanOut(uuids, uuid -> uuid, Shard::getAll)) {
+            playlists.putAll(found);
+        }
+        return playlists;
+    }
+
+    /** Stores the playlist under its uuid, replacing any previous one */
+    public void save(Playlist playlist) {
+        shardFor(playlist.getUuid()).save(Collections.singletonList(playlist));
+    }
+
+    /** Stores the playlists in parallel, one task per shard receiving any of them */
+    public void saveAll(Collection<Playlist> playlists) {
+        fanOut(playlists, Playlist::getUuid, Shard::save);
+    }
+
+    /** @return true if a playlist was stored under the uuid */
+    public boolean delete(String uuid) {
+        return shardFor(uuid).delete(Collections.singletonList(uuid)) > 0;
+    }
+
+    /**
+     * Deletes the playlists in parallel, one task per shard holding any of them
+     *
+     * @return number of playlists that were stored and are now deleted
+     */
+    public int deleteAll(Collection<String> uuids) {
+        int deleted = 0;
+        for (int count : fanOut(uuids, uuid -> uuid, Shard::delete)) deleted += count;
+        return deleted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) size += shard.size();
+        return size;
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    /** @return the shard holding {@code uuid}, stable for a given shard count */
+    public int shardOf(String uuid) {
+        return spread(Objects.hashCode(uuid)) & mask;
+    }
+
+    /** @return counters of every shard, indexed by shard */
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) stats.add(shard.stats());
+        return stats;
+    }
+
+    /** Stops the shard executors, bulk operations still work but run on the caller */
+    @Override
+    public void close() {
+        for (Shard shard : shards) shard.executor.shutdown();
+    }
+
+    private Shard shardFor(String uuid) {
+        return shards[shardOf(uuid)];
+    }
+
+    /* Runs {@code work} once per shard with the items hashing to it, the results in no order */
+    private <T, R> List<R> fanOut(
+            Collection<T> items, Function<T, String> uuidOf, BiFunction<Shard, List<T>, R> work) {
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardFor(uuidOf.apply(item)), shard -> new ArrayList<>())
+                    .add(item);
+        }
+
+        List<CompletableFuture<R>> offloaded = new ArrayList<>(groups.size());
+        List<R> results = new ArrayList<>(groups.size());
+        Iterator<Map.Entry<Shard, List<T>>> iterator = groups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Shard, List<T>> group = iterator.next();
+            Shard shard = group.getKey();
+            if (!iterator.hasNext()) {
+                /* The caller would only wait otherwise, it takes the last group */
+                results.add(work.apply(shard, group.getValue()));
+                break;
+            }
+            try {
+                offloaded.add(
+                        CompletableFuture.supplyAsync(
+                                () -> work.apply(shard, group.getValue()), shard.executor));
+                shard.offloaded.increment();
+            } catch (RejectedExecutionException e) {
+                shard.rejected.increment();
+                results.add(work.apply(shard, group.getValue()));
+            }
+        }
+
+        for (CompletableFuture<R> future : offloaded) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /* Mixes the high bits in, as String hashes of similar uuids differ mostly in low bits */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int weigh(Playlist playlist) {
+        return Math.max(playlist.getNrOfTracks(), 1);
+    }
+
+    /** One partition: its playlists and weights, guarded by its own lock */
+    private static class Shard {
+        private final int index;
+        private final ExecutorService executor;
+
+        /* Lookups hold the read lock, saves and deletes the write lock */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Entry> playlists = new HashMap<>();
+        private long weight;
+
+        private final LongAdder offloaded = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Shard(int index, ExecutorService executor) {
+            this.index = index;
+            this.executor = executor;
+        }
+
+        private Playlist get(String uuid) {
+            lock.readLock().lock();
+            try {
+                Entry entry = playlists.get(uuid);
+                return entry != null ? entry.playlist : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Map<String, Playlist> getAll(List<String> uuids) {
+            Map<String, Playlist> found = new HashMap<>();
+            lock.readLock().lock();
+            try {
+                for (String uuid : uuids) {
+                    Entry entry = playlists.get(uuid);
+                    if (entry != null) found.put(uuid, entry.playlist);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return found;
+        }
+
+        private Void save(List<Playlist> toSave) {
+            lock.writeLock().lock();
+            try {
+                for (Playlist playlist : toSave) {
+                    Entry entry = new Entry(playlist, weigh(playlist));
+                    Entry previous = playlists.put(playlist.getUuid(), entry);
+                    if (previous != null) weight -= previous.weight;
+                    weight += entry.weight;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return null;
+        }
+
+        private int delete(List<String> uuids) {
+            int deleted = 0;
+            lock.writeLock().lock();
+            try {
+                for (String uuid : uuids) {
+                    Entry entry = playlists.remove(uuid);
+                    if (entry != null) {
+                        weight -= entry.weight;
+                        deleted++;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return deleted;
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return playlists.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private ShardStats stats() {
+            lock.readLock().lock();
+            try {
+                return new ShardStats(
+                        index, playlists.size(), weight, offloaded.sum(), rejected.sum());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /** A stored playlist and its weight when it was saved */
+    private static class Entry {
+        private final Playlist playlist;
+        private final int weight;
+
+        private Entry(Playlist playlist, int weight) {
+            this.playlist = playlist;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Track;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonical {@link Track} instance per track id, shared by every playlist holding the track
+ * instead of one copy per caller. Bounded: at the bound arbitrary tracks are dropped, which only
+ * means their next use becomes the new canonical instance.
+ *
+ * <p>A track arriving with different metadata than the canonical one replaces it, playlists
+ * already holding the old instance keep it. The canonical instance is a private copy, so callers
+ * may go on changing the tracks they passed in; interned tracks are shared and must not be
+ * mutated.
+ *
+ * <p>Instances are only shared among the users of one catalog. {@link #shared()} is the default of
+ * the services, the snapshot loader and {@link MappedPlaylistRepository}; anything else putting
+ * tracks into playlists, e.g. another loader or importer, should intern through it as well.
+ */
+public class TrackCatalog {
+
+    private static final int DEFAULT_MAXIMUM_TRACKS = 1_000_000;
+
+    private static final TrackCatalog SHARED = new TrackCatalog();
+
+    private final int maximumTracks;
+
+    private final Map<Integer, Track> tracks = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TrackCatalog() {
+        this(DEFAULT_MAXIMUM_TRACKS);
+    }
+
+    /** @param maximumTracks bound of canonical tracks kept */
+    public TrackCatalog(int maximumTracks) {
+        if (maximumTracks < 1) throw new IllegalArgumentException("maximumTracks < 1");
+        this.maximumTracks = maximumTracks;
+    }
+
+    /** @return the catalog of the process, used wherever no other catalog is given */
+    public static TrackCatalog shared() {
+        return SHARED;
+    }
+
+    /** @return the canonical instance for the id of {@code track}, a copy of it if new */
+    public Track intern(Track track) {
+        Track canonical = tracks.get(track.getId());
+        if (canonical != null && sameMetadata(canonical, track)) {
+            hits.increment();
+            return canonical;
+        }
+
+        misses.increment();
+        if (canonical == null && tracks.size() >= maximumTracks) evict();
+        Track copy =
+                Track.builder()
+                        .id(track.getId())
+                        .title(track.getTitle())
+                        .duration(track.getDuration())
+                        .artistId(track.getArtistId())
+                        .build();
+        tracks.put(copy.getId(), copy);
+        return copy;
+    }
+
+    public int size() {
+        return tracks.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /* Drops arbitrary tracks while still at the bound */
+    private void evict() {
+        Iterator<Integer> iterator = tracks.keySet().iterator();
+        while (tracks.size() >= maximumTracks && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static boolean sameMetadata(Track canonical, Track track) {
+        return canonical == track
+                || (Float.compare(canonical.getDuration(), track.getDuration()) == 0
+                        && canonical.getArtistId() == track.getArtistId()
+                        && Objects.equals(canonical.getTitle(), track.getTitle()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from track ids and artist ids to the uuids of the playlists holding them, for
+ * jobs that act on every playlist with a track, such as a takedown. Register it as the {@link
+ * PlaylistChangeListener} of the services to keep it in step with every edit, next to other
+ * listeners through {@link PlaylistChangeListener#of}, and seed it with {@link #index(Playlist)}
+ * for playlists loaded otherwise, e.g. by a snapshot loader.
+ *
+ * <p>Occurrences are counted per playlist, so a playlist stays listed until its last track with
+ * the id is removed. Every key is updated atomically, readers get a copy.
+ */
+public class TrackReverseIndex implements PlaylistChangeListener {
+
+    /* Key to occurrences per playlist uuid. The inner maps are only written inside compute of
+     * the outer map, which serializes the writers of one key */
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Integer>> byTrack =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Integer>> byArtist =
+            new ConcurrentHashMap<>();
+
+    @Override
+    public void tracksAdded(Playlist playlist, List<PlaylistTrack> added) {
+        update(playlist.getUuid(), added, 1);
+    }
+
+    @Override
+    public void tracksRemoved(Playlist playlist, List<PlaylistTrack> removed) {
+        update(playlist.getUuid(), removed, -1);
+    }
+
+    /** Adds all tracks of a playlist not seen through edits, O(n) */
+    public void index(Playlist playlist) {
+        update(playlist.getUuid(), playlist.getTracks(), 1);
+    }
+
+    /** Removes all tracks of a playlist, e.g. a deleted one, O(n) */
+    public void unindex(Playlist playlist) {
+        update(playlist.getUuid(), playlist.getTracks(), -1);
+    }
+
+    /** @return uuids of the playlists holding the track at least once */
+    public Set<String> playlistsWithTrack(int trackId) {
+        return uuids(byTrack, trackId);
+    }
+
+    /** @return uuids of the playlists holding at least one track of the artist */
+    public Set<String> playlistsWithArtist(int artistId) {
+        return uuids(byArtist, artistId);
+    }
+
+    /** @return number of different track ids in any playlist */
+    public int trackCount() {
+        return byTrack.size();
+    }
+
+    private void update(String uuid, Iterable<PlaylistTrack> tracks, int delta) {
+        for (PlaylistTrack track : tracks) {
+            update(byTrack, track.getTrackId(), uuid, delta);
+            if (track.getTrack() != null) {
+                update(byArtist, track.getTrack().getArtistId(), uuid, delta);
+            }
+        }
+    }
+
+    private static void update(
+            ConcurrentHashMap<Integer, ConcurrentHashMap<String, Integer>> index,
+            int key,
+            String uuid,
+            int delta) {
+        index.compute(
+                key,
+                (id, playlists) -> {
+                    if (playlists == null) {
+                        if (delta < 0) return null;
+                        playlists = new ConcurrentHashMap<>();
+                    }
+                    playlists.compute(
+                            uuid,
+                            (playlist, count) -> {
+                                int updated = (count != null ? count : 0) + delta;
+                                return updated > 0 ? updated : null;
+                            });
+                    return playlists.isEmpty() ? null : playlists;
+                });
+    }
+
+    private static Set<String> uuids(
+            ConcurrentHashMap<Integer, ConcurrentHashMap<String, Integer>> index, int key) {
+        Map<String, Integer> playlists = index.get(key);
+        return playlists != null ? new HashSet<>(playlists.keySet()) : Collections.emptySet();
+    }
+}
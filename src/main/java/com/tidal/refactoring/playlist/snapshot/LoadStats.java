@@ -0,0 +1,24 @@
+package com.tidal.refactoring.playlist.snapshot;
+
+import lombok.Value;
+
+/** Outcome of one {@link SnapshotLoader#load} */
+@Value
+public class LoadStats {
+
+    long playlistCount;
+    long trackCount;
+    int chunkCount;
+    int threads;
+    long elapsedNanos;
+
+    /** @return playlists loaded per second over all threads */
+    public double playlistsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playlistCount * 1e9 / elapsedNanos;
+    }
+
+    /** @return playlists loaded per second per loader thread, the number to compare across hosts */
+    public double playlistsPerSecondPerThread() {
+        return playlistsPerSecond() / threads;
+    }
+}
@@ -0,0 +1,165 @@
+package com.tidal.refactoring.playlist.snapshot;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackLayout;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout of a snapshot file, shared by {@link SnapshotWriter} and {@link SnapshotLoader}:
+ *
+ * <pre>
+ * [magic][format version][reserved 8]
+ * chunk*   [payload length][CRC32 of payload][playlist count][playlist*]
+ * footer   [chunk offset 8]*
+ * trailer  [footer offset 8][chunk count][magic]
+ * </pre>
+ *
+ * Chunks are independent of each other so they can be read and decoded in parallel. A reader
+ * rejects a version it does not know; a new version adds a decoding branch and keeps the old
+ * ones.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x504c534e;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int CHUNK_HEADER_BYTES = 12;
+    static final int TRAILER_BYTES = 16;
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private SnapshotFormat() {}
+
+    /* [id][uuid][name][registered][updated][deleted][layout][version][nrOfTracks][duration]
+     * [track count] then per track [id][track id][date added][has track], and when it has one
+     * [title][duration][artist id] */
+    static void write(DataOutputStream out, Playlist playlist) throws IOException {
+        PlaylistSnapshot snapshot = playlist.getSnapshot();
+
+        out.writeInt(playlist.getId() != null ? playlist.getId() : NONE);
+        writeString(out, playlist.getUuid());
+        writeString(out, playlist.getPlayListName());
+        out.writeInt(epochDay(playlist.getRegisteredDate()));
+        out.writeInt(epochDay(playlist.getLastUpdated()));
+        out.writeBoolean(playlist.isDeleted());
+        out.writeByte(playlist.getTrackLayout().ordinal());
+        out.writeLong(snapshot.getVersion());
+        out.writeInt(snapshot.getNrOfTracks());
+        out.writeLong(snapshot.getDurationMillis());
+
+        out.writeInt(snapshot.getTracks().size());
+        for (PlaylistTrack track : snapshot.getTracks()) {
+            out.writeInt(track.getId() != null ? track.getId() : NONE);
+            out.writeInt(track.getTrackId());
+            out.writeInt(epochDay(track.getDateAdded()));
+
+            Track metadata = track.getTrack();
+            out.writeBoolean(metadata != null);
+            if (metadata != null) {
+                writeString(out, metadata.getTitle());
+                out.writeFloat(metadata.getDuration());
+                out.writeInt(metadata.getArtistId());
+            }
+        }
+    }
+
+    /** @param trackCatalog interns the decoded tracks */
+    static Playlist read(ByteBuffer in, TrackCatalog trackCatalog) {
+        int id = in.getInt();
+        String uuid = readString(in);
+        String name = readString(in);
+        LocalDate registeredDate = date(in.getInt());
+        LocalDate lastUpdated = date(in.getInt());
+        boolean deleted = in.get() != 0;
+        TrackLayout layout = TrackLayout.values()[in.get()];
+        long version = in.getLong();
+        int nrOfTracks = in.getInt();
+        long durationMillis = in.getLong();
+
+        int trackCount = in.getInt();
+        List<PlaylistTrack> tracks = new ArrayList<>(trackCount);
+        for (int index = 0; index < trackCount; index++) {
+            Integer trackListId = optional(in.getInt());
+            int trackId = in.getInt();
+            PlaylistTrack.PlaylistTrackBuilder track =
+                    PlaylistTrack.builder()
+                            .id(trackListId)
+                            .index(index)
+                            .trackId(trackId)
+                            .dateAdded(date(in.getInt()));
+
+            if (in.get() != 0) {
+                Track metadata =
+                        Track.builder()
+                                .id(trackId)
+                                .title(readString(in))
+                                .duration(in.getFloat())
+                                .artistId(in.getInt())
+                                .build();
+                track.track(trackCatalog.intern(metadata));
+            }
+            tracks.add(track.build());
+        }
+
+        return Playlist.builder()
+                .id(optional(id))
+                .uuid(uuid)
+                .playListName(name)
+                .registeredDate(registeredDate)
+                .lastUpdated(lastUpdated)
+                .deleted(deleted)
+                .trackLayout(layout)
+                .version(version)
+                .nrOfTracks(nrOfTracks)
+                .durationMillis(durationMillis)
+                .tracks(layout.of(tracks))
+                .build();
+    }
+
+    /* [length, -1 for null][UTF-8] */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        String value =
+                new String(
+                        in.array(),
+                        in.arrayOffset() + in.position(),
+                        length,
+                        StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date != null ? Math.toIntExact(date.toEpochDay()) : NONE;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay != NONE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    private static Integer optional(int value) {
+        return value != NONE ? value : null;
+    }
+}
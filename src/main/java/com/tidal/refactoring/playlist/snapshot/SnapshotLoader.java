@@ -0,0 +1,160 @@
+package com.tidal.refactoring.playlist.snapshot;
+
+import com.tidal.refactoring.playlist.concurrent.PlaylistExecutors;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import lombok.Builder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a snapshot file written by {@link SnapshotWriter}, decoding its chunks on several threads
+ * at once. Meant to fill the in-memory store before the service admits traffic:
+ *
+ * <pre>
+ * LoadStats stats = SnapshotLoader.builder().file(file).build().load(repository::save);
+ * </pre>
+ */
+public class SnapshotLoader {
+
+    private final Path file;
+    private final int parallelism;
+    private final TrackCatalog trackCatalog;
+
+    /**
+     * @param file the snapshot file
+     * @param parallelism threads decoding chunks, the available processors if not set
+     * @param trackCatalog interns the loaded tracks, {@link TrackCatalog#shared()} if not set
+     */
+    @Builder
+    public SnapshotLoader(Path file, int parallelism, TrackCatalog trackCatalog) {
+        if (file == null) throw new IllegalArgumentException("file must not be null");
+
+        this.file = file;
+        this.parallelism =
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.trackCatalog = trackCatalog != null ? trackCatalog : TrackCatalog.shared();
+    }
+
+    /**
+     * Loads every playlist of the snapshot and passes it to {@code consumer}, which is called from
+     * several threads at once. Returns once all playlists were passed on.
+     *
+     * @throws IOException when the file is not a snapshot, has an unknown version or a chunk fails
+     *     its checksum
+     */
+    public LoadStats load(Consumer<Playlist> consumer) throws IOException {
+        long start = System.nanoTime();
+        LongAdder playlists = new LongAdder();
+        LongAdder tracks = new LongAdder();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, SnapshotFormat.HEADER_BYTES);
+            if (header.getInt() != SnapshotFormat.MAGIC)
+                throw new IOException("Not a playlist snapshot: " + file);
+            int version = header.getInt();
+            if (version != SnapshotFormat.VERSION)
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+
+            long[] chunkOffsets = chunkOffsets(channel);
+            int threads = Math.max(1, Math.min(parallelism, chunkOffsets.length));
+            int queueCapacity = Math.max(1, chunkOffsets.length);
+            ExecutorService executor = PlaylistExecutors.boundedPlatformPool(threads, queueCapacity);
+            try {
+                List<Future<?>> chunks = new ArrayList<>(chunkOffsets.length);
+                for (long offset : chunkOffsets) {
+                    chunks.add(
+                            executor.submit(
+                                    () -> {
+                                        loadChunk(channel, offset, consumer, playlists, tracks);
+                                        return null;
+                                    }));
+                }
+                for (Future<?> chunk : chunks) chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted loading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IOException("Failed loading " + file, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+
+            return new LoadStats(
+                    playlists.sum(),
+                    tracks.sum(),
+                    chunkOffsets.length,
+                    threads,
+                    System.nanoTime() - start);
+        }
+    }
+
+    private void loadChunk(
+            FileChannel channel,
+            long offset,
+            Consumer<Playlist> consumer,
+            LongAdder playlists,
+            LongAdder tracks)
+            throws IOException {
+        ByteBuffer header = read(channel, offset, SnapshotFormat.CHUNK_HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        int count = header.getInt();
+
+        ByteBuffer payload = read(channel, offset + SnapshotFormat.CHUNK_HEADER_BYTES, length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        if ((int) crc.getValue() != checksum)
+            throw new IOException("Corrupt chunk at " + offset + ": " + file);
+
+        for (int i = 0; i < count; i++) {
+            Playlist playlist = SnapshotFormat.read(payload, trackCatalog);
+            consumer.accept(playlist);
+            playlists.increment();
+            tracks.add(playlist.getTracks().size());
+        }
+    }
+
+    private long[] chunkOffsets(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < SnapshotFormat.HEADER_BYTES + SnapshotFormat.TRAILER_BYTES)
+            throw new IOException("Truncated playlist snapshot: " + file);
+
+        ByteBuffer trailer =
+                read(channel, size - SnapshotFormat.TRAILER_BYTES, SnapshotFormat.TRAILER_BYTES);
+        long footerOffset = trailer.getLong();
+        int chunkCount = trailer.getInt();
+        if (trailer.getInt() != SnapshotFormat.MAGIC)
+            throw new IOException("Truncated playlist snapshot: " + file);
+
+        ByteBuffer footer = read(channel, footerOffset, 8 * chunkCount);
+        long[] offsets = new long[chunkCount];
+        for (int i = 0; i < chunkCount; i++) offsets[i] = footer.getLong();
+        return offsets;
+    }
+
+    /* Positional reads, safe to run concurrently on one channel */
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of playlist snapshot");
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,123 @@
+package com.tidal.refactoring.playlist.snapshot;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import lombok.Builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writes playlists to a snapshot file for {@link SnapshotLoader}, see {@link SnapshotFormat} for
+ * the layout. The file is written next to its target and moved into place by {@link #close()}, a
+ * reader never sees a partial snapshot.
+ *
+ * <p>Each playlist is written as of its current {@link
+ * com.tidal.refactoring.playlist.data.PlaylistSnapshot}, so it is consistent even while edits
+ * continue. Not thread safe.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private static final int DEFAULT_CHUNK_PLAYLISTS = 1024;
+
+    private final Path file;
+    private final Path partial;
+    private final int chunkPlaylists;
+    private final FileChannel channel;
+
+    private final List<Long> chunkOffsets = new ArrayList<>();
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private final DataOutputStream chunkOut = new DataOutputStream(chunk);
+    private int chunkCount;
+    private long playlistCount;
+
+    /**
+     * @param file the snapshot file, replaced on close if it exists
+     * @param chunkPlaylists playlists per chunk, the unit a loader thread decodes. 1024 if not set
+     */
+    @Builder
+    public SnapshotWriter(Path file, int chunkPlaylists) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file must not be null");
+
+        this.file = file;
+        this.partial = file.resolveSibling(file.getFileName() + ".partial");
+        this.chunkPlaylists = chunkPlaylists > 0 ? chunkPlaylists : DEFAULT_CHUNK_PLAYLISTS;
+        this.channel =
+                FileChannel.open(
+                        partial,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_BYTES);
+        header.putInt(SnapshotFormat.MAGIC).putInt(SnapshotFormat.VERSION).putLong(0).flip();
+        write(header);
+    }
+
+    public void write(Playlist playlist) throws IOException {
+        SnapshotFormat.write(chunkOut, playlist);
+        playlistCount++;
+        if (++chunkCount == chunkPlaylists) writeChunk();
+    }
+
+    public void writeAll(Iterable<Playlist> playlists) throws IOException {
+        for (Playlist playlist : playlists) write(playlist);
+    }
+
+    /** @return playlists written so far */
+    public long playlistCount() {
+        return playlistCount;
+    }
+
+    /** Writes the last chunk and the footer, forces the file to disk and moves it into place */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+
+        try {
+            if (chunkCount > 0) writeChunk();
+
+            long footerOffset = channel.position();
+            ByteBuffer footer =
+                    ByteBuffer.allocate(8 * chunkOffsets.size() + SnapshotFormat.TRAILER_BYTES);
+            for (long offset : chunkOffsets) footer.putLong(offset);
+            footer.putLong(footerOffset).putInt(chunkOffsets.size()).putInt(SnapshotFormat.MAGIC);
+            footer.flip();
+            write(footer);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.move(
+                partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeChunk() throws IOException {
+        byte[] payload = chunk.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.CHUNK_HEADER_BYTES);
+        header.putInt(payload.length).putInt((int) crc.getValue()).putInt(chunkCount).flip();
+
+        chunkOffsets.add(channel.position());
+        write(header);
+        write(ByteBuffer.wrap(payload));
+        chunk.reset();
+        chunkCount = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,32 @@
+package com.tidal.refactoring.playlist.takedown;
+
+import lombok.Value;
+
+/** Point-in-time counters of one {@link TrackTakedown#takedown} run, the last one is its outcome */
+@Value
+public class TakedownProgress {
+
+    int trackId;
+
+    /* Playlists listed for the track when the run started, and those done so far */
+    long playlistCount;
+    long processedCount;
+
+    /* Playlists the track was removed from, and occurrences removed from them */
+    long affectedCount;
+    long removedTrackCount;
+
+    /* Playlists that failed, e.g. deleted meanwhile, their errors are not retried */
+    long failedCount;
+
+    long elapsedNanos;
+
+    public boolean isDone() {
+        return processedCount == playlistCount;
+    }
+
+    /** @return playlists processed per second so far */
+    public double playlistsPerSecond() {
+        return elapsedNanos == 0 ? 0 : processedCount * 1e9 / elapsedNanos;
+    }
+}
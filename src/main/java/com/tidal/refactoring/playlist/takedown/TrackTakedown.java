@@ -0,0 +1,142 @@
+package com.tidal.refactoring.playlist.takedown;
+
+import com.tidal.refactoring.playlist.concurrent.PlaylistExecutors;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.TrackReverseIndex;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Removes a track from every playlist holding it, e.g. when a label pulls it. The playlists come
+ * from a {@link TrackReverseIndex} instead of a scan, and are processed in batches on a bounded
+ * pool. Each playlist is one {@link PlaylistService#removeTracksById} call, which keeps its track
+ * count and duration in step, so the service's journal and decorators such as locking apply.
+ *
+ * <p>A playlist failing, e.g. deleted meanwhile, is counted and skipped, the run goes on.
+ */
+public class TrackTakedown {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final PlaylistService playlistService;
+    private final TrackReverseIndex reverseIndex;
+    private final int parallelism;
+    private final int batchSize;
+
+    /**
+     * @param playlistService applies the removals, with the reverse index as its listener
+     * @param parallelism batches processed at once, one per core if not set
+     * @param batchSize playlists per batch, progress is reported once per batch, 256 if not set
+     */
+    @Builder
+    public TrackTakedown(
+            PlaylistService playlistService,
+            TrackReverseIndex reverseIndex,
+            int parallelism,
+            int batchSize) {
+        if (playlistService == null)
+            throw new IllegalArgumentException("playlistService must not be null");
+        if (reverseIndex == null)
+            throw new IllegalArgumentException("reverseIndex must not be null");
+
+        this.playlistService = playlistService;
+        this.reverseIndex = reverseIndex;
+        this.parallelism =
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Removes every occurrence of the track from the playlists listed for it when the run starts
+     *
+     * @param progress told after every batch, one call at a time
+     * @return the counters of the finished run
+     */
+    public TakedownProgress takedown(int trackId, Consumer<TakedownProgress> progress)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        List<String> uuids = new ArrayList<>(reverseIndex.playlistsWithTrack(trackId));
+        Counters counters = new Counters(trackId, uuids.size(), start);
+        if (uuids.isEmpty()) return counters.snapshot();
+
+        int batches = (uuids.size() + batchSize - 1) / batchSize;
+        int threads = Math.min(parallelism, batches);
+        ExecutorService executor = PlaylistExecutors.boundedPlatformPool(threads, batches);
+        try {
+            List<Future<?>> submitted = new ArrayList<>(batches);
+            for (int from = 0; from < uuids.size(); from += batchSize) {
+                List<String> batch = uuids.subList(from, Math.min(from + batchSize, uuids.size()));
+                submitted.add(
+                        executor.submit(
+                                () -> {
+                                    takedown(trackId, batch, counters);
+                                    counters.report(progress);
+                                }));
+            }
+            for (Future<?> batch : submitted) batch.get();
+        } catch (ExecutionException e) {
+            /* Only the progress consumer can throw, playlist failures are counted */
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Takedown of track " + trackId + " failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return counters.snapshot();
+    }
+
+    private void takedown(int trackId, List<String> uuids, Counters counters) {
+        List<Integer> trackIds = Collections.singletonList(trackId);
+        for (String uuid : uuids) {
+            try {
+                List<PlaylistTrack> removed = playlistService.removeTracksById(uuid, trackIds);
+                if (!removed.isEmpty()) {
+                    counters.affected.incrementAndGet();
+                    counters.removedTracks.addAndGet(removed.size());
+                }
+            } catch (RuntimeException e) {
+                counters.failed.incrementAndGet();
+            }
+            counters.processed.incrementAndGet();
+        }
+    }
+
+    private static class Counters {
+        private final int trackId;
+        private final long playlistCount;
+        private final long start;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong affected = new AtomicLong();
+        private final AtomicLong removedTracks = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private Counters(int trackId, long playlistCount, long start) {
+            this.trackId = trackId;
+            this.playlistCount = playlistCount;
+            this.start = start;
+        }
+
+        private synchronized void report(Consumer<TakedownProgress> progress) {
+            progress.accept(snapshot());
+        }
+
+        private TakedownProgress snapshot() {
+            return new TakedownProgress(
+                    trackId,
+                    playlistCount,
+                    processed.get(),
+                    affected.get(),
+                    removedTracks.get(),
+                    failed.get(),
+                    System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.concurrent.PlaylistExecutors;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncPlaylistServiceImplTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+    private static final List<Track> TRACKS =
+            Collections.singletonList(Track.builder().id(1).build());
+
+    @Mock private PlaylistService playlistService;
+
+    @Test
+    public void addTracksCompletesWithResultOfBlockingService() throws Exception {
+        List<PlaylistTrack> added = Collections.singletonList(PlaylistTrack.builder().build());
+        Mockito.when(playlistService.addTracks(PLAYLIST_UUID, TRACKS, 0)).thenReturn(added);
+        ExecutorService executor = PlaylistExecutors.boundedPlatformPool(1, 1);
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> result =
+                new AsyncPlaylistServiceImpl(playlistService, executor)
+                        .addTracks(PLAYLIST_UUID, TRACKS, 0);
+
+        /* Assertions */
+        assertSame(added, result.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void removeTracksCompletesExceptionallyWhenServiceThrows() {
+        Mockito.when(playlistService.removeTracks(PLAYLIST_UUID, Collections.singletonList(0)))
+                .thenThrow(new PlaylistException("Playlist not found"));
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> result =
+                new AsyncPlaylistServiceImpl(playlistService, Runnable::run)
+                        .removeTracks(PLAYLIST_UUID, Collections.singletonList(0));
+
+        /* Assertions */
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertTrue(thrown.getCause() instanceof PlaylistException);
+    }
+
+    @Test
+    public void addTracksFailsFutureWhenExecutorIsSaturated() {
+        Executor rejecting =
+                task -> {
+                    throw new RejectedExecutionException("saturated");
+                };
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> result =
+                new AsyncPlaylistServiceImpl(playlistService, rejecting)
+                        .addTracks(PLAYLIST_UUID, TRACKS, 0);
+
+        /* Assertions */
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertTrue(thrown.getCause() instanceof RejectedExecutionException);
+        Mockito.verifyNoInteractions(playlistService);
+    }
+
+    @Test
+    public void virtualThreadPerTaskIsOnlyAvailableOnJdk21AndLater() {
+        Optional<ExecutorService> executor = PlaylistExecutors.virtualThreadPerTask();
+        executor.ifPresent(ExecutorService::shutdown);
+
+        /* Assertions */
+        assertEquals(Runtime.version().feature() >= 21, executor.isPresent());
+    }
+}
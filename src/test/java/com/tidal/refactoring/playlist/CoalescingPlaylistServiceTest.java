@@ -0,0 +1,186 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.exception.ValidationException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistChangeListener;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import com.tidal.refactoring.playlist.metrics.InMemoryPlaylistMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+public class CoalescingPlaylistServiceTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+    private static final String UNKNOWN_UUID = "00000000-dead-beef-0000-000000000000";
+
+    @Mock private PlaylistRepository playlistRepository;
+
+    /* Runs submitted drains only when asked, so edits queue up like behind a busy writer */
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+
+    @Test
+    public void queuedEditsArePublishedAndWrittenBackOnce() throws Exception {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        List<Playlist> writtenBack = new ArrayList<>();
+        InMemoryPlaylistMetrics metrics = new InMemoryPlaylistMetrics();
+        CoalescingPlaylistService service =
+                CoalescingPlaylistService.builder()
+                        .playlistRepository(playlistRepository)
+                        .executor(pending::add)
+                        .writeBack(writtenBack::add)
+                        .metrics(metrics)
+                        .build();
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> first =
+                service.addTracks(PLAYLIST_UUID, track(1), 0);
+        CompletableFuture<List<PlaylistTrack>> second =
+                service.addTracks(PLAYLIST_UUID, track(2), -1);
+        CompletableFuture<List<PlaylistTrack>> third =
+                service.removeTracks(PLAYLIST_UUID, Collections.singletonList(0));
+        runPending();
+
+        /* Assertions */
+        assertEquals(1, first.get().get(0).getTrackId());
+        assertEquals(2, second.get().get(0).getTrackId());
+        assertEquals(1, third.get().size());
+        assertEquals(2, third.get().get(0).getTrackId());
+        assertEquals(1, playlist.getNrOfTracks());
+        assertEquals(Collections.singletonList(playlist), writtenBack);
+        Mockito.verify(playlistRepository, Mockito.times(1)).getPlaylistByUUID(PLAYLIST_UUID);
+
+        assertEquals(1, metrics.getCoalescedBatch().getCount());
+        assertEquals(3.0, metrics.coalescingRatio());
+        assertEquals(3, metrics.getQueueDepth().getMax());
+    }
+
+    @Test
+    public void failingEditFailsOnlyItsOwnFuture() throws Exception {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        CoalescingPlaylistService service =
+                new CoalescingPlaylistService(playlistRepository, pending::add);
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> added =
+                service.addTracks(PLAYLIST_UUID, track(1), 0);
+        CompletableFuture<List<PlaylistTrack>> outOfBounds =
+                service.removeTracks(PLAYLIST_UUID, Collections.singletonList(5));
+        CompletableFuture<List<PlaylistTrack>> invalid =
+                service.removeTracks(PLAYLIST_UUID, Collections.emptyList());
+        runPending();
+
+        /* Assertions */
+        assertEquals(1, added.get().size());
+        ExecutionException thrown = assertThrows(ExecutionException.class, outOfBounds::get);
+        assertTrue(thrown.getCause() instanceof PlaylistException);
+        thrown = assertThrows(ExecutionException.class, invalid::get);
+        assertTrue(thrown.getCause() instanceof ValidationException);
+        assertEquals(1, playlist.getNrOfTracks());
+    }
+
+    @Test
+    public void unknownPlaylistFailsEveryQueuedEdit() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.empty());
+        CoalescingPlaylistService service =
+                new CoalescingPlaylistService(playlistRepository, pending::add);
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> first = service.addTracks(UNKNOWN_UUID, track(1), 0);
+        CompletableFuture<List<PlaylistTrack>> second =
+                service.addTracks(UNKNOWN_UUID, track(2), 0);
+        runPending();
+
+        /* Assertions */
+        for (CompletableFuture<List<PlaylistTrack>> future : Arrays.asList(first, second)) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+            assertTrue(thrown.getCause() instanceof PlaylistException);
+        }
+        Mockito.verify(playlistRepository, Mockito.times(1)).getPlaylistByUUID(UNKNOWN_UUID);
+    }
+
+    @Test
+    public void failingListenerFailsEveryFutureOfBatch() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        IllegalStateException failure = new IllegalStateException("listener down");
+        CoalescingPlaylistService service =
+                CoalescingPlaylistService.builder()
+                        .playlistRepository(playlistRepository)
+                        .executor(pending::add)
+                        .listener(
+                                new PlaylistChangeListener() {
+                                    @Override
+                                    public void tracksAdded(
+                                            Playlist playlist, List<PlaylistTrack> added) {
+                                        throw failure;
+                                    }
+                                })
+                        .build();
+
+        /* Actual calls */
+        CompletableFuture<List<PlaylistTrack>> first =
+                service.addTracks(PLAYLIST_UUID, track(1), 0);
+        CompletableFuture<List<PlaylistTrack>> second =
+                service.addTracks(PLAYLIST_UUID, track(2), 0);
+        assertThrows(IllegalStateException.class, this::runPending);
+
+        /* Assertions */
+        for (CompletableFuture<List<PlaylistTrack>> future : Arrays.asList(first, second)) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+            assertSame(failure, thrown.getCause());
+        }
+        assertEquals(0, service.mailboxCount());
+    }
+
+    @Test
+    public void drainedMailboxIsRetiredAndReplaced() throws Exception {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        CoalescingPlaylistService service =
+                new CoalescingPlaylistService(playlistRepository, pending::add);
+
+        /* Actual calls and assertions */
+        CompletableFuture<List<PlaylistTrack>> first =
+                service.addTracks(PLAYLIST_UUID, track(1), 0);
+        assertEquals(1, service.mailboxCount());
+        runPending();
+        assertEquals(0, service.mailboxCount());
+
+        CompletableFuture<List<PlaylistTrack>> second =
+                service.addTracks(PLAYLIST_UUID, track(2), -1);
+        runPending();
+        assertEquals(0, service.mailboxCount());
+        assertEquals(1, first.get().size());
+        assertEquals(1, second.get().size());
+        assertEquals(2, playlist.getNrOfTracks());
+    }
+
+    private void runPending() {
+        for (Runnable drain; (drain = pending.poll()) != null; ) drain.run();
+    }
+
+    private static List<Track> track(int id) {
+        return Collections.singletonList(Track.builder().id(id).duration(60.0f).build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistOperation;
+import com.tidal.refactoring.playlist.data.PlaylistOperationResult;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.exception.ValidationException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import com.tidal.refactoring.playlist.repository.TrackReverseIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+public class PlaylistBatchServiceImplTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+    private static final String OTHER_PLAYLIST_UUID = "9fb0ba8e41c3a6f0c2d77e51";
+    private static final String UNKNOWN_UUID = "00000000-dead-beef-0000-000000000000";
+
+    private static final List<Track> TRACKS =
+            Collections.singletonList(Track.builder().id(1).duration(60.0f).build());
+
+    @Mock private PlaylistRepository playlistRepository;
+
+    @Test
+    public void applyLooksUpAllPlaylistsInOneBulkCall() {
+        Map<String, Playlist> playlists = new HashMap<>();
+        playlists.put(PLAYLIST_UUID, Playlist.builder().uuid(PLAYLIST_UUID).build());
+        playlists.put(OTHER_PLAYLIST_UUID, Playlist.builder().uuid(OTHER_PLAYLIST_UUID).build());
+        Mockito.when(playlistRepository.getPlaylistsByUUIDs(anyCollection())).thenReturn(playlists);
+
+        /* Actual calls */
+        List<PlaylistOperationResult> results =
+                new PlaylistBatchServiceImpl(playlistRepository)
+                        .apply(
+                                Arrays.asList(
+                                        PlaylistOperation.addTracks(PLAYLIST_UUID, TRACKS, -1),
+                                        PlaylistOperation.addTracks(OTHER_PLAYLIST_UUID, TRACKS, 0),
+                                        PlaylistOperation.addTracks(PLAYLIST_UUID, TRACKS, 0)));
+
+        /* Assertions */
+        assertTrue(results.stream().allMatch(PlaylistOperationResult::isSuccess));
+        assertEquals(2, playlists.get(PLAYLIST_UUID).getNrOfTracks());
+        assertEquals(1, playlists.get(OTHER_PLAYLIST_UUID).getNrOfTracks());
+        Mockito.verify(playlistRepository, Mockito.times(1)).getPlaylistsByUUIDs(anyCollection());
+        Mockito.verify(playlistRepository, Mockito.never()).getPlaylistByUUID(anyString());
+    }
+
+    @Test
+    public void applyReportsFailuresPerOperationWithoutAbortingTheBatch() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistsByUUIDs(anyCollection()))
+                .thenReturn(Collections.singletonMap(PLAYLIST_UUID, playlist));
+
+        /* Actual calls */
+        List<PlaylistOperationResult> results =
+                new PlaylistBatchServiceImpl(playlistRepository)
+                        .apply(
+                                Arrays.asList(
+                                        PlaylistOperation.addTracks(UNKNOWN_UUID, TRACKS, 0),
+                                        PlaylistOperation.removeTracks(
+                                                PLAYLIST_UUID, Collections.emptyList()),
+                                        PlaylistOperation.addTracks(PLAYLIST_UUID, TRACKS, 0)));
+
+        /* Assertions */
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).getError() instanceof PlaylistException);
+        assertTrue(results.get(1).getError() instanceof ValidationException);
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(1, results.get(2).getTracks().size());
+        assertEquals(1, playlist.getNrOfTracks());
+    }
+
+    @Test
+    public void applyReportsEditsToTheListener() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistsByUUIDs(anyCollection()))
+                .thenReturn(Collections.singletonMap(PLAYLIST_UUID, playlist));
+        TrackReverseIndex reverseIndex = new TrackReverseIndex();
+
+        /* Actual calls */
+        PlaylistBatchServiceImpl.builder()
+                .playlistRepository(playlistRepository)
+                .listener(reverseIndex)
+                .build()
+                .apply(
+                        Collections.singletonList(
+                                PlaylistOperation.addTracks(PLAYLIST_UUID, TRACKS, 0)));
+
+        /* Assertions */
+        assertEquals(Collections.singleton(PLAYLIST_UUID), reverseIndex.playlistsWithTrack(1));
+    }
+
+    @Test
+    public void applySplitsLookupsIntoBatches() {
+        Mockito.when(playlistRepository.getPlaylistsByUUIDs(anyCollection()))
+                .thenReturn(Collections.emptyMap());
+
+        List<PlaylistOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operations.add(PlaylistOperation.addTracks("playlist-" + i, TRACKS, 0));
+        }
+
+        /* Actual calls */
+        PlaylistBatchServiceImpl.builder()
+                .playlistRepository(playlistRepository)
+                .lookupBatchSize(2)
+                .build()
+                .apply(operations);
+
+        /* Assertions */
+        Mockito.verify(playlistRepository, Mockito.times(3)).getPlaylistsByUUIDs(anyCollection());
+    }
+}
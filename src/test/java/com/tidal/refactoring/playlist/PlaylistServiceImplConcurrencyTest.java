@@ -0,0 +1,155 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Lock-free edits of one playlist: every published snapshot must be consistent */
+public class PlaylistServiceImplConcurrencyTest {
+
+    private static final String PLAYLIST_UUID = "optimistic-playlist";
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS_PER_WRITER = 2_000;
+
+    /* Whole-second durations keep float sums exact, so duration can be compared for equality */
+    private static final float TRACK_DURATION = 1.0f;
+
+    @Test
+    public void addTracksPublishesNewVersion() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).duration(0.0f).build();
+        repository.save(playlist);
+
+        long version = playlist.getVersion();
+        PlaylistSnapshot before = playlist.getSnapshot();
+
+        /* Actual calls */
+        new PlaylistServiceImpl(repository)
+                .addTracks(
+                        PLAYLIST_UUID,
+                        Collections.singletonList(Track.builder().id(1).duration(60.0f).build()),
+                        -1);
+
+        /* Assertions */
+        assertEquals(version + 1, playlist.getVersion());
+        assertEquals(0, before.getNrOfTracks());
+        assertEquals(0, before.getTracks().size());
+        assertEquals(1, playlist.getSnapshot().getNrOfTracks());
+        assertEquals(60.0f, playlist.getSnapshot().getDuration());
+    }
+
+    @Test
+    public void concurrentUnlockedEditsPublishOnlyConsistentSnapshots() throws Exception {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        Playlist playlist =
+                Playlist.builder().id(1).uuid(PLAYLIST_UUID).nrOfTracks(0).duration(0.0f).build();
+        repository.save(playlist);
+        PlaylistService playlistService = new PlaylistServiceImpl(repository);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> readerFailure = new AtomicReference<>();
+        AtomicInteger published = new AtomicInteger();
+
+        Future<?> reader =
+                executor.submit(
+                        () -> {
+                            await(start);
+                            long lastVersion = -1;
+                            while (writing.get()) {
+                                PlaylistSnapshot snapshot = playlist.getSnapshot();
+                                String failure = snapshotFailure(snapshot);
+                                if (snapshot.getVersion() < lastVersion)
+                                    failure = "version went back to " + snapshot.getVersion();
+                                if (failure != null) readerFailure.compareAndSet(null, failure);
+                                lastVersion = snapshot.getVersion();
+                            }
+                        });
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            Random random = new Random(w);
+            writers.add(
+                    executor.submit(
+                            () -> {
+                                await(start);
+                                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                                    if (edit(playlistService, playlist, random))
+                                        published.incrementAndGet();
+                                }
+                            }));
+        }
+
+        /* Actual calls */
+        start.countDown();
+        for (Future<?> writer : writers) writer.get(60, TimeUnit.SECONDS);
+        writing.set(false);
+        reader.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        /* Assertions */
+        assertNull(readerFailure.get());
+        assertNull(snapshotFailure(playlist.getSnapshot()));
+        assertEquals(published.get(), playlist.getVersion());
+    }
+
+    private static boolean edit(PlaylistService playlistService, Playlist playlist, Random random) {
+        int size = playlist.getNrOfTracks();
+        try {
+            if (size < 2 || random.nextBoolean()) {
+                playlistService.addTracks(
+                        PLAYLIST_UUID,
+                        Collections.singletonList(
+                                Track.builder()
+                                        .id(random.nextInt(10_000))
+                                        .duration(TRACK_DURATION)
+                                        .build()),
+                        random.nextInt(size + 2) - 1);
+            } else {
+                playlistService.removeTracks(
+                        PLAYLIST_UUID, Collections.singletonList(random.nextInt(size)));
+            }
+            return true;
+        } catch (PlaylistException e) {
+            /* Full playlists and indexes made stale by another writer are rejected */
+            return false;
+        }
+    }
+
+    private static String snapshotFailure(PlaylistSnapshot snapshot) {
+        int size = snapshot.getTracks().size();
+        if (snapshot.getNrOfTracks() != size)
+            return "nrOfTracks " + snapshot.getNrOfTracks() + " for " + size + " tracks";
+        if (snapshot.getDuration() != size * TRACK_DURATION)
+            return "duration " + snapshot.getDuration() + " for " + size + " tracks";
+
+        int expected = 0;
+        for (PlaylistTrack playlistTrack : snapshot.getTracks()) {
+            if (playlistTrack.getIndex() != expected++)
+                return "index " + playlistTrack.getIndex() + " at " + (expected - 1);
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
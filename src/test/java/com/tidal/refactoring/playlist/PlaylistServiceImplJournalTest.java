@@ -0,0 +1,180 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.history.PlaylistHistory;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.journal.JournalRecord;
+import com.tidal.refactoring.playlist.journal.JournalReplayer;
+import com.tidal.refactoring.playlist.journal.PlaylistJournal;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistServiceImplJournalTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+
+    @TempDir Path directory;
+
+    private static Track track(int id) {
+        return Track.builder().id(id).title("Track " + id).duration(1.5f * id).build();
+    }
+
+    /* Random edits, edit lists, undos and redos through the journal, replayed onto an empty
+     * playlist */
+    @Test
+    public void replayRebuildsPlaylistFromJournaledEdits() throws Exception {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        repository.save(playlist);
+
+        Random random = new Random(11);
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            PlaylistService service =
+                    PlaylistServiceImpl.builder()
+                            .playlistRepository(repository)
+                            .history(PlaylistHistory.builder().maxVersions(5).build())
+                            .journal(journal)
+                            .build();
+            for (int i = 0; i < 300; i++) {
+                int size = playlist.getNrOfTracks();
+                try {
+                    if (size < 10 || random.nextInt(3) > 0) {
+                        service.addTracks(
+                                PLAYLIST_UUID,
+                                Arrays.asList(track(i), track(i + 1000)),
+                                random.nextInt(size + 2) - 1);
+                    } else if (random.nextBoolean()) {
+                        service.removeTracks(
+                                PLAYLIST_UUID,
+                                Arrays.asList(random.nextInt(size), random.nextInt(size + 1)));
+                    } else if (random.nextInt(3) == 0) {
+                        if (random.nextInt(3) > 0) service.undo(PLAYLIST_UUID);
+                        else service.redo(PLAYLIST_UUID);
+                    } else if (random.nextBoolean()) {
+                        int from = random.nextInt(size);
+                        service.removeRange(PLAYLIST_UUID, from, from + random.nextInt(4));
+                    } else {
+                        service.applyEdits(
+                                PLAYLIST_UUID,
+                                Arrays.asList(
+                                        PlaylistEdit.replace(
+                                                random.nextInt(size), track(i + 2000)),
+                                        PlaylistEdit.move(
+                                                random.nextInt(size - 1),
+                                                2,
+                                                random.nextInt(size - 1)),
+                                        PlaylistEdit.remove(random.nextInt(size), 1),
+                                        PlaylistEdit.insert(
+                                                random.nextInt(size + 1) - 1,
+                                                Collections.singletonList(track(i + 3000)))));
+                    }
+                } catch (PlaylistException e) {
+                    /* Rejected edits are not journaled */
+                }
+            }
+        }
+
+        /* Actual calls */
+        Playlist rebuilt = replay(playlist);
+
+        /* Assertions */
+        assertEquals(playlist.getTracks().toList(), rebuilt.getTracks().toList());
+        assertEquals(playlist.getNrOfTracks(), rebuilt.getNrOfTracks());
+        assertEquals(playlist.getDurationMillis(), rebuilt.getDurationMillis());
+    }
+
+    /* Without locking the records of racing edits reach the journal in any order */
+    @Test
+    public void replayRebuildsPlaylistFromConcurrentEdits() throws Exception {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        repository.save(playlist);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            PlaylistService service =
+                    PlaylistServiceImpl.builder()
+                            .playlistRepository(repository)
+                            .journal(journal)
+                            .build();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int worker = 0; worker < 8; worker++) {
+                int seed = worker;
+                workers.add(
+                        executor.submit(
+                                () -> {
+                                    Random random = new Random(seed);
+                                    for (int i = 0; i < 200; i++) {
+                                        int id = seed * 1000 + i;
+                                        try {
+                                            if (random.nextInt(3) > 0) {
+                                                service.addTracks(
+                                                        PLAYLIST_UUID,
+                                                        Arrays.asList(track(id), track(id + 1)),
+                                                        random.nextInt(4) - 1);
+                                            } else {
+                                                service.removeTracks(
+                                                        PLAYLIST_UUID,
+                                                        Collections.singletonList(
+                                                                random.nextInt(3)));
+                                            }
+                                        } catch (PlaylistException e) {
+                                            /* Index out of bounds of a shrunk playlist */
+                                        }
+                                    }
+                                }));
+            }
+            for (Future<?> worker : workers) worker.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        /* Actual calls */
+        Playlist rebuilt = replay(playlist);
+
+        /* Assertions */
+        assertEquals(playlist.getVersion(), rebuilt.getVersion());
+        assertEquals(playlist.getTracks().toList(), rebuilt.getTracks().toList());
+        assertEquals(playlist.getDurationMillis(), rebuilt.getDurationMillis());
+    }
+
+    @Test
+    public void replayRejectsMissingVersion() throws Exception {
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            journal.append(JournalRecord.add(PLAYLIST_UUID, 1, 0, new int[] {1}, null));
+            journal.append(JournalRecord.add(PLAYLIST_UUID, 3, 0, new int[] {3}, null));
+        }
+        Playlist rebuilt = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        JournalReplayer replayer =
+                new JournalReplayer(uuid -> rebuilt, PlaylistServiceImplJournalTest::track);
+
+        /* Actual calls and assertions */
+        assertThrows(IOException.class, () -> replayer.replay(directory));
+        assertEquals(1, rebuilt.getNrOfTracks());
+    }
+
+    /* Replays the journal onto an empty playlist, with the tracks of {@code playlist} */
+    private Playlist replay(Playlist playlist) throws IOException {
+        Playlist rebuilt = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Map<Integer, Track> tracks = new HashMap<>();
+        for (PlaylistTrack playlistTrack : playlist.getTracks()) {
+            tracks.put(playlistTrack.getTrackId(), playlistTrack.getTrack());
+        }
+        new JournalReplayer(uuid -> rebuilt, tracks::get).replay(directory);
+        return rebuilt;
+    }
+}
@@ -1,11 +1,23 @@
 package com.tidal.refactoring.playlist;
 
 import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistDiff;
+import com.tidal.refactoring.playlist.data.PlaylistEdit;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
 import com.tidal.refactoring.playlist.data.PlaylistTrack;
 import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.data.TrackSequence;
 import com.tidal.refactoring.playlist.exception.PlaylistException;
 import com.tidal.refactoring.playlist.exception.ValidationException;
+import com.tidal.refactoring.playlist.history.PlaylistHistory;
 import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import com.tidal.refactoring.playlist.metrics.InMemoryPlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.JfrPlaylistMetrics;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Failure;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Operation;
+import com.tidal.refactoring.playlist.metrics.PlaylistMetrics.Phase;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import com.tidal.refactoring.playlist.repository.TrackReverseIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -662,4 +674,552 @@ public class PlaylistServiceImplTest {
         int actualReassignedIndex = result.get(1).getIndex();
         assertTrue(expectedReassignedIndex == actualReassignedIndex);
     }
+
+    @Test
+    public void removeRangeShouldThrowPlaylistExceptionWhenRangeIsOutOfBounds() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).nrOfTracks(0).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Assertions */
+        assertThrows(
+                PlaylistException.class,
+                () -> playlistServiceImpl.removeRange(PLAYLIST_UUID, 0, 1));
+    }
+
+    @Test
+    public void removeRangeRemovesTracksAndTheirDuration() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tracks.add(Track.builder().id(i).duration(10.0f).build());
+        }
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        List<PlaylistTrack> result = playlistServiceImpl.removeRange(PLAYLIST_UUID, 2, 8);
+
+        /* Assertions */
+        assertEquals(4, result.size());
+        assertEquals(8, result.get(2).getTrack().getId());
+        assertEquals(2, result.get(2).getIndex());
+        assertEquals(4, playlist.getNrOfTracks());
+        assertEquals(40.0f, playlist.getDuration().floatValue());
+    }
+
+    @Test
+    public void removeRangeOfEmptyRangePublishesNothing() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        PlaylistHistory history = PlaylistHistory.builder().build();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .history(history)
+                        .build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        service.addTracks(
+                PLAYLIST_UUID, Collections.singletonList(Track.builder().id(1).build()), 0);
+        PlaylistSnapshot before = playlist.getSnapshot();
+        List<PlaylistTrack> result = service.removeRange(PLAYLIST_UUID, 1, 1);
+
+        /* Assertions */
+        assertEquals(1, result.size());
+        assertSame(before, playlist.getSnapshot());
+        assertEquals(0, service.undo(PLAYLIST_UUID).getNrOfTracks());
+    }
+
+    /* Float accumulation of 0.1s steps drifts, millisecond accounting returns to exactly zero */
+    @Test
+    public void addAndRemoveTracksLeaveNoDurationDrift() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Track track = Track.builder().id(TRACK_ID).duration(0.1f).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        for (int i = 0; i < 300; i++) {
+            playlistServiceImpl.addTracks(PLAYLIST_UUID, Collections.singletonList(track), 0);
+        }
+        long afterAdding = playlist.getDurationMillis();
+        for (int i = 0; i < 300; i += 2) {
+            playlistServiceImpl.removeTracks(PLAYLIST_UUID, Arrays.asList(0, 1));
+        }
+
+        /* Assertions */
+        assertEquals(30_000, afterAdding);
+        assertEquals(0, playlist.getDurationMillis());
+        assertTrue(playlist.getSnapshot().isDurationConsistent());
+    }
+
+    @Test
+    public void addTracksSharesOneTrackInstanceAcrossPlaylists() {
+        Playlist first = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Playlist second = Playlist.builder().uuid("9fb0ba8e41c3a6f0c2d77e51").build();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .trackCatalog(new TrackCatalog())
+                        .build();
+
+        /* Actual calls */
+        service.addTracks(
+                first, Collections.singletonList(Track.builder().id(TRACK_ID).build()), 0);
+        service.addTracks(
+                second, Collections.singletonList(Track.builder().id(TRACK_ID).build()), 0);
+
+        /* Assertions */
+        assertSame(first.getTracks().get(0).getTrack(), second.getTracks().get(0).getTrack());
+    }
+
+    @Test
+    public void servicesWithoutCatalogShareTheSharedOne() {
+        Playlist first = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Playlist second = Playlist.builder().uuid("9fb0ba8e41c3a6f0c2d77e51").build();
+        PlaylistServiceImpl built =
+                PlaylistServiceImpl.builder().playlistRepository(playlistRepository).build();
+        int trackId = 740_001;
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(
+                first, Collections.singletonList(Track.builder().id(trackId).build()), 0);
+        built.addTracks(second, Collections.singletonList(Track.builder().id(trackId).build()), 0);
+
+        /* Assertions */
+        Track track = first.getTracks().get(0).getTrack();
+        assertSame(track, second.getTracks().get(0).getTrack());
+        assertSame(track, TrackCatalog.shared().intern(Track.builder().id(trackId).build()));
+    }
+
+    @Test
+    public void getTracksShouldThrowValidationExceptionWhenOffsetIsNegative() {
+        assertThrows(
+                ValidationException.class,
+                () -> playlistServiceImpl.getTracks(PLAYLIST_UUID, -1, 50));
+
+        Mockito.verify(playlistRepository, Mockito.never()).getPlaylistByUUID(anyString());
+    }
+
+    @Test
+    public void getTracksReturnsOnePageInIndexOrder() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 120; i++) tracks.add(Track.builder().id(i).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        List<PlaylistTrack> page = playlistServiceImpl.getTracks(PLAYLIST_UUID, 100, 50);
+        List<PlaylistTrack> pastEnd = playlistServiceImpl.getTracks(PLAYLIST_UUID, 150, 50);
+
+        /* Assertions */
+        assertEquals(20, page.size());
+        assertEquals(100, page.get(0).getIndex());
+        assertEquals(119, page.get(19).getTrack().getId());
+        assertTrue(pastEnd.isEmpty());
+        assertEquals(120, playlistServiceImpl.streamTracks(PLAYLIST_UUID).count());
+    }
+
+    @Test
+    public void removeTracksWithConsumerReportsOnlyTheRemovedTracks() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) tracks.add(Track.builder().id(i).duration(10.0f).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        List<PlaylistTrack> removed = new ArrayList<>();
+        List<Integer> indexes = Arrays.asList(7, 2, 7);
+        int count = playlistServiceImpl.removeTracks(PLAYLIST_UUID, indexes, removed::add);
+
+        /* Assertions */
+        assertEquals(2, count);
+        assertEquals(2, removed.get(0).getIndex());
+        assertEquals(7, removed.get(1).getTrack().getId());
+        assertEquals(8, playlist.getNrOfTracks());
+        assertEquals(80_000, playlist.getDurationMillis());
+    }
+
+    @Test
+    public void removeTracksByIdRemovesEveryOccurrenceAndKeepsTheIndexInStep() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) tracks.add(Track.builder().id(i % 4).duration(10.0f).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        boolean containedBefore = playlistServiceImpl.containsTrack(PLAYLIST_UUID, 1);
+        List<PlaylistTrack> removed =
+                playlistServiceImpl.removeTracksById(PLAYLIST_UUID, Arrays.asList(1, 3, 99));
+        List<PlaylistTrack> removedAgain =
+                playlistServiceImpl.removeTracksById(PLAYLIST_UUID, Collections.singletonList(1));
+        playlistServiceImpl.removeRange(PLAYLIST_UUID, 0, 1);
+
+        /* Assertions */
+        assertTrue(containedBefore);
+        assertEquals(5, removed.size());
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), indexes(removed));
+        assertTrue(removedAgain.isEmpty());
+        assertFalse(playlistServiceImpl.containsTrack(PLAYLIST_UUID, 1));
+        assertFalse(playlistServiceImpl.containsTrack(PLAYLIST_UUID, 3));
+        assertEquals(2, playlist.getSnapshot().getTrackIds().count(0));
+        assertEquals(2, playlist.getSnapshot().getTrackIds().count(2));
+        assertEquals(4, playlist.getNrOfTracks());
+        assertEquals(40_000, playlist.getDurationMillis());
+    }
+
+    @Test
+    public void addTracksSkippingDuplicatesAddsOnlyNewTracks() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Track first = Track.builder().id(1).build();
+        Track second = Track.builder().id(2).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, Collections.singletonList(first), 0);
+        List<PlaylistTrack> added =
+                playlistServiceImpl.addTracks(
+                        PLAYLIST_UUID, Arrays.asList(first, second, second), -1, true);
+        long version = playlist.getVersion();
+        List<PlaylistTrack> none =
+                playlistServiceImpl.addTracks(PLAYLIST_UUID, Arrays.asList(second), 0, true);
+
+        /* Assertions */
+        assertEquals(1, added.size());
+        assertEquals(2, added.get(0).getTrackId());
+        assertEquals(1, added.get(0).getIndex());
+        assertTrue(none.isEmpty());
+        assertEquals(version, playlist.getVersion());
+        assertEquals(2, playlist.getNrOfTracks());
+    }
+
+    @Test
+    public void removeTracksByIdShouldThrowValidationExceptionWhenTrackIdsAreEmpty() {
+        /* Actual calls and assertions */
+        assertThrows(
+                ValidationException.class,
+                () -> playlistServiceImpl.removeTracksById(PLAYLIST_UUID, Collections.emptyList()));
+    }
+
+    @Test
+    public void applyEditsPublishesAllEditsAtOnce() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) tracks.add(Track.builder().id(i).duration(10.0f).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        playlistServiceImpl.containsTrack(PLAYLIST_UUID, 0);
+        long version = playlist.getVersion();
+        PlaylistDiff diff =
+                playlistServiceImpl.applyEdits(
+                        PLAYLIST_UUID,
+                        Arrays.asList(
+                                PlaylistEdit.insert(
+                                        -1,
+                                        Collections.singletonList(
+                                                Track.builder().id(10).duration(20.0f).build())),
+                                PlaylistEdit.remove(0, 2),
+                                PlaylistEdit.move(3, 2, 0),
+                                PlaylistEdit.replace(
+                                        4, Track.builder().id(11).duration(20.0f).build())));
+
+        /* Assertions */
+        assertEquals(version, diff.getFromVersion());
+        assertEquals(version + 1, playlist.getVersion());
+        assertEquals(version + 1, diff.getToVersion());
+        assertEquals(6, diff.getEdits().get(0).getIndex());
+        assertEquals(Arrays.asList(6, 4), indexes(diff.getAdded()));
+        assertEquals(Arrays.asList(0, 1, 4), indexes(diff.getRemoved()));
+        assertEquals(4, diff.getRemoved().get(2).getTrackId());
+
+        List<Integer> trackIds = new ArrayList<>();
+        for (PlaylistTrack track : playlist.getTracks()) trackIds.add(track.getTrackId());
+        assertEquals(Arrays.asList(5, 10, 2, 3, 11), trackIds);
+        assertEquals(5, diff.getNrOfTracks());
+        assertEquals(70_000, diff.getDurationMillis());
+        assertEquals(70_000, playlist.getDurationMillis());
+        assertTrue(playlistServiceImpl.containsTrack(PLAYLIST_UUID, 11));
+        assertFalse(playlistServiceImpl.containsTrack(PLAYLIST_UUID, 4));
+    }
+
+    @Test
+    public void applyEditsRejectsTheWholeListWhenOneEditIsInvalid() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 498; i++) tracks.add(Track.builder().id(i).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls and assertions */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks.subList(0, 3), 0);
+        long version = playlist.getVersion();
+        assertThrows(
+                PlaylistException.class,
+                () ->
+                        playlistServiceImpl.applyEdits(
+                                PLAYLIST_UUID,
+                                Arrays.asList(
+                                        PlaylistEdit.remove(0, 1), PlaylistEdit.move(0, 2, 1))));
+        assertThrows(
+                ValidationException.class,
+                () ->
+                        playlistServiceImpl.applyEdits(
+                                PLAYLIST_UUID,
+                                Collections.singletonList(PlaylistEdit.remove(0, 0))));
+        assertEquals(version, playlist.getVersion());
+        assertEquals(3, playlist.getNrOfTracks());
+
+        /* Only the end state has to fit, 501 tracks in between are never published */
+        playlistServiceImpl.applyEdits(
+                PLAYLIST_UUID,
+                Arrays.asList(PlaylistEdit.insert(0, tracks), PlaylistEdit.remove(0, 1)));
+        assertEquals(500, playlist.getNrOfTracks());
+        assertThrows(
+                PlaylistException.class,
+                () ->
+                        playlistServiceImpl.applyEdits(
+                                PLAYLIST_UUID,
+                                Collections.singletonList(
+                                        PlaylistEdit.insert(0, tracks.subList(0, 1)))));
+    }
+
+    @Test
+    public void moveTracksKeepsTheMovedTracks() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) tracks.add(Track.builder().id(i).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls */
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, tracks, 0);
+        PlaylistTrack moved = playlist.getTracks().get(0);
+        PlaylistDiff diff = playlistServiceImpl.moveTracks(PLAYLIST_UUID, 0, 2, 3);
+
+        /* Assertions */
+        assertTrue(diff.getAdded().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertEquals(5, diff.getNrOfTracks());
+        assertEquals(moved.withIndex(3), playlist.getTracks().get(3));
+        assertEquals(1, playlist.getTracks().get(4).getTrackId());
+        assertEquals(2, playlist.getTracks().get(0).getTrackId());
+    }
+
+    @Test
+    public void undoAndRedoRepublishRetainedVersions() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        TrackReverseIndex reverseIndex = new TrackReverseIndex();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .listener(reverseIndex)
+                        .history(PlaylistHistory.builder().maxVersions(2).build())
+                        .build();
+        Track first = Track.builder().id(1).duration(10.0f).build();
+        Track second = Track.builder().id(2).duration(10.0f).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls and assertions */
+        service.addTracks(PLAYLIST_UUID, Collections.singletonList(first), 0);
+        service.addTracks(PLAYLIST_UUID, Collections.singletonList(second), -1);
+        long beforeRemoval = playlist.getVersion();
+        service.removeRange(PLAYLIST_UUID, 0, 1);
+        assertFalse(reverseIndex.playlistsWithTrack(1).contains(PLAYLIST_UUID));
+        TrackSequence retained = service.getVersion(PLAYLIST_UUID, beforeRemoval).getTracks();
+
+        /* The retained tracks are published again, not copied */
+        PlaylistSnapshot undone = service.undo(PLAYLIST_UUID);
+        assertEquals(beforeRemoval + 2, undone.getVersion());
+        assertSame(retained, undone.getTracks());
+        assertEquals(20_000, playlist.getDurationMillis());
+        assertTrue(reverseIndex.playlistsWithTrack(1).contains(PLAYLIST_UUID));
+
+        service.undo(PLAYLIST_UUID);
+        assertEquals(1, playlist.getNrOfTracks());
+        assertThrows(PlaylistException.class, () -> service.undo(PLAYLIST_UUID));
+
+        service.redo(PLAYLIST_UUID);
+        assertEquals(2, playlist.getNrOfTracks());
+        assertSame(
+                playlist.getSnapshot(), service.getVersion(PLAYLIST_UUID, playlist.getVersion()));
+
+        /* A new edit drops the redo steps, the oldest versions are no longer retained */
+        service.removeRange(PLAYLIST_UUID, 0, 1);
+        assertThrows(PlaylistException.class, () -> service.redo(PLAYLIST_UUID));
+        assertThrows(
+                PlaylistException.class, () -> service.getVersion(PLAYLIST_UUID, beforeRemoval));
+        assertEquals(2, playlist.getTracks().get(0).getTrackId());
+        assertTrue(reverseIndex.playlistsWithTrack(1).isEmpty());
+    }
+
+    @Test
+    public void undoDoesNotDiscardEditsPublishedWithoutHistory() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        PlaylistHistory history = PlaylistHistory.builder().build();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .history(history)
+                        .build();
+        CoalescingPlaylistService coalescing =
+                CoalescingPlaylistService.builder()
+                        .playlistRepository(playlistRepository)
+                        .executor(Runnable::run)
+                        .history(history)
+                        .build();
+        Track first = Track.builder().id(1).build();
+        Track second = Track.builder().id(2).build();
+        Track third = Track.builder().id(3).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls and assertions */
+        service.addTracks(PLAYLIST_UUID, Collections.singletonList(first), 0);
+        playlistServiceImpl.addTracks(PLAYLIST_UUID, Collections.singletonList(second), -1);
+        assertThrows(PlaylistException.class, () -> service.undo(PLAYLIST_UUID));
+        assertEquals(2, playlist.getNrOfTracks());
+
+        /* Recorded again from here on, the steps before the unrecorded edit are dropped */
+        service.addTracks(PLAYLIST_UUID, Collections.singletonList(third), -1);
+        service.undo(PLAYLIST_UUID);
+        assertEquals(Arrays.asList(0, 1), indexes(playlist.getTracks().toList()));
+        assertEquals(2, playlist.getTracks().get(1).getTrackId());
+        assertThrows(PlaylistException.class, () -> service.undo(PLAYLIST_UUID));
+
+        /* A coalesced batch is one step of the shared history */
+        coalescing.removeTracks(PLAYLIST_UUID, Arrays.asList(0, 1)).join();
+        assertEquals(0, playlist.getNrOfTracks());
+        service.undo(PLAYLIST_UUID);
+        assertEquals(2, playlist.getNrOfTracks());
+        service.redo(PLAYLIST_UUID);
+        assertEquals(0, playlist.getNrOfTracks());
+    }
+
+    @Test
+    public void undoShouldThrowPlaylistExceptionWithoutHistory() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(anyString()))
+                .thenReturn(Optional.of(playlist));
+
+        /* Actual calls and assertions */
+        playlistServiceImpl.addTracks(
+                PLAYLIST_UUID, Collections.singletonList(Track.builder().id(1).build()), 0);
+        assertThrows(PlaylistException.class, () -> playlistServiceImpl.undo(PLAYLIST_UUID));
+        assertEquals(1, playlist.getNrOfTracks());
+    }
+
+    private static List<Integer> indexes(List<PlaylistTrack> tracks) {
+        List<Integer> indexes = new ArrayList<>();
+        for (PlaylistTrack track : tracks) indexes.add(track.getIndex());
+        return indexes;
+    }
+
+    @Test
+    public void metricsRecordPhasesFailuresAndSizes() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        InMemoryPlaylistMetrics metrics = new InMemoryPlaylistMetrics();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .metrics(new JfrPlaylistMetrics(metrics))
+                        .build();
+        List<Track> tracks =
+                Arrays.asList(Track.builder().id(1).build(), Track.builder().id(2).build());
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        Mockito.when(playlistRepository.getPlaylistByUUID("unknown")).thenReturn(Optional.empty());
+
+        /* Actual calls */
+        service.addTracks(PLAYLIST_UUID, tracks, 0);
+        assertThrows(ValidationException.class, () -> service.addTracks("", tracks, 0));
+        assertThrows(PlaylistException.class, () -> service.addTracks("unknown", tracks, 0));
+        assertThrows(
+                PlaylistException.class,
+                () -> service.removeTracks(PLAYLIST_UUID, Collections.singletonList(5)));
+
+        /* Assertions */
+        /* The unknown playlist passed validation, only the found one reached the mutation */
+        assertEquals(2, metrics.getLatency(Operation.ADD_TRACKS, Phase.VALIDATION).getCount());
+        assertEquals(1, metrics.getLatency(Operation.ADD_TRACKS, Phase.LOOKUP).getCount());
+        assertEquals(1, metrics.getLatency(Operation.ADD_TRACKS, Phase.MUTATION).getCount());
+        assertEquals(2, metrics.getBatchSize(Operation.ADD_TRACKS).getMax());
+        assertEquals(2, metrics.getPlaylistSize(Operation.ADD_TRACKS).getMax());
+        assertEquals(1, metrics.getFailureCount(Operation.ADD_TRACKS, Failure.INVALID_ARGUMENT));
+        assertEquals(
+                1, metrics.getFailureCount(Operation.ADD_TRACKS, Failure.PLAYLIST_NOT_FOUND));
+        assertEquals(
+                1,
+                metrics.getFailureCount(Operation.REMOVE_TRACKS, Failure.INDEX_OUT_OF_BOUNDS));
+        assertEquals(2.0 / 3, metrics.lookupHitRate(), 1e-9);
+    }
+
+    @Test
+    public void metricsRecordInvalidReadsAndRestores() {
+        InMemoryPlaylistMetrics metrics = new InMemoryPlaylistMetrics();
+        PlaylistServiceImpl service =
+                PlaylistServiceImpl.builder()
+                        .playlistRepository(playlistRepository)
+                        .metrics(metrics)
+                        .build();
+
+        /* Configure mocks */
+        Mockito.when(playlistRepository.getPlaylistByUUID("unknown")).thenReturn(Optional.empty());
+
+        /* Actual calls */
+        assertThrows(ValidationException.class, () -> service.containsTrack("", 1));
+        assertThrows(ValidationException.class, () -> service.getVersion(" ", 0));
+        assertThrows(ValidationException.class, () -> service.getTracks(PLAYLIST_UUID, -1, 5));
+        assertThrows(ValidationException.class, () -> service.streamTracks(null));
+        assertThrows(ValidationException.class, () -> service.undo(""));
+        assertThrows(PlaylistException.class, () -> service.getTracks("unknown", 0, 5));
+
+        /* Assertions */
+        assertEquals(4, metrics.getFailureCount(Operation.READ, Failure.INVALID_ARGUMENT));
+        assertEquals(1, metrics.getFailureCount(Operation.READ, Failure.PLAYLIST_NOT_FOUND));
+        assertEquals(1, metrics.getFailureCount(Operation.RESTORE, Failure.INVALID_ARGUMENT));
+    }
 }
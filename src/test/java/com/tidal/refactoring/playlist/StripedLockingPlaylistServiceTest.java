@@ -0,0 +1,157 @@
+package com.tidal.refactoring.playlist;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.exception.PlaylistException;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedLockingPlaylistServiceTest {
+
+    private static final int PLAYLISTS = 4;
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS_PER_WRITER = 500;
+
+    /* Calls the delegate may take without the lock */
+    private static final Set<String> READS =
+            new HashSet<>(
+                    Arrays.asList("containsTrack", "getVersion", "getTracks", "streamTracks"));
+
+    @Test
+    public void editsOfOnePlaylistNeverOverlap() throws Exception {
+        InMemoryPlaylistRepository repository = repository();
+        OverlapDetector detector = new OverlapDetector(new PlaylistServiceImpl(repository));
+
+        /* Actual calls */
+        edit(new StripedLockingPlaylistService(detector.service()));
+
+        /* Assertions */
+        assertTrue(detector.calls.get() > WRITERS * OPERATIONS_PER_WRITER / 2);
+        assertEquals(0, detector.overlaps.get());
+        for (int i = 0; i < PLAYLISTS; i++) {
+            Playlist playlist = repository.getPlaylistByUUID("stress-" + i).orElseThrow();
+            assertEquals(playlist.getTracks().size(), playlist.getNrOfTracks());
+        }
+    }
+
+    /* The detector itself sees the overlapping calls the lock prevents */
+    @Test
+    public void editsOverlapWithoutLocking() throws Exception {
+        OverlapDetector detector = new OverlapDetector(new PlaylistServiceImpl(repository()));
+
+        /* Actual calls */
+        edit(detector.service());
+
+        /* Assertions */
+        assertTrue(detector.overlaps.get() > 0);
+    }
+
+    private static InMemoryPlaylistRepository repository() {
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        for (int i = 0; i < PLAYLISTS; i++) {
+            repository.save(Playlist.builder().id(i).uuid("stress-" + i).build());
+        }
+        return repository;
+    }
+
+    /* WRITERS threads editing random playlists through the service at once */
+    private static void edit(PlaylistService playlistService) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            Random random = new Random(w);
+            writers.add(
+                    executor.submit(
+                            () -> {
+                                start.await();
+                                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                                    edit(playlistService, random);
+                                }
+                                return null;
+                            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> writer : writers) writer.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void edit(PlaylistService playlistService, Random random) {
+        String uuid = "stress-" + random.nextInt(PLAYLISTS);
+        try {
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    Track track = Track.builder().id(random.nextInt(10_000)).duration(1.0f).build();
+                    playlistService.addTracks(uuid, Collections.singletonList(track), -1);
+                    break;
+                case 2:
+                    playlistService.removeTracks(uuid, Collections.singletonList(0));
+                    break;
+                default:
+                    playlistService.removeRange(uuid, 0, 1);
+            }
+        } catch (PlaylistException e) {
+            /* Full or empty playlists are rejected */
+        }
+        playlistService.getTracks(uuid, 0, 10);
+    }
+
+    /* Delegate counting edits of one uuid that are in flight at the same time */
+    private static class OverlapDetector {
+        private final PlaylistService delegate;
+        private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+
+        private OverlapDetector(PlaylistService delegate) {
+            this.delegate = delegate;
+        }
+
+        private PlaylistService service() {
+            return (PlaylistService)
+                    Proxy.newProxyInstance(
+                            PlaylistService.class.getClassLoader(),
+                            new Class<?>[] {PlaylistService.class},
+                            (proxy, method, args) -> {
+                                if (READS.contains(method.getName())) {
+                                    return invoke(method, args);
+                                }
+                                AtomicInteger edits =
+                                        inFlight.computeIfAbsent(
+                                                (String) args[0], uuid -> new AtomicInteger());
+                                calls.incrementAndGet();
+                                if (edits.incrementAndGet() > 1) overlaps.incrementAndGet();
+                                try {
+                                    /* Widens the window another edit of the uuid could hit */
+                                    LockSupport.parkNanos(20_000);
+                                    return invoke(method, args);
+                                } finally {
+                                    edits.decrementAndGet();
+                                }
+                            });
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
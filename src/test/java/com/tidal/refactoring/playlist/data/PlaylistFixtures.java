@@ -0,0 +1,47 @@
+package com.tidal.refactoring.playlist.data;
+
+import java.time.LocalDate;
+
+/** Builds the playlists shared by the repository and snapshot tests */
+public final class PlaylistFixtures {
+
+    public static final LocalDate DATE = LocalDate.of(2020, 1, 1);
+
+    private PlaylistFixtures() {}
+
+    /** @see #builder(String, int) */
+    public static Playlist playlist(String uuid, int nrOfTracks) {
+        return builder(uuid, nrOfTracks).build();
+    }
+
+    /**
+     * @return a builder of a named playlist holding {@code nrOfTracks} tracks of 60.5 seconds with
+     *     track ids from 100, every other one without a title; set more fields before building
+     */
+    public static Playlist.PlaylistBuilder builder(String uuid, int nrOfTracks) {
+        Playlist.PlaylistBuilder builder =
+                Playlist.builder()
+                        .uuid(uuid)
+                        .playListName("Playlist " + uuid)
+                        .registeredDate(DATE)
+                        .nrOfTracks(nrOfTracks)
+                        .duration(nrOfTracks * 60.5f);
+        for (int i = 0; i < nrOfTracks; i++) {
+            builder.playlistTrack(
+                    PlaylistTrack.builder()
+                            .id(i)
+                            .index(i)
+                            .trackId(100 + i)
+                            .dateAdded(DATE)
+                            .track(
+                                    Track.builder()
+                                            .id(100 + i)
+                                            .title(i % 2 == 0 ? "Track " + i : null)
+                                            .duration(60.5f)
+                                            .artistId(i)
+                                            .build())
+                            .build());
+        }
+        return builder;
+    }
+}
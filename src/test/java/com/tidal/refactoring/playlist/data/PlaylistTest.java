@@ -0,0 +1,59 @@
+package com.tidal.refactoring.playlist.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistTest {
+
+    @Test
+    public void recomputeDurationCorrectsOnlyAnInconsistentDuration() {
+        Playlist playlist =
+                Playlist.builder()
+                        .playlistTrack(
+                                PlaylistTrack.builder()
+                                        .track(Track.builder().id(1).duration(61.5f).build())
+                                        .build())
+                        .nrOfTracks(1)
+                        .duration(60.0f)
+                        .build();
+        long version = playlist.getVersion();
+
+        /* Actual calls */
+        boolean corrected = playlist.recomputeDuration();
+        boolean correctedAgain = playlist.recomputeDuration();
+
+        /* Assertions */
+        assertTrue(corrected);
+        assertFalse(correctedAgain);
+        assertEquals(61_500, playlist.getDurationMillis());
+        assertEquals(61.5f, playlist.getDuration().floatValue());
+        assertEquals(version + 1, playlist.getVersion());
+    }
+
+    @Test
+    public void compactPlaylistKeepsItsLayoutAcrossEdits() {
+        Playlist playlist = Playlist.builder().trackLayout(TrackLayout.COMPACT).build();
+        PlaylistTrack track =
+                PlaylistTrack.builder()
+                        .id(3)
+                        .trackId(7)
+                        .dateAdded(LocalDate.of(2021, 3, 4))
+                        .track(Track.builder().id(7).duration(30.0f).build())
+                        .build();
+
+        /* Actual calls */
+        playlist.setTracks(playlist.getTracks().insert(0, track));
+        playlist.setPlaylistTracks(new HashSet<>(playlist.getPlaylistTracks()));
+
+        /* Assertions */
+        assertEquals(TrackLayout.COMPACT, playlist.getTracks().getLayout());
+        PlaylistTrack stored = playlist.getTracks().get(0);
+        assertEquals(track, stored);
+        assertSame(track.getTrack(), stored.getTrack());
+        assertEquals(30_000, playlist.getTracks().getDurationMillis());
+    }
+}
@@ -0,0 +1,71 @@
+package com.tidal.refactoring.playlist.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackIdIndexTest {
+
+    @Test
+    public void countsFollowAddsAndRemovesWithoutChangingEarlierIndexes() {
+        TrackIdIndex empty = TrackIdIndex.empty();
+
+        /* Actual calls */
+        TrackIdIndex once = empty.add(7);
+        TrackIdIndex twice = once.add(7).add(-3);
+        TrackIdIndex removed = twice.remove(7).remove(7).remove(7);
+
+        /* Assertions */
+        assertFalse(empty.contains(7));
+        assertEquals(1, once.count(7));
+        assertEquals(2, twice.count(7));
+        assertEquals(1, twice.count(-3));
+        assertEquals(2, twice.distinct());
+        assertFalse(removed.contains(7));
+        assertTrue(removed.contains(-3));
+        assertEquals(1, removed.distinct());
+    }
+
+    @Test
+    public void matchesACountingMapUnderRandomEdits() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        TrackIdIndex index = TrackIdIndex.empty();
+
+        /* Actual calls and assertions */
+        for (int i = 0; i < 20_000; i++) {
+            int trackId = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                index = index.remove(trackId);
+                expected.computeIfPresent(trackId, (id, count) -> count > 1 ? count - 1 : null);
+            } else {
+                index = index.add(trackId);
+                expected.merge(trackId, 1, Integer::sum);
+            }
+        }
+        for (int trackId = -1_000; trackId < 1_000; trackId++) {
+            assertEquals(expected.getOrDefault(trackId, 0), index.count(trackId));
+        }
+        assertEquals(expected.size(), index.distinct());
+    }
+
+    @Test
+    public void ofCountsTheTracksOfASequence() {
+        TrackSequence tracks =
+                TrackSequence.of(
+                        Arrays.asList(
+                                PlaylistTrack.builder().trackId(1).build(),
+                                PlaylistTrack.builder().trackId(2).build(),
+                                PlaylistTrack.builder().trackId(1).build()));
+
+        /* Actual calls */
+        TrackIdIndex index = TrackIdIndex.of(tracks);
+
+        /* Assertions */
+        assertEquals(2, index.count(1));
+        assertEquals(1, index.count(2));
+        assertEquals(0, index.count(3));
+    }
+}
@@ -0,0 +1,275 @@
+package com.tidal.refactoring.playlist.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Every test runs against all layouts */
+public class TrackSequenceTest {
+
+    private static PlaylistTrack track(int trackId) {
+        return PlaylistTrack.builder().id(trackId).trackId(trackId).build();
+    }
+
+    @Test
+    public void ofKeepsIterationOrderAndDerivesIndexes() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            TrackSequence sequence = layout.of(Arrays.asList(track(7), track(8), track(9)));
+
+            /* Assertions */
+            assertEquals(3, sequence.size());
+            List<PlaylistTrack> list = sequence.toList();
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(i, list.get(i).getIndex());
+                assertEquals(7 + i, list.get(i).getTrackId());
+            }
+        }
+    }
+
+    @Test
+    public void insertShiftsLaterTracksWithoutRewritingStoredIndexes() {
+        PlaylistTrack last = track(2);
+        TrackSequence sequence = TrackSequence.of(Arrays.asList(track(1), last));
+
+        /* Actual calls */
+        TrackSequence updated = sequence.insert(0, track(0));
+
+        /* Assertions */
+        assertEquals(2, updated.get(2).getIndex());
+        assertEquals(2, updated.get(2).getTrackId());
+        assertEquals(0, last.getIndex());
+        assertEquals(2, sequence.size());
+    }
+
+    @Test
+    public void removeDropsTrackAtIndex() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            TrackSequence sequence = layout.of(Arrays.asList(track(0), track(1), track(2)));
+
+            /* Actual calls */
+            TrackSequence updated = sequence.remove(1);
+
+            /* Assertions */
+            assertEquals(2, updated.size());
+            assertEquals(2, updated.get(1).getTrackId());
+            assertEquals(1, updated.get(1).getIndex());
+        }
+    }
+
+    @Test
+    public void getThrowsWhenIndexIsOutOfBounds() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            TrackSequence sequence = layout.of(Collections.singletonList(track(0)));
+
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.get(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.insert(2, track(1)));
+            assertThrows(IndexOutOfBoundsException.class, () -> layout.empty().remove(0));
+        }
+    }
+
+    @Test
+    public void durationFollowsEveryEdit() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            TrackSequence sequence = layout.empty();
+            for (int i = 0; i < 100; i++) {
+                Track track = Track.builder().id(i).duration(0.1f * i).build();
+                sequence = sequence.insert(i / 2, PlaylistTrack.builder().track(track).build());
+            }
+            long expected = 0;
+            for (PlaylistTrack playlistTrack : sequence.subSequence(20, 70)) {
+                expected += playlistTrack.getTrack().getDurationMillis();
+            }
+
+            /* Assertions */
+            assertEquals(495_000, sequence.getDurationMillis());
+            assertEquals(expected, sequence.subSequence(20, 70).getDurationMillis());
+            assertEquals(495_000 - expected, sequence.removeRange(20, 70).getDurationMillis());
+            assertEquals(0, layout.empty().getDurationMillis());
+        }
+    }
+
+    /* Both the point removal and the compaction path, checked against an ArrayList model */
+    @Test
+    public void removeAllDropsMarkedPositionsAndReportsThem() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            Random random = new Random(7);
+            for (int removals : new int[] {1, 3, 400}) {
+                List<Integer> model = new ArrayList<>();
+                List<PlaylistTrack> tracks = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    model.add(i);
+                    tracks.add(track(i));
+                }
+                BitSet positions = new BitSet();
+                while (positions.cardinality() < removals) positions.set(random.nextInt(500));
+                positions.set(600);
+
+                /* Actual calls */
+                List<PlaylistTrack> removed = new ArrayList<>();
+                TrackSequence updated = layout.of(tracks).removeAll(positions, removed::add);
+
+                /* Assertions */
+                assertEquals(removals, removed.size());
+                for (PlaylistTrack playlistTrack : removed) {
+                    assertEquals(playlistTrack.getTrackId(), playlistTrack.getIndex());
+                    assertTrue(positions.get(playlistTrack.getIndex()));
+                }
+                for (int i = positions.previousSetBit(499);
+                        i >= 0;
+                        i = positions.previousSetBit(i - 1)) {
+                    model.remove(i);
+                }
+                assertEquals(model.size(), updated.size());
+                for (int i = 0; i < model.size(); i++) {
+                    assertEquals((int) model.get(i), updated.get(i).getTrackId());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removeRangeAndSubSequenceSplitAtTheBounds() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            List<PlaylistTrack> tracks = new ArrayList<>();
+            for (int i = 0; i < 100; i++) tracks.add(track(i));
+            TrackSequence sequence = layout.of(tracks);
+
+            /* Actual calls */
+            TrackSequence removed = sequence.removeRange(10, 95);
+            TrackSequence range = sequence.subSequence(10, 95);
+
+            /* Assertions */
+            assertEquals(15, removed.size());
+            assertEquals(9, removed.get(9).getTrackId());
+            assertEquals(95, removed.get(10).getTrackId());
+            assertEquals(85, range.size());
+            assertEquals(10, range.get(0).getTrackId());
+            assertEquals(0, range.get(0).getIndex());
+            assertSame(sequence, sequence.removeRange(3, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.removeRange(5, 4));
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.subSequence(0, 101));
+        }
+    }
+
+    /* Every range to every target, checked against an ArrayList model */
+    @Test
+    public void moveMatchesListModel() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            List<PlaylistTrack> tracks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) tracks.add(track(i));
+            TrackSequence sequence = layout.of(tracks);
+
+            for (int from = 0; from <= 8; from++) {
+                for (int to = from; to <= 8; to++) {
+                    for (int target = 0; target <= 8 - (to - from); target++) {
+                        List<PlaylistTrack> model = new ArrayList<>(tracks);
+                        List<PlaylistTrack> moved = new ArrayList<>(model.subList(from, to));
+                        model.subList(from, to).clear();
+                        model.addAll(target, moved);
+
+                        /* Actual calls */
+                        TrackSequence updated = sequence.move(from, to, target);
+
+                        /* Assertions */
+                        assertEquals(8, updated.size());
+                        for (int i = 0; i < 8; i++) {
+                            assertEquals(model.get(i).getTrackId(), updated.get(i).getTrackId());
+                            assertEquals(i, updated.get(i).getIndex());
+                        }
+                    }
+                }
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.move(2, 4, 7));
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.move(6, 9, 0));
+        }
+    }
+
+    /* Every insertion index, checked against an ArrayList model */
+    @Test
+    public void insertAllMatchesListModel() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            List<PlaylistTrack> tracks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) tracks.add(track(i));
+            TrackSequence sequence = layout.of(tracks);
+            List<PlaylistTrack> inserted = new ArrayList<>();
+            for (int i = 100; i < 140; i++) inserted.add(track(i));
+
+            for (int index = 0; index <= 8; index++) {
+                List<PlaylistTrack> model = new ArrayList<>(tracks);
+                model.addAll(index, inserted);
+
+                /* Actual calls */
+                TrackSequence updated = sequence.insertAll(index, inserted);
+
+                /* Assertions */
+                assertEquals(48, updated.size());
+                for (int i = 0; i < 48; i++) {
+                    assertEquals(model.get(i).getTrackId(), updated.get(i).getTrackId());
+                    assertEquals(i, updated.get(i).getIndex());
+                }
+            }
+            assertSame(sequence, sequence.insertAll(3, Collections.emptyList()));
+            assertThrows(IndexOutOfBoundsException.class, () -> sequence.insertAll(9, inserted));
+        }
+    }
+
+    /* Random edits checked against an ArrayList model */
+    @Test
+    public void randomEditsMatchListModel() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            Random random = new Random(42);
+            List<Integer> model = new ArrayList<>();
+            TrackSequence sequence = layout.empty();
+
+            for (int i = 0; i < 5_000; i++) {
+                if (model.isEmpty() || random.nextInt(3) > 0) {
+                    int index = random.nextInt(model.size() + 1);
+                    model.add(index, i);
+                    sequence = sequence.insert(index, track(i));
+                } else if (random.nextInt(10) > 0) {
+                    int index = random.nextInt(model.size());
+                    model.remove(index);
+                    sequence = sequence.remove(index);
+                } else {
+                    int from = random.nextInt(model.size());
+                    int to = from + random.nextInt(Math.min(model.size() - from, 20) + 1);
+                    model.subList(from, to).clear();
+                    sequence = sequence.removeRange(from, to);
+                }
+            }
+
+            /* Assertions */
+            assertEquals(model.size(), sequence.size());
+            int position = 0;
+            for (PlaylistTrack playlistTrack : sequence) {
+                assertEquals(position, playlistTrack.getIndex());
+                assertEquals((int) model.get(position), playlistTrack.getTrackId());
+                position++;
+            }
+        }
+    }
+
+    @Test
+    public void toListOfRangeStartsAtAnyIndex() {
+        for (TrackLayout layout : TrackLayout.values()) {
+            List<PlaylistTrack> tracks = new ArrayList<>();
+            for (int i = 0; i < 100; i++) tracks.add(track(i));
+            TrackSequence sequence = layout.of(tracks);
+
+            for (int from = 0; from <= 100; from++) {
+                /* Actual calls */
+                List<PlaylistTrack> page = sequence.toList(from, Math.min(from + 7, 100));
+
+                /* Assertions */
+                assertEquals(Math.min(7, 100 - from), page.size());
+                for (int i = 0; i < page.size(); i++) {
+                    assertEquals(from + i, page.get(i).getIndex());
+                    assertEquals(from + i, page.get(i).getTrackId());
+                }
+            }
+            assertEquals(4950, sequence.stream().mapToInt(PlaylistTrack::getIndex).sum());
+        }
+    }
+}
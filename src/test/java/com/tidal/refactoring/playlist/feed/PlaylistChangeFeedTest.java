@@ -0,0 +1,135 @@
+package com.tidal.refactoring.playlist.feed;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistChange;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistChangeFeedTest {
+
+    private final InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+
+    private static List<Track> tracks(int... ids) {
+        List<Track> tracks = new ArrayList<>();
+        for (int id : ids) tracks.add(Track.builder().id(id).build());
+        return tracks;
+    }
+
+    /* Requests only when told to, delivery runs on the calling thread */
+    private static class RecordingSubscriber implements Flow.Subscriber<List<PlaylistChange>> {
+        private final List<List<PlaylistChange>> batches = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(List<PlaylistChange> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    public void publishesEditsInRequestedBatchesAndCompletesOnClose() {
+        PlaylistChangeFeed feed =
+                PlaylistChangeFeed.builder().executor(Runnable::run).maxBatchSize(2).build();
+        PlaylistService service =
+                PlaylistServiceImpl.builder().playlistRepository(repository).listener(feed).build();
+        repository.save(Playlist.builder().uuid("first").build());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        feed.subscribe(subscriber);
+
+        /* Actual calls */
+        service.addTracks("first", tracks(10, 11, 12), 0);
+        service.removeTracks("first", Arrays.asList(0, 2));
+        service.addTracks("first", tracks(13), 0);
+        service.moveTracks("first", 0, 1, 1);
+        boolean deliveredUnrequested = !subscriber.batches.isEmpty();
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(5);
+        feed.close();
+
+        /* Assertions */
+        assertFalse(deliveredUnrequested);
+        assertEquals(2, subscriber.batches.size());
+        PlaylistChange added = subscriber.batches.get(0).get(0);
+        assertEquals(PlaylistChange.Type.ADD, added.getType());
+        assertEquals("first", added.getUuid());
+        assertEquals(1, added.getVersion());
+        assertArrayEquals(new int[] {0, 1, 2}, added.getPositions());
+        assertArrayEquals(new int[] {10, 11, 12}, added.getTrackIds());
+        PlaylistChange removed = subscriber.batches.get(0).get(1);
+        assertEquals(PlaylistChange.Type.REMOVE, removed.getType());
+        assertEquals(2, removed.getVersion());
+        assertArrayEquals(new int[] {0, 2}, removed.getPositions());
+        assertArrayEquals(new int[] {10, 12}, removed.getTrackIds());
+        removed.getPositions()[0] = 1;
+        assertEquals(2, removed.size());
+        assertEquals(0, removed.getPosition(0));
+        assertEquals(12, removed.getTrackId(1));
+        assertEquals(PlaylistChange.Type.ADD, subscriber.batches.get(1).get(0).getType());
+        assertEquals(PlaylistChange.Type.RESET, subscriber.batches.get(1).get(1).getType());
+        assertEquals(4, subscriber.batches.get(1).get(1).getVersion());
+        assertTrue(subscriber.completed);
+        assertEquals(0, feed.subscriberCount());
+    }
+
+    @Test
+    public void conflatesForSlowSubscriberAndFailsItWhenTooFarBehind() {
+        PlaylistChangeFeed feed =
+                PlaylistChangeFeed.builder().executor(Runnable::run).bufferSize(4).build();
+        PlaylistService service =
+                PlaylistServiceImpl.builder().playlistRepository(repository).listener(feed).build();
+        for (String uuid : Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+            repository.save(Playlist.builder().uuid(uuid).build());
+        }
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        feed.subscribe(subscriber);
+
+        /* Actual calls */
+        for (String uuid : Arrays.asList("a", "b", "a", "b", "a")) {
+            service.addTracks(uuid, tracks(1), 0);
+        }
+        subscriber.subscription.request(1);
+        for (String uuid : Arrays.asList("c", "d", "e", "f", "g")) {
+            service.addTracks(uuid, tracks(1), 0);
+        }
+
+        /* Assertions */
+        List<PlaylistChange> batch = subscriber.batches.get(0);
+        assertEquals(3, batch.size());
+        assertEquals(PlaylistChange.Type.RESET, batch.get(0).getType());
+        assertEquals("a", batch.get(0).getUuid());
+        assertEquals(2, batch.get(0).getVersion());
+        assertEquals(PlaylistChange.Type.RESET, batch.get(1).getType());
+        assertEquals("b", batch.get(1).getUuid());
+        assertEquals(PlaylistChange.Type.ADD, batch.get(2).getType());
+        assertEquals(3, batch.get(2).getVersion());
+
+        assertEquals(1, subscriber.batches.size());
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(0, feed.subscriberCount());
+    }
+}
@@ -0,0 +1,39 @@
+package com.tidal.refactoring.playlist.history;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistHistoryTest {
+
+    private static final String UUID = "history-1";
+
+    @Test
+    public void editsReportedOutOfOrderAreUndoneInVersionOrder() {
+        PlaylistHistory history = PlaylistHistory.builder().build();
+        PlaylistSnapshot first = Playlist.builder().uuid(UUID).build().getSnapshot();
+        PlaylistSnapshot second = first.withNrOfTracks(1);
+        PlaylistSnapshot third = second.withNrOfTracks(2);
+        PlaylistSnapshot fourth = third.withNrOfTracks(3);
+
+        /* Actual calls */
+        history.recordEdit(UUID, third, fourth);
+        history.recordEdit(UUID, first, second);
+        history.recordEdit(UUID, second, third);
+
+        /* Assertions */
+        assertSame(second, history.getVersion(UUID, second.getVersion()));
+        assertSame(first, history.getVersion(UUID, first.getVersion()));
+        assertSame(third, history.undoTarget(UUID, fourth));
+        assertNull(history.redoTarget(UUID, fourth));
+
+        /* Undo publishes a copy of the target, the step below then applies to the copy */
+        PlaylistSnapshot undone = fourth.withNrOfTracks(third.getNrOfTracks());
+        history.recordUndo(UUID, third, fourth, undone);
+        assertSame(second, history.undoTarget(UUID, undone));
+        assertSame(fourth, history.redoTarget(UUID, undone));
+        assertNull(history.undoTarget(UUID, fourth));
+    }
+}
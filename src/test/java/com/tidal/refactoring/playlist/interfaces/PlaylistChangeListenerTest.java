@@ -0,0 +1,65 @@
+package com.tidal.refactoring.playlist.interfaces;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistChange;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistChangeListenerTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+
+    @Test
+    public void ofTellsEveryListenerInOrder() {
+        List<String> told = new ArrayList<>();
+        PlaylistChangeListener[] listeners = {recording("first", told), recording("second", told)};
+        PlaylistChangeListener listener = PlaylistChangeListener.of(listeners);
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        List<PlaylistTrack> tracks = Collections.emptyList();
+
+        /* Actual calls */
+        listeners[1] = PlaylistChangeListener.NONE;
+        listener.tracksAdded(playlist, tracks);
+        listener.tracksRemoved(playlist, tracks);
+        listener.changed(PlaylistChange.reset(PLAYLIST_UUID, 1));
+
+        /* Assertions */
+        assertEquals(
+                Arrays.asList(
+                        "first added",
+                        "second added",
+                        "first removed",
+                        "second removed",
+                        "first changed",
+                        "second changed"),
+                told);
+        assertSame(PlaylistChangeListener.NONE, PlaylistChangeListener.of());
+        assertSame(listeners[0], PlaylistChangeListener.of(listeners[0]));
+    }
+
+    private static PlaylistChangeListener recording(String name, List<String> told) {
+        return new PlaylistChangeListener() {
+            @Override
+            public void tracksAdded(Playlist playlist, List<PlaylistTrack> added) {
+                told.add(name + " added");
+            }
+
+            @Override
+            public void tracksRemoved(Playlist playlist, List<PlaylistTrack> removed) {
+                told.add(name + " removed");
+            }
+
+            @Override
+            public void changed(PlaylistChange change) {
+                told.add(name + " changed");
+            }
+        };
+    }
+}
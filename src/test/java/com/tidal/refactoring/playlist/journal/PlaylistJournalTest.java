@@ -0,0 +1,302 @@
+package com.tidal.refactoring.playlist.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlaylistJournalTest {
+
+    private static final LocalDate DATE = LocalDate.of(2021, 6, 1);
+
+    @TempDir Path directory;
+
+    private static JournalRecord record(int i) {
+        return JournalRecord.add("playlist-" + i, i + 1, i, new int[] {i, i + 1, i + 2}, DATE);
+    }
+
+    @Test
+    public void replayReturnsRecordsInAppendOrderAcrossSegments() throws IOException {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path journalDirectory = directory.resolve(policy.name());
+            try (PlaylistJournal journal =
+                    PlaylistJournal.builder()
+                            .directory(journalDirectory)
+                            .fsyncPolicy(policy)
+                            .segmentBytes(256)
+                            .build()) {
+                for (int i = 0; i < 50; i++) journal.append(record(i));
+            }
+
+            /* Actual calls */
+            List<JournalRecord> replayed = new ArrayList<>();
+            long count = PlaylistJournal.replay(journalDirectory, replayed::add);
+
+            /* Assertions */
+            assertEquals(50, count);
+            assertTrue(segments(journalDirectory).size() > 1);
+            for (int i = 0; i < 50; i++) {
+                JournalRecord record = replayed.get(i);
+                assertEquals(JournalRecord.Type.ADD, record.getType());
+                assertEquals("playlist-" + i, record.getUuid());
+                assertEquals(i + 1, record.getVersion());
+                assertEquals(i, record.getIndex());
+                assertArrayEquals(new int[] {i, i + 1, i + 2}, record.getValues());
+                assertEquals(DATE, record.getDate());
+            }
+        }
+    }
+
+    @Test
+    public void replaySkipsTornTailAndReopenedJournalStartsNewSegment() throws IOException {
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            for (int i = 0; i < 3; i++) journal.append(record(i));
+        }
+        Path segment = segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        /* Actual calls */
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            journal.append(JournalRecord.removeRange("playlist-0", 2, 0, 2, null));
+        }
+        List<JournalRecord> replayed = new ArrayList<>();
+        PlaylistJournal.replay(directory, replayed::add);
+
+        /* Assertions */
+        assertEquals(3, replayed.size());
+        assertEquals("playlist-1", replayed.get(1).getUuid());
+        assertEquals(JournalRecord.Type.REMOVE_RANGE, replayed.get(2).getType());
+        assertNull(replayed.get(2).getDate());
+        assertEquals(2, segments(directory).size());
+    }
+
+    @Test
+    public void replayReadsRecordsLargerThanDefaultSegment() throws IOException {
+        int[] values = new int[(64 << 20) / 4 + 1];
+        for (int i = 0; i < values.length; i++) values[i] = i;
+        try (PlaylistJournal journal =
+                PlaylistJournal.builder().directory(directory).segmentBytes(128L << 20).build()) {
+            journal.append(JournalRecord.add("playlist-0", 1, 0, values, DATE));
+            journal.append(record(1));
+        }
+
+        /* Actual calls */
+        List<JournalRecord> replayed = new ArrayList<>();
+        PlaylistJournal.replay(directory, replayed::add);
+
+        /* Assertions */
+        assertEquals(2, replayed.size());
+        assertArrayEquals(values, replayed.get(0).getValues());
+        assertEquals("playlist-1", replayed.get(1).getUuid());
+    }
+
+    @Test
+    public void groupCommitNeverForcesMoreThanOncePerRecord() throws Exception {
+        try (PlaylistJournal journal = PlaylistJournal.builder().directory(directory).build()) {
+            List<Thread> writers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                Thread writer =
+                        new Thread(
+                                () -> {
+                                    try {
+                                        for (int i = 0; i < 100; i++) journal.append(record(i));
+                                    } catch (IOException e) {
+                                        throw new IllegalStateException(e);
+                                    }
+                                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) writer.join();
+
+            /* Assertions */
+            assertEquals(800, journal.recordCount());
+            assertTrue(journal.forceCount() <= 800);
+        }
+        assertEquals(800, PlaylistJournal.replay(directory, record -> {}));
+    }
+
+    @Test
+    public void failedWriteIsCutOffAndLaterRecordsAreReplayed() throws IOException {
+        int[] writes = {0};
+        try (PlaylistJournal journal =
+                new PlaylistJournal(
+                        directory,
+                        FsyncPolicy.EVERY_RECORD,
+                        0,
+                        segment -> new FailingChannel(open(segment), writes, 3, false))) {
+            journal.append(record(0));
+            journal.append(record(1));
+
+            /* Actual calls */
+            assertThrows(IOException.class, () -> journal.append(record(2)));
+            journal.append(record(3));
+            journal.append(record(4));
+        }
+        List<JournalRecord> replayed = new ArrayList<>();
+        PlaylistJournal.replay(directory, replayed::add);
+
+        /* Assertions */
+        assertEquals(
+                Arrays.asList("playlist-0", "playlist-1", "playlist-3", "playlist-4"),
+                replayed.stream().map(JournalRecord::getUuid).collect(Collectors.toList()));
+        assertEquals(2, segments(directory).size());
+    }
+
+    @Test
+    public void journalRefusesAppendsWhenFailedWriteCannotBeCutOff() throws IOException {
+        int[] writes = {0};
+        try (PlaylistJournal journal =
+                new PlaylistJournal(
+                        directory,
+                        FsyncPolicy.GROUP_COMMIT,
+                        0,
+                        segment -> new FailingChannel(open(segment), writes, 2, true))) {
+            journal.append(record(0));
+
+            /* Actual calls and assertions */
+            IOException failed = assertThrows(IOException.class, () -> journal.append(record(1)));
+            IOException refused = assertThrows(IOException.class, () -> journal.append(record(2)));
+            assertSame(failed, refused.getCause());
+            assertEquals(1, journal.recordCount());
+        }
+        assertEquals(1, PlaylistJournal.replay(directory, record -> {}));
+    }
+
+    private static FileChannel open(Path segment) throws IOException {
+        return FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    /** Writes half of the frame of its n-th write across all channels, then fails */
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final int[] writes;
+        private final int failingWrite;
+        private final boolean failTruncate;
+
+        private FailingChannel(
+                FileChannel delegate, int[] writes, int failingWrite, boolean failTruncate) {
+            this.delegate = delegate;
+            this.writes = writes;
+            this.failingWrite = failingWrite;
+            this.failTruncate = failTruncate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (++writes[0] != failingWrite) return delegate.write(src);
+            ByteBuffer half = src.duplicate();
+            half.limit(src.position() + src.remaining() / 2);
+            delegate.write(half);
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) throw new IOException("Input/output error");
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
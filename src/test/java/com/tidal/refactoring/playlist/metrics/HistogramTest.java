@@ -0,0 +1,52 @@
+package com.tidal.refactoring.playlist.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+
+        /* Actual calls */
+        for (int value = 1; value <= 100; value++) histogram.record(value);
+
+        /* Assertions */
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean());
+    }
+
+    @Test
+    public void largeValuesStayWithinPrecision() {
+        Histogram histogram = new Histogram();
+
+        /* Actual calls */
+        for (long value = 1_000; value <= 1_000_000_000L; value *= 10) histogram.record(value);
+        histogram.record(-5);
+
+        /* Assertions */
+        assertEquals(8, histogram.getCount());
+        assertEquals(1_000_000_000L, histogram.getMax());
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 100_000 && median <= 100_000 * 65 / 64, "median " + median);
+        assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (int exponent = 0; exponent < 63; exponent++) {
+            long value = 1L << exponent;
+            for (long candidate : new long[] {value, value + value / 3, value * 2 - 1}) {
+                /* Assertions */
+                int bucket = Histogram.bucket(candidate);
+                assertTrue(Histogram.highestValue(bucket) >= candidate);
+                assertTrue(bucket == 0 || Histogram.highestValue(bucket - 1) < candidate);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.tidal.refactoring.playlist.data.PlaylistFixtures.playlist;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingPlaylistRepositoryTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+    private static final String OTHER_PLAYLIST_UUID = "9fb0ba8e41c3a6f0c2d77e51";
+
+    @Mock private PlaylistRepository playlistRepository;
+
+    @Test
+    public void getPlaylistByUUIDLoadsOnceAndThenHitsCache() {
+        Playlist playlist = playlist(PLAYLIST_UUID, 10);
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder().delegate(playlistRepository).build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        Optional<Playlist> cached = cache.getPlaylistByUUID(PLAYLIST_UUID);
+
+        /* Assertions */
+        assertSame(playlist, cached.orElseThrow());
+        assertEquals(1, cache.stats().getHitCount());
+        assertEquals(1, cache.stats().getMissCount());
+        assertEquals(10, cache.stats().getWeight());
+        Mockito.verify(playlistRepository, Mockito.times(1)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+
+    @Test
+    public void getPlaylistByUUIDDoesNotCacheUnknownPlaylists() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.empty());
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder().delegate(playlistRepository).build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+
+        /* Assertions */
+        assertEquals(0, cache.stats().getSize());
+        Mockito.verify(playlistRepository, Mockito.times(2)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+
+    @Test
+    public void getPlaylistByUUIDEvictsLeastRecentlyUsedWhenWeightExceeded() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(PLAYLIST_UUID, 60)));
+        Mockito.when(playlistRepository.getPlaylistByUUID(OTHER_PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(OTHER_PLAYLIST_UUID, 60)));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .maximumWeight(100)
+                        .build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        cache.getPlaylistByUUID(OTHER_PLAYLIST_UUID);
+        cache.getPlaylistByUUID(OTHER_PLAYLIST_UUID);
+
+        /* Assertions */
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(60, stats.getWeight());
+    }
+
+    @Test
+    public void getPlaylistByUUIDReloadsAfterExpiry() {
+        AtomicLong nanos = new AtomicLong();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(PLAYLIST_UUID, 1)));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .expireAfterWrite(Duration.ofSeconds(5))
+                        .ticker(nanos::get)
+                        .build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        nanos.addAndGet(Duration.ofSeconds(4).toNanos());
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+
+        /* Assertions */
+        assertEquals(1, cache.stats().getHitCount());
+        Mockito.verify(playlistRepository, Mockito.times(2)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+
+    @Test
+    public void invalidateForcesNextLookupToDelegate() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(PLAYLIST_UUID, 1)));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder().delegate(playlistRepository).build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        cache.invalidate(PLAYLIST_UUID);
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+
+        /* Assertions */
+        assertEquals(0, cache.stats().getHitCount());
+        Mockito.verify(playlistRepository, Mockito.times(2)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+
+    @Test
+    public void invalidateDuringLoadKeepsLoadedPlaylistOutOfCache() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenAnswer(
+                        invocation -> {
+                            loadStarted.countDown();
+                            releaseLoad.await(10, TimeUnit.SECONDS);
+                            return Optional.of(playlist(PLAYLIST_UUID, 1));
+                        })
+                .thenReturn(Optional.of(playlist(PLAYLIST_UUID, 2)));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder().delegate(playlistRepository).build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        /* Actual calls */
+        Future<Optional<Playlist>> stale =
+                executor.submit(() -> cache.getPlaylistByUUID(PLAYLIST_UUID));
+        loadStarted.await(10, TimeUnit.SECONDS);
+        cache.invalidate(PLAYLIST_UUID);
+        releaseLoad.countDown();
+        stale.get(10, TimeUnit.SECONDS);
+        Optional<Playlist> fresh = cache.getPlaylistByUUID(PLAYLIST_UUID);
+
+        /* Assertions */
+        executor.shutdown();
+        assertEquals(2, fresh.orElseThrow().getNrOfTracks());
+        assertEquals(0, cache.stats().getHitCount());
+        Mockito.verify(playlistRepository, Mockito.times(2)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+
+    @Test
+    public void getPlaylistByUUIDDoesNotKeepPlaylistHeavierThanMaximumWeight() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(PLAYLIST_UUID, 10)));
+        Mockito.when(playlistRepository.getPlaylistByUUID(OTHER_PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist(OTHER_PLAYLIST_UUID, 200)));
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .maximumWeight(100)
+                        .build();
+
+        /* Actual calls */
+        cache.getPlaylistByUUID(PLAYLIST_UUID);
+        Optional<Playlist> heavy = cache.getPlaylistByUUID(OTHER_PLAYLIST_UUID);
+
+        /* Assertions */
+        assertTrue(heavy.isPresent());
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(0, stats.getSize());
+        assertEquals(0, stats.getWeight());
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        int threads = 8;
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenAnswer(
+                        invocation -> {
+                            loadStarted.countDown();
+                            releaseLoad.await(10, TimeUnit.SECONDS);
+                            return Optional.of(playlist(PLAYLIST_UUID, 1));
+                        });
+        CachingPlaylistRepository cache =
+                CachingPlaylistRepository.builder().delegate(playlistRepository).build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Optional<Playlist>>> lookups = new ArrayList<>();
+
+        /* Actual calls */
+        lookups.add(executor.submit(() -> cache.getPlaylistByUUID(PLAYLIST_UUID)));
+        loadStarted.await(10, TimeUnit.SECONDS);
+        for (int i = 1; i < threads; i++) {
+            lookups.add(executor.submit(() -> cache.getPlaylistByUUID(PLAYLIST_UUID)));
+        }
+        releaseLoad.countDown();
+
+        /* Assertions */
+        for (Future<Optional<Playlist>> lookup : lookups) {
+            assertTrue(lookup.get(10, TimeUnit.SECONDS).isPresent());
+        }
+        executor.shutdown();
+        assertEquals(1, cache.stats().getLoadCount());
+        Mockito.verify(playlistRepository, Mockito.times(1)).getPlaylistByUUID(PLAYLIST_UUID);
+    }
+}
@@ -0,0 +1,215 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.CoalescingPlaylistService;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistFixtures;
+import com.tidal.refactoring.playlist.data.PlaylistTrack;
+import com.tidal.refactoring.playlist.data.Track;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedPlaylistRepositoryTest {
+
+    @TempDir Path directory;
+
+    private static Playlist playlist(String uuid, int nrOfTracks) {
+        return PlaylistFixtures.builder(uuid, nrOfTracks)
+                .id(7)
+                .lastUpdated(LocalDate.of(2020, 2, 1))
+                .build();
+    }
+
+    private static void assertSamePlaylist(Playlist expected, Playlist actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUuid(), actual.getUuid());
+        assertEquals(expected.getPlayListName(), actual.getPlayListName());
+        assertEquals(expected.getRegisteredDate(), actual.getRegisteredDate());
+        assertEquals(expected.getLastUpdated(), actual.getLastUpdated());
+        assertEquals(expected.getNrOfTracks(), actual.getNrOfTracks());
+        assertEquals(expected.getDurationMillis(), actual.getDurationMillis());
+        assertEquals(expected.getVersion(), actual.getVersion());
+
+        List<PlaylistTrack> expectedTracks = expected.getTracks().toList();
+        List<PlaylistTrack> actualTracks = actual.getTracks().toList();
+        assertEquals(expectedTracks, actualTracks);
+        for (int i = 0; i < expectedTracks.size(); i++) {
+            Track expectedTrack = expectedTracks.get(i).getTrack();
+            Track actualTrack = actualTracks.get(i).getTrack();
+            assertEquals(expectedTrack.getTitle(), actualTrack.getTitle());
+            assertEquals(expectedTrack.getDuration(), actualTrack.getDuration());
+            assertEquals(expectedTrack.getArtistId(), actualTrack.getArtistId());
+        }
+    }
+
+    @Test
+    public void savedPlaylistIsFoundByUuid() throws IOException {
+        Playlist playlist = playlist("uuid-1", 10);
+
+        /* Actual calls */
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            repository.save(playlist);
+
+            /* Assertions */
+            assertSamePlaylist(playlist, repository.getPlaylistByUUID("uuid-1").get());
+            assertFalse(repository.getPlaylistByUUID("uuid-2").isPresent());
+        }
+    }
+
+    @Test
+    public void playlistsSurviveReopening() throws IOException {
+        Playlist playlist = playlist("uuid-1", 10);
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            repository.save(playlist);
+        }
+
+        /* Actual calls */
+        try (MappedPlaylistRepository reopened =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+
+            /* Assertions */
+            assertSamePlaylist(playlist, reopened.getPlaylistByUUID("uuid-1").get());
+        }
+    }
+
+    @Test
+    public void decodedTracksShareTheCatalogInstances() throws IOException {
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            repository.save(playlist("uuid-1", 3));
+            repository.save(playlist("uuid-2", 3));
+        }
+        TrackCatalog trackCatalog = new TrackCatalog();
+
+        /* Saved instances stay live, so only a reopened repository decodes */
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder()
+                        .directory(directory)
+                        .trackCatalog(trackCatalog)
+                        .build()) {
+
+            /* Actual calls */
+            Playlist first = repository.getPlaylistByUUID("uuid-1").get();
+            Playlist second = repository.getPlaylistByUUID("uuid-2").get();
+
+            /* Assertions */
+            Track track = first.getTracks().get(1).getTrack();
+            assertSame(track, first.getTracks().get(1).getTrack());
+            assertSame(track, second.getTracks().get(1).getTrack());
+            assertEquals(1, trackCatalog.size());
+        }
+    }
+
+    @Test
+    public void saveReplacesAndDeleteRemoves() throws IOException {
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            repository.save(playlist("uuid-1", 10));
+            repository.save(playlist("uuid-2", 3));
+
+            /* Actual calls */
+            Playlist edited = repository.getPlaylistByUUID("uuid-1").get();
+            edited.setTracks(edited.getTracks().removeRange(0, 5));
+            edited.setNrOfTracks(5);
+            repository.save(edited);
+            boolean deleted = repository.delete("uuid-2");
+
+            /* Assertions */
+            assertTrue(deleted);
+            assertFalse(repository.delete("uuid-2"));
+            assertFalse(repository.delete(null));
+            assertFalse(repository.getPlaylistByUUID("uuid-2").isPresent());
+            Playlist found = repository.getPlaylistByUUID("uuid-1").get();
+            assertSamePlaylist(edited, found);
+            assertEquals(105, found.getTracks().get(0).getTrackId());
+        }
+    }
+
+    @Test
+    public void closedRepositoryRejectsUseButKeepsReturnedPlaylists() throws IOException {
+        MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build();
+        Playlist saved = playlist("uuid-1", 10);
+        repository.save(saved);
+        Playlist found = repository.getPlaylistByUUID("uuid-1").get();
+
+        /* Actual calls */
+        repository.close();
+        repository.close();
+
+        /* Assertions */
+        assertSamePlaylist(saved, found);
+        assertThrows(IllegalStateException.class, () -> repository.getPlaylistByUUID("uuid-1"));
+        assertThrows(IllegalStateException.class, () -> repository.save(saved));
+        assertThrows(IllegalStateException.class, () -> repository.delete("uuid-1"));
+        assertThrows(IllegalStateException.class, repository::flush);
+    }
+
+    @Test
+    public void serviceEditsAreWrittenBackAndSharedByLookups() throws IOException {
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            repository.save(playlist("uuid-1", 10));
+            CoalescingPlaylistService service =
+                    CoalescingPlaylistService.builder()
+                            .playlistRepository(repository)
+                            .executor(Runnable::run)
+                            .writeBack(repository.writeBack())
+                            .build();
+            Playlist held = repository.getPlaylistByUUID("uuid-1").get();
+            List<Track> added = Collections.singletonList(Track.builder().id(500).build());
+
+            /* Actual calls */
+            service.addTracks("uuid-1", added, 0).join();
+            service.removeTracks("uuid-1", Arrays.asList(1, 2)).join();
+
+            /* Assertions */
+            Playlist found = repository.getPlaylistByUUID("uuid-1").get();
+            assertSame(held, found);
+            assertEquals(9, found.getNrOfTracks());
+            assertEquals(500, found.getTracks().get(0).getTrackId());
+        }
+
+        try (MappedPlaylistRepository reopened =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            Playlist found = reopened.getPlaylistByUUID("uuid-1").get();
+            assertEquals(9, found.getNrOfTracks());
+            assertEquals(500, found.getTracks().get(0).getTrackId());
+            assertEquals(102, found.getTracks().get(1).getTrackId());
+        }
+    }
+
+    @Test
+    public void indexAndSegmentsGrowPastTheirInitialSize() throws IOException {
+        try (MappedPlaylistRepository repository =
+                MappedPlaylistRepository.builder()
+                        .directory(directory)
+                        .segmentBytes(4096)
+                        .initialIndexCapacity(16)
+                        .build()) {
+
+            /* Actual calls */
+            for (int i = 0; i < 500; i++) repository.save(playlist("uuid-" + i, i % 20));
+            repository.save(playlist("uuid-large", 1_000));
+        }
+
+        /* Assertions */
+        try (MappedPlaylistRepository reopened =
+                MappedPlaylistRepository.builder().directory(directory).build()) {
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i % 20, reopened.getPlaylistByUUID("uuid-" + i).get().getNrOfTracks());
+            }
+            assertEquals(1_000, reopened.getPlaylistByUUID("uuid-large").get().getTracks().size());
+        }
+    }
+}
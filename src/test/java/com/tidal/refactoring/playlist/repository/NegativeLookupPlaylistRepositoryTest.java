@@ -0,0 +1,180 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.interfaces.PlaylistRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+public class NegativeLookupPlaylistRepositoryTest {
+
+    private static final String PLAYLIST_UUID = "ea23cd43ekdo30cm54jxvf93";
+    private static final String UNKNOWN_UUID = "00000000-dead-beef-0000-000000000000";
+
+    @Mock private PlaylistRepository playlistRepository;
+
+    @Test
+    public void getPlaylistByUUIDRejectsUnknownUuidWithoutDelegate() {
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .knownUuids(Collections.singletonList(PLAYLIST_UUID))
+                        .expectedPlaylists(1_000)
+                        .build();
+
+        /* Actual calls */
+        Optional<Playlist> playlist = repository.getPlaylistByUUID(UNKNOWN_UUID);
+
+        /* Assertions */
+        assertFalse(playlist.isPresent());
+        assertEquals(1, repository.stats().getRejectedByFilter());
+        Mockito.verify(playlistRepository, Mockito.never()).getPlaylistByUUID(anyString());
+    }
+
+    @Test
+    public void getPlaylistByUUIDDelegatesKnownUuid() {
+        Playlist playlist = Playlist.builder().uuid(PLAYLIST_UUID).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(PLAYLIST_UUID))
+                .thenReturn(Optional.of(playlist));
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .knownUuids(Collections.singletonList(PLAYLIST_UUID))
+                        .expectedPlaylists(1_000)
+                        .build();
+
+        /* Actual calls, Assertions */
+        assertSame(playlist, repository.getPlaylistByUUID(PLAYLIST_UUID).orElseThrow());
+        assertEquals(1, repository.stats().getDelegated());
+    }
+
+    @Test
+    public void playlistCreatedMakesUuidReachDelegate() {
+        Mockito.when(playlistRepository.getPlaylistByUUID(UNKNOWN_UUID))
+                .thenReturn(Optional.of(Playlist.builder().uuid(UNKNOWN_UUID).build()));
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .knownUuids(Collections.emptyList())
+                        .expectedPlaylists(1_000)
+                        .build();
+
+        /* Actual calls */
+        repository.playlistCreated(UNKNOWN_UUID);
+
+        /* Assertions */
+        assertTrue(repository.getPlaylistByUUID(UNKNOWN_UUID).isPresent());
+    }
+
+    @Test
+    public void savingRegistersSavedPlaylist() {
+        InMemoryPlaylistRepository delegate = new InMemoryPlaylistRepository();
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(delegate)
+                        .knownUuids(Collections.emptyList())
+                        .expectedPlaylists(1_000)
+                        .build();
+        Playlist playlist = Playlist.builder().uuid(UNKNOWN_UUID).build();
+
+        /* Actual calls */
+        repository.saving(delegate::save).accept(playlist);
+
+        /* Assertions */
+        assertSame(playlist, repository.getPlaylistByUUID(UNKNOWN_UUID).orElseThrow());
+        assertEquals(0, repository.stats().getRejectedByFilter());
+    }
+
+    @Test
+    public void bloomFilterIsSizedForKnownUuidsWhenExpectedPlaylistsNotSet() {
+        List<String> knownUuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) knownUuids.add("known-" + i);
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .knownUuids(knownUuids)
+                        .build();
+
+        /* Actual calls */
+        for (int i = 0; i < 1_000; i++) repository.getPlaylistByUUID("unknown-" + i);
+
+        /* Assertions */
+        assertTrue(repository.stats().getRejectedByFilter() > 950);
+        assertTrue(repository.stats().getFilterExpectedFalsePositiveRate() < 0.02);
+    }
+
+    @Test
+    public void playlistCreatedDuringMissedLookupIsNotRememberedAsMissing() {
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder().delegate(playlistRepository).build();
+        Mockito.when(playlistRepository.getPlaylistByUUID(UNKNOWN_UUID))
+                .thenAnswer(
+                        invocation -> {
+                            /* Created after the delegate looked, before the miss is recorded */
+                            repository.playlistCreated(UNKNOWN_UUID);
+                            return Optional.empty();
+                        })
+                .thenReturn(Optional.of(Playlist.builder().uuid(UNKNOWN_UUID).build()));
+
+        /* Actual calls */
+        repository.getPlaylistByUUID(UNKNOWN_UUID);
+        Optional<Playlist> created = repository.getPlaylistByUUID(UNKNOWN_UUID);
+
+        /* Assertions */
+        assertTrue(created.isPresent());
+        assertEquals(0, repository.stats().getRejectedByMissCache());
+    }
+
+    @Test
+    public void getPlaylistByUUIDRemembersMissUntilTtlExpires() {
+        AtomicLong nanos = new AtomicLong();
+        Mockito.when(playlistRepository.getPlaylistByUUID(UNKNOWN_UUID))
+                .thenReturn(Optional.empty());
+        NegativeLookupPlaylistRepository repository =
+                NegativeLookupPlaylistRepository.builder()
+                        .delegate(playlistRepository)
+                        .missTtl(Duration.ofSeconds(10))
+                        .ticker(nanos::get)
+                        .build();
+
+        /* Actual calls */
+        repository.getPlaylistByUUID(UNKNOWN_UUID);
+        repository.getPlaylistByUUID(UNKNOWN_UUID);
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        repository.getPlaylistByUUID(UNKNOWN_UUID);
+
+        /* Assertions */
+        assertEquals(1, repository.stats().getRejectedByMissCache());
+        Mockito.verify(playlistRepository, Mockito.times(2)).getPlaylistByUUID(UNKNOWN_UUID);
+    }
+
+    @Test
+    public void bloomFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put("known-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("known-" + i));
+            if (filter.mightContain("unknown-" + i)) falsePositives++;
+        }
+
+        /* Assertions */
+        assertTrue(falsePositives < 300, falsePositives + " false positives");
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+        assertEquals(10_000, filter.approximateElementCount(), 500);
+    }
+}
@@ -0,0 +1,109 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static com.tidal.refactoring.playlist.data.PlaylistFixtures.playlist;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedPlaylistRepositoryTest {
+
+    private static List<Playlist> playlists(int count) {
+        List<Playlist> playlists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) playlists.add(playlist("playlist-" + i, 2));
+        return playlists;
+    }
+
+    @Test
+    public void shardCountIsRoundedUpToPowerOfTwo() {
+        try (ShardedPlaylistRepository repository =
+                ShardedPlaylistRepository.builder().shards(3).build()) {
+
+            /* Assertions */
+            assertEquals(4, repository.shards());
+            assertEquals(4, repository.getShardStats().size());
+            assertEquals(repository.shardOf("some-uuid"), repository.shardOf("some-uuid"));
+        }
+    }
+
+    @Test
+    public void bulkOperationsFanOutAcrossShardsAndJoin() {
+        List<Playlist> playlists = playlists(64);
+        List<String> uuids = new ArrayList<>();
+        for (Playlist playlist : playlists) uuids.add(playlist.getUuid());
+
+        try (ShardedPlaylistRepository repository =
+                ShardedPlaylistRepository.builder().shards(4).build()) {
+
+            /* Actual calls */
+            repository.saveAll(playlists);
+            Map<String, Playlist> found =
+                    repository.getPlaylistsByUUIDs(
+                            Arrays.asList(uuids.get(0), uuids.get(63), "unknown"));
+            int deleted = repository.deleteAll(uuids.subList(0, 32));
+
+            /* Assertions */
+            assertEquals(2, found.size());
+            assertSame(playlists.get(0), found.get(uuids.get(0)));
+            assertSame(playlists.get(63), found.get(uuids.get(63)));
+            assertEquals(32, deleted);
+            assertEquals(32, repository.size());
+            assertFalse(repository.getPlaylistByUUID(uuids.get(0)).isPresent());
+            assertSame(playlists.get(63), repository.getPlaylistByUUID(uuids.get(63)).get());
+
+            long offloaded = 0;
+            for (ShardStats stats : repository.getShardStats()) {
+                offloaded += stats.getOffloadedCount();
+            }
+            assertTrue(offloaded > 0);
+        }
+    }
+
+    @Test
+    public void shardsAccountForTheirOwnPlaylistsAndWeight() {
+        try (ShardedPlaylistRepository repository =
+                ShardedPlaylistRepository.builder().shards(2).build()) {
+            Playlist large = playlist("large", 10);
+            Playlist empty = playlist("empty", 0);
+
+            /* Actual calls */
+            repository.save(large);
+            repository.save(empty);
+            repository.save(playlist("large", 4));
+
+            /* Assertions */
+            long size = 0;
+            long weight = 0;
+            for (ShardStats stats : repository.getShardStats()) {
+                size += stats.getSize();
+                weight += stats.getWeight();
+            }
+            assertEquals(2, size);
+            assertEquals(5, weight);
+            ShardStats largeShard = repository.getShardStats().get(repository.shardOf("large"));
+            assertTrue(largeShard.getWeight() >= 4);
+        }
+    }
+
+    @Test
+    public void bulkOperationsRunOnCallerOnceClosed() {
+        ShardedPlaylistRepository repository =
+                ShardedPlaylistRepository.builder().shards(4).build();
+        repository.close();
+
+        /* Actual calls */
+        repository.saveAll(playlists(16));
+
+        /* Assertions */
+        assertEquals(16, repository.size());
+        assertTrue(
+                repository
+                        .getPlaylistsByUUIDs(Arrays.asList("playlist-3", "playlist-12"))
+                        .containsKey("playlist-12"));
+        long rejected = 0;
+        for (ShardStats stats : repository.getShardStats()) rejected += stats.getRejectedCount();
+        assertTrue(rejected > 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.tidal.refactoring.playlist.repository;
+
+import com.tidal.refactoring.playlist.data.Track;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackCatalogTest {
+
+    private static Track track(int id, String title) {
+        return Track.builder().id(id).title(title).duration(60.0f).build();
+    }
+
+    @Test
+    public void internReturnsOneInstancePerTrackId() {
+        TrackCatalog catalog = new TrackCatalog();
+        Track first = track(1, "Track 1");
+
+        /* Actual calls */
+        Track interned = catalog.intern(first);
+        Track internedCopy = catalog.intern(track(1, "Track 1"));
+
+        /* Assertions */
+        assertSame(interned, internedCopy);
+        assertEquals("Track 1", interned.getTitle());
+        assertEquals(1, catalog.hitCount());
+        assertEquals(1, catalog.missCount());
+    }
+
+    @Test
+    public void internReplacesTrackWhenMetadataChanged() {
+        TrackCatalog catalog = new TrackCatalog();
+        catalog.intern(track(1, "Track 1"));
+        Track renamed = track(1, "Track 1 (Remastered)");
+
+        /* Actual calls */
+        Track interned = catalog.intern(renamed);
+
+        /* Assertions */
+        assertEquals("Track 1 (Remastered)", interned.getTitle());
+        assertSame(interned, catalog.intern(track(1, "Track 1 (Remastered)")));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    public void internKeepsCopyUnaffectedByCallerMutations() {
+        TrackCatalog catalog = new TrackCatalog();
+        Track track = track(1, "Track 1");
+
+        /* Actual calls */
+        Track interned = catalog.intern(track);
+        track.setTitle("Changed by caller");
+        track.setArtistId(99);
+
+        /* Assertions */
+        assertNotSame(track, interned);
+        assertEquals("Track 1", interned.getTitle());
+        assertEquals(0, interned.getArtistId());
+    }
+
+    @Test
+    public void internStaysWithinMaximumTracks() {
+        TrackCatalog catalog = new TrackCatalog(100);
+
+        /* Actual calls */
+        for (int id = 0; id < 1_000; id++) catalog.intern(track(id, "Track " + id));
+
+        /* Assertions */
+        assertTrue(catalog.size() <= 100);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tidal.refactoring.playlist.snapshot;
+
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.PlaylistFixtures;
+import com.tidal.refactoring.playlist.data.TrackLayout;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import com.tidal.refactoring.playlist.repository.TrackCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotLoaderTest {
+
+    @TempDir Path directory;
+
+    private static Playlist playlist(int id, int nrOfTracks) {
+        return PlaylistFixtures.builder("uuid-" + id, nrOfTracks)
+                .id(id)
+                .playListName(id % 2 == 0 ? "Playlist " + id : null)
+                .trackLayout(id % 3 == 0 ? TrackLayout.COMPACT : TrackLayout.TREE)
+                .build();
+    }
+
+    private Path writeSnapshot(int playlists) throws IOException {
+        Path file = directory.resolve("playlists.snapshot");
+        try (SnapshotWriter writer =
+                SnapshotWriter.builder().file(file).chunkPlaylists(16).build()) {
+            for (int id = 0; id < playlists; id++) writer.write(playlist(id, id % 30));
+        }
+        return file;
+    }
+
+    @Test
+    public void loadRestoresEveryPlaylist() throws IOException {
+        Path file = writeSnapshot(1_000);
+        InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+        TrackCatalog trackCatalog = new TrackCatalog();
+
+        /* Actual calls */
+        LoadStats stats =
+                SnapshotLoader.builder()
+                        .file(file)
+                        .parallelism(4)
+                        .trackCatalog(trackCatalog)
+                        .build()
+                        .load(repository::save);
+
+        /* Assertions */
+        assertEquals(1_000, stats.getPlaylistCount());
+        assertEquals(63, stats.getChunkCount());
+        assertEquals(4, stats.getThreads());
+        assertEquals(1_000, repository.size());
+        assertEquals(29, trackCatalog.size());
+        for (int id = 0; id < 1_000; id++) {
+            Playlist expected = playlist(id, id % 30);
+            Playlist loaded = repository.getPlaylistByUUID("uuid-" + id).get();
+            assertEquals(expected.getId(), loaded.getId());
+            assertEquals(expected.getPlayListName(), loaded.getPlayListName());
+            assertEquals(expected.getRegisteredDate(), loaded.getRegisteredDate());
+            assertNull(loaded.getLastUpdated());
+            assertEquals(expected.getTrackLayout(), loaded.getTrackLayout());
+            assertEquals(expected.getNrOfTracks(), loaded.getNrOfTracks());
+            assertEquals(expected.getDurationMillis(), loaded.getDurationMillis());
+            assertEquals(expected.getTracks().toList(), loaded.getTracks().toList());
+            assertTrue(loaded.getSnapshot().isDurationConsistent());
+        }
+    }
+
+    @Test
+    public void loadRejectsCorruptChunk() throws IOException {
+        Path file = writeSnapshot(100);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 100);
+        }
+
+        /* Actual calls and assertions */
+        IOException e =
+                assertThrows(
+                        IOException.class,
+                        () -> SnapshotLoader.builder().file(file).build().load(playlist -> {}));
+        assertTrue(e.getMessage().startsWith("Corrupt chunk"));
+    }
+
+    @Test
+    public void loadRejectsUnknownVersion() throws IOException {
+        Path file = writeSnapshot(1);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7] = 99;
+        Files.write(file, bytes);
+
+        /* Actual calls and assertions */
+        IOException e =
+                assertThrows(
+                        IOException.class,
+                        () -> SnapshotLoader.builder().file(file).build().load(playlist -> {}));
+        assertTrue(e.getMessage().startsWith("Unsupported snapshot version 99"));
+    }
+}
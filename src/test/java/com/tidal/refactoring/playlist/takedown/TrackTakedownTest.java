@@ -0,0 +1,102 @@
+package com.tidal.refactoring.playlist.takedown;
+
+import com.tidal.refactoring.playlist.PlaylistServiceImpl;
+import com.tidal.refactoring.playlist.data.Playlist;
+import com.tidal.refactoring.playlist.data.Track;
+import com.tidal.refactoring.playlist.interfaces.PlaylistService;
+import com.tidal.refactoring.playlist.repository.InMemoryPlaylistRepository;
+import com.tidal.refactoring.playlist.repository.TrackReverseIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackTakedownTest {
+
+    private static final int PULLED_TRACK_ID = 42;
+    private static final int PULLED_ARTIST_ID = 7;
+
+    private final InMemoryPlaylistRepository repository = new InMemoryPlaylistRepository();
+    private final TrackReverseIndex reverseIndex = new TrackReverseIndex();
+    private final PlaylistService playlistService =
+            PlaylistServiceImpl.builder()
+                    .playlistRepository(repository)
+                    .listener(reverseIndex)
+                    .build();
+
+    private static Track track(int id, int artistId) {
+        return Track.builder().id(id).artistId(artistId).duration(60.0f).build();
+    }
+
+    @Test
+    public void reverseIndexFollowsAddsAndRemoves() {
+        repository.save(Playlist.builder().uuid("first").build());
+        repository.save(Playlist.builder().uuid("second").build());
+
+        /* Actual calls */
+        playlistService.addTracks(
+                "first",
+                Arrays.asList(track(PULLED_TRACK_ID, PULLED_ARTIST_ID), track(1, 1)),
+                0);
+        playlistService.addTracks(
+                "second",
+                Arrays.asList(
+                        track(PULLED_TRACK_ID, PULLED_ARTIST_ID),
+                        track(PULLED_TRACK_ID, PULLED_ARTIST_ID)),
+                0);
+        playlistService.removeTracks("second", Collections.singletonList(0));
+        Set<String> afterOneOfTwo = reverseIndex.playlistsWithTrack(PULLED_TRACK_ID);
+        playlistService.removeRange("second", 0, 1);
+
+        /* Assertions */
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), afterOneOfTwo);
+        assertEquals(
+                Collections.singleton("first"), reverseIndex.playlistsWithTrack(PULLED_TRACK_ID));
+        assertEquals(
+                Collections.singleton("first"), reverseIndex.playlistsWithArtist(PULLED_ARTIST_ID));
+        assertTrue(reverseIndex.playlistsWithTrack(99).isEmpty());
+    }
+
+    @Test
+    public void takedownRemovesTrackFromEveryPlaylistInParallelBatches() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            String uuid = "playlist-" + i;
+            repository.save(Playlist.builder().uuid(uuid).build());
+            List<Track> tracks = new ArrayList<>();
+            tracks.add(track(1_000 + i, 1));
+            if (i % 2 == 0) tracks.add(track(PULLED_TRACK_ID, PULLED_ARTIST_ID));
+            if (i % 10 == 0) tracks.add(track(PULLED_TRACK_ID, PULLED_ARTIST_ID));
+            playlistService.addTracks(uuid, tracks, 0);
+        }
+        /* Deleted behind the index's back, fails without stopping the run */
+        repository.delete("playlist-0");
+        List<TakedownProgress> reported = new ArrayList<>();
+        TrackTakedown takedown =
+                TrackTakedown.builder()
+                        .playlistService(playlistService)
+                        .reverseIndex(reverseIndex)
+                        .parallelism(4)
+                        .batchSize(64)
+                        .build();
+
+        /* Actual calls */
+        TakedownProgress result = takedown.takedown(PULLED_TRACK_ID, reported::add);
+
+        /* Assertions */
+        assertEquals(500, result.getPlaylistCount());
+        assertTrue(result.isDone());
+        assertEquals(499, result.getAffectedCount());
+        assertEquals(499 + 99, result.getRemovedTrackCount());
+        assertEquals(1, result.getFailedCount());
+        assertEquals(8, reported.size());
+        assertTrue(reported.get(reported.size() - 1).isDone());
+
+        assertEquals(
+                Collections.singleton("playlist-0"),
+                reverseIndex.playlistsWithTrack(PULLED_TRACK_ID));
+        Playlist playlist = repository.getPlaylistByUUID("playlist-10").get();
+        assertEquals(1, playlist.getNrOfTracks());
+        assertEquals(60_000, playlist.getDurationMillis());
+    }
+}